@@ -0,0 +1,44 @@
+package com.godot.webview;
+
+import android.content.Context;
+import android.webkit.WebView;
+
+/**
+ * WebView that reports its own invalidations.
+ *
+ * The capture container is invisible, so the view system skips most of its traversals and a
+ * ViewTreeObserver alone cannot see every repaint. Chromium still calls invalidate() /
+ * postInvalidateOnAnimation() on the view whenever it has new content, which is exactly the
+ * damage signal the capture loop needs.
+ */
+class CaptureWebView extends WebView {
+
+    private Runnable damageListener;
+
+    CaptureWebView(Context context) {
+        super(context);
+    }
+
+    void setDamageListener(Runnable listener) {
+        damageListener = listener;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        notifyDamage();
+    }
+
+    @Override
+    public void postInvalidateOnAnimation() {
+        super.postInvalidateOnAnimation();
+        notifyDamage();
+    }
+
+    private void notifyDamage() {
+        Runnable listener = damageListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+}
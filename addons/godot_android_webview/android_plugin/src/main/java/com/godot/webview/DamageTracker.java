@@ -0,0 +1,54 @@
+package com.godot.webview;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks whether the WebView has repainted since the last frame handed to Godot.
+ *
+ * Every invalidation bumps a generation counter. A capture snapshots the generation before
+ * drawing and reports it as delivered afterwards, so damage that arrives while a capture is
+ * in flight is picked up by the next one instead of being lost.
+ */
+final class DamageTracker {
+
+    private final AtomicLong generation = new AtomicLong(1);
+    private volatile long deliveredGeneration = 0;
+    private final AtomicLong damageEvents = new AtomicLong();
+    private final AtomicLong framesCaptured = new AtomicLong();
+    private final AtomicLong framesSkipped = new AtomicLong();
+
+    void markDirty() {
+        generation.incrementAndGet();
+        damageEvents.incrementAndGet();
+    }
+
+    boolean hasNewDamage() {
+        return generation.get() != deliveredGeneration;
+    }
+
+    /** Generation to pass to {@link #delivered(long)} once the frame drawn now reaches Godot. */
+    long beginCapture() {
+        return generation.get();
+    }
+
+    void delivered(long capturedGeneration) {
+        deliveredGeneration = capturedGeneration;
+        framesCaptured.incrementAndGet();
+    }
+
+    void skipped() {
+        framesSkipped.incrementAndGet();
+    }
+
+    /** Forget the last delivered frame, e.g. after the capture target changed. */
+    void reset() {
+        deliveredGeneration = 0;
+        generation.incrementAndGet();
+    }
+
+    String statsJson() {
+        return "{\"damage_events\":" + damageEvents.get() +
+            ",\"frames_captured\":" + framesCaptured.get() +
+            ",\"frames_skipped\":" + framesSkipped.get() + "}";
+    }
+}
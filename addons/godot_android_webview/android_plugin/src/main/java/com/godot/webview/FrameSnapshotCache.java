@@ -0,0 +1,173 @@
+package com.godot.webview;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+
+/**
+ * The last captured frame of recently visited URLs, kept in memory so navigating back to one
+ * can show it at once while the live render catches up.
+ *
+ * Entries are evicted least-recently-used to stay within a byte budget. With a downscale
+ * factor of 2 or 4 frames are stored box-filtered at that fraction of their size (a quarter or
+ * a sixteenth of the bytes) and scaled back up by pixel replication when served. URLs are
+ * keyed without their fragment, since in-page anchors show the same document.
+ */
+final class FrameSnapshotCache {
+
+    private static final class Snapshot {
+        final byte[] pixels;
+        final int width;
+        final int height;
+        final int downscale;
+
+        Snapshot(byte[] pixels, int width, int height, int downscale) {
+            this.pixels = pixels;
+            this.width = width;
+            this.height = height;
+            this.downscale = downscale;
+        }
+    }
+
+    private final LinkedHashMap<String, Snapshot> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long maxBytes;
+    private int downscale;
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    FrameSnapshotCache(long maxBytes, int downscale) {
+        configure(maxBytes, downscale);
+    }
+
+    /** A budget of 0 disables the cache; downscale is rounded to 1, 2 or 4. */
+    synchronized void configure(long maxBytes, int downscale) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.downscale = downscale >= 4 ? 4 : downscale >= 2 ? 2 : 1;
+        trim();
+    }
+
+    synchronized boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    static String key(String url) {
+        int hash = url.indexOf('#');
+        return hash >= 0 ? url.substring(0, hash) : url;
+    }
+
+    /** Store a copy of an RGBA frame as the snapshot of {@code url}. */
+    synchronized void put(String url, byte[] rgba, int width, int height) {
+        int frameBytes = width * height * 4;
+        if (maxBytes <= 0 || url == null || url.isEmpty() || "about:blank".equals(url)
+                || rgba == null || width <= 0 || height <= 0 || rgba.length < frameBytes) {
+            return;
+        }
+        int factor = Math.min(downscale, Math.min(width, height));
+        byte[] pixels = factor == 1 ? Arrays.copyOf(rgba, frameBytes) : downscale(rgba, width, height, factor);
+        if (pixels.length > maxBytes) {
+            return;
+        }
+        Snapshot previous = entries.put(key(url), new Snapshot(pixels, width, height, factor));
+        if (previous != null) {
+            totalBytes -= previous.pixels.length;
+        }
+        totalBytes += pixels.length;
+        trim();
+    }
+
+    /**
+     * The snapshot of {@code url} as a new width x height RGBA frame, or null when there is none
+     * of that size (the panel was resized since).
+     */
+    synchronized byte[] get(String url, int width, int height) {
+        Snapshot snapshot = url != null ? entries.get(key(url)) : null;
+        if (snapshot == null || snapshot.width != width || snapshot.height != height) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (snapshot.downscale == 1) {
+            return snapshot.pixels.clone();
+        }
+        return upscale(snapshot.pixels, width / snapshot.downscale, height / snapshot.downscale,
+            snapshot.downscale, width, height);
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    synchronized String statsJson() {
+        return String.format(Locale.US,
+            "{\"hits\":%d,\"misses\":%d,\"evictions\":%d,\"entries\":%d,\"size_bytes\":%d,\"max_bytes\":%d," +
+            "\"downscale\":%d}",
+            hits, misses, evictions, entries.size(), totalBytes, maxBytes, downscale);
+    }
+
+    private void trim() {
+        Iterator<Snapshot> eldest = entries.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().pixels.length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    /** Average each factor x factor block; trailing rows/columns that don't fill a block are dropped. */
+    static byte[] downscale(byte[] rgba, int width, int height, int factor) {
+        int outWidth = width / factor;
+        int outHeight = height / factor;
+        int area = factor * factor;
+        byte[] out = new byte[outWidth * outHeight * 4];
+        int[] sums = new int[outWidth * 4];
+        int o = 0;
+        for (int y = 0; y < outHeight; y++) {
+            Arrays.fill(sums, 0);
+            for (int row = y * factor; row < (y + 1) * factor; row++) {
+                int i = row * width * 4;
+                for (int x = 0; x < outWidth; x++) {
+                    int s = x * 4;
+                    for (int dx = 0; dx < factor; dx++) {
+                        sums[s] += rgba[i++] & 0xFF;
+                        sums[s + 1] += rgba[i++] & 0xFF;
+                        sums[s + 2] += rgba[i++] & 0xFF;
+                        sums[s + 3] += rgba[i++] & 0xFF;
+                    }
+                }
+            }
+            for (int s = 0; s < sums.length; s++) {
+                out[o++] = (byte) (sums[s] / area);
+            }
+        }
+        return out;
+    }
+
+    /** Nearest-neighbour scale back to width x height, clamping at the edges dropped by downscale. */
+    static byte[] upscale(byte[] small, int smallWidth, int smallHeight, int factor, int width, int height) {
+        byte[] out = new byte[width * height * 4];
+        int rowBytes = width * 4;
+        int previousSource = -1;
+        for (int y = 0; y < height; y++) {
+            int sy = Math.min(y / factor, smallHeight - 1);
+            if (sy == previousSource) {
+                System.arraycopy(out, (y - 1) * rowBytes, out, y * rowBytes, rowBytes);
+                continue;
+            }
+            previousSource = sy;
+            int o = y * rowBytes;
+            int rowStart = sy * smallWidth * 4;
+            for (int x = 0; x < width; x++) {
+                int i = rowStart + Math.min(x / factor, smallWidth - 1) * 4;
+                out[o++] = small[i];
+                out[o++] = small[i + 1];
+                out[o++] = small[i + 2];
+                out[o++] = small[i + 3];
+            }
+        }
+        return out;
+    }
+}
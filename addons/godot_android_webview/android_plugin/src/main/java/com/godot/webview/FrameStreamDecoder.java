@@ -0,0 +1,300 @@
+package com.godot.webview;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reassembles and decodes a stream produced by {@link FrameStreamEncoder}.
+ *
+ * Only one frame is reassembled at a time: a packet of a newer frame discards an incomplete
+ * older one, and packets of older frames are ignored, so memory stays bounded under loss and
+ * reordering. A delta frame is applied only on top of the frame directly before it; after a
+ * gap {@link #needsKeyframe()} turns true until the next keyframe arrives, and the receiver
+ * should ask the sender for one.
+ *
+ * Packets come from the network and are not trusted: frames larger than
+ * {@link FrameStreamFormat#MAX_DIMENSION} square, unknown tile sizes and payloads that inflate
+ * beyond what such a frame can hold are dropped.
+ *
+ * Not thread-safe; use from one thread.
+ */
+final class FrameStreamDecoder {
+
+    // A packet this many frames older than the one being assembled means the sender restarted
+    // its numbering; anything closer is just reordering
+    static final int REORDER_WINDOW = 16;
+
+    private int width;
+    private int height;
+    private int[] pixels = new int[0];
+
+    private boolean assembling = false;
+    private int assemblingFrame;
+    private byte[][] chunks;
+    private int chunksReceived;
+
+    private boolean haveFrame = false;
+    private int lastFrame;
+    private boolean needsKeyframe = true;
+
+    private final Inflater inflater = new Inflater();
+    private byte[] payload = new byte[64 * 1024];
+    private byte[] assembled = new byte[64 * 1024];
+
+    private long framesDecoded = 0;
+    private long framesDropped = 0;
+    private long lastDecodeNanos = 0;
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    boolean needsKeyframe() {
+        return needsKeyframe;
+    }
+
+    /** Feed a batch joined with {@link FrameStreamFormat#join}; true if any frame completed. */
+    boolean receiveAll(byte[] joined) {
+        boolean completed = false;
+        for (byte[] packet : FrameStreamFormat.split(joined)) {
+            completed |= receive(packet);
+        }
+        return completed;
+    }
+
+    /** Feed one packet; returns true when it completed and applied a frame. */
+    boolean receive(byte[] packet) {
+        if (packet.length < FrameStreamFormat.PACKET_HEADER_BYTES
+                || (packet[0] & 0xFF) != FrameStreamFormat.PACKET_MAGIC) {
+            return false;
+        }
+        int frameNumber = FrameStreamFormat.getInt(packet, 1);
+        int index = FrameStreamFormat.getShort(packet, 5);
+        int count = FrameStreamFormat.getShort(packet, 7);
+        if (count == 0 || count > FrameStreamFormat.MAX_PACKETS_PER_FRAME || index >= count) {
+            return false;
+        }
+
+        if (!assembling || frameNumber != assemblingFrame) {
+            if (assembling && frameNumber - assemblingFrame < 0
+                    && assemblingFrame - frameNumber <= REORDER_WINDOW) {
+                return false;
+            }
+            if (assembling) {
+                framesDropped++;
+            }
+            assembling = true;
+            assemblingFrame = frameNumber;
+            chunks = new byte[count][];
+            chunksReceived = 0;
+        }
+        if (count != chunks.length || chunks[index] != null) {
+            return false;
+        }
+        chunks[index] = packet;
+        chunksReceived++;
+        if (chunksReceived < count) {
+            return false;
+        }
+
+        assembling = false;
+        int length = 0;
+        for (byte[] chunk : chunks) {
+            length += chunk.length - FrameStreamFormat.PACKET_HEADER_BYTES;
+        }
+        if (assembled.length < length) {
+            assembled = new byte[length];
+        }
+        int offset = 0;
+        for (byte[] chunk : chunks) {
+            int part = chunk.length - FrameStreamFormat.PACKET_HEADER_BYTES;
+            System.arraycopy(chunk, FrameStreamFormat.PACKET_HEADER_BYTES, assembled, offset, part);
+            offset += part;
+        }
+        chunks = null;
+        return applyFrame(assembled, length);
+    }
+
+    /** The current image as RGBA8 (opaque), reusing {@code target} when it has the right size. */
+    byte[] toRgba(byte[] target) {
+        int size = width * height * 4;
+        byte[] out = (target != null && target.length == size) ? target : new byte[size];
+        for (int i = 0, o = 0; i < width * height; i++, o += 4) {
+            int p = pixels[i];
+            out[o] = (byte) (p >> 16);
+            out[o + 1] = (byte) (p >> 8);
+            out[o + 2] = (byte) p;
+            out[o + 3] = (byte) 0xFF;
+        }
+        return out;
+    }
+
+    String statsJson() {
+        return String.format(Locale.US,
+            "{\"frames\":%d,\"dropped\":%d,\"needs_keyframe\":%b,\"width\":%d,\"height\":%d,\"last_decode_ms\":%.3f}",
+            framesDecoded, framesDropped, needsKeyframe, width, height, lastDecodeNanos / 1_000_000.0);
+    }
+
+    private boolean applyFrame(byte[] data, int length) {
+        long start = System.nanoTime();
+        if (length < FrameStreamFormat.FRAME_HEADER_BYTES || data[0] != FrameStreamFormat.VERSION) {
+            framesDropped++;
+            return false;
+        }
+        boolean key = data[1] == FrameStreamFormat.TYPE_KEY;
+        int frameNumber = FrameStreamFormat.getInt(data, 2);
+        int frameWidth = FrameStreamFormat.getShort(data, 6);
+        int frameHeight = FrameStreamFormat.getShort(data, 8);
+        int tileSize = data[10] & 0xFF;
+        int dy = (short) FrameStreamFormat.getShort(data, 12);
+        int tiles = FrameStreamFormat.getShort(data, 14);
+        if (frameWidth == 0 || frameHeight == 0
+                || frameWidth > FrameStreamFormat.MAX_DIMENSION || frameHeight > FrameStreamFormat.MAX_DIMENSION
+                || tileSize < FrameStreamFormat.MIN_TILE_SIZE || tileSize > FrameStreamFormat.MAX_TILE_SIZE) {
+            framesDropped++;
+            return false;
+        }
+
+        if (key) {
+            if (frameWidth != width || frameHeight != height) {
+                width = frameWidth;
+                height = frameHeight;
+                pixels = new int[width * height];
+            }
+        } else if (needsKeyframe || !haveFrame || frameNumber != lastFrame + 1
+                || frameWidth != width || frameHeight != height) {
+            needsKeyframe = true;
+            framesDropped++;
+            return false;
+        }
+
+        try {
+            int payloadLength = inflate(data, length,
+                FrameStreamFormat.maxPayloadBytes(frameWidth, frameHeight, tileSize));
+            if (dy != 0) {
+                FrameStreamFormat.shiftRows(pixels, width, height, dy);
+            }
+            FrameStreamFormat.ByteSource source = new FrameStreamFormat.ByteSource(payload, 0, payloadLength);
+            int tileCount = FrameStreamFormat.tileCount(width, height, tileSize);
+            for (int t = 0; t < tiles; t++) {
+                int tile = source.getVarint();
+                if (tile >= tileCount) {
+                    throw new IllegalArgumentException("Tile index out of range: " + tile);
+                }
+                decodeTile(source, tile, tileSize);
+            }
+        } catch (DataFormatException | IllegalArgumentException e) {
+            // The image is now partly updated; only a keyframe can repair it
+            needsKeyframe = true;
+            framesDropped++;
+            return false;
+        }
+
+        haveFrame = true;
+        lastFrame = frameNumber;
+        if (key) {
+            needsKeyframe = false;
+        }
+        framesDecoded++;
+        lastDecodeNanos = System.nanoTime() - start;
+        return true;
+    }
+
+    private int inflate(byte[] data, int length, long maxBytes) throws DataFormatException {
+        inflater.reset();
+        inflater.setInput(data, FrameStreamFormat.FRAME_HEADER_BYTES, length - FrameStreamFormat.FRAME_HEADER_BYTES);
+        int size = 0;
+        while (!inflater.finished()) {
+            if (size == payload.length) {
+                if (size >= maxBytes) {
+                    throw new DataFormatException("Payload larger than the frame can hold");
+                }
+                payload = Arrays.copyOf(payload, (int) Math.min(maxBytes, payload.length * 2L));
+            }
+            int n = inflater.inflate(payload, size, payload.length - size);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                throw new DataFormatException("Truncated deflate stream");
+            }
+            size += n;
+        }
+        return size;
+    }
+
+    private void decodeTile(FrameStreamFormat.ByteSource source, int tile, int tileSize) {
+        int tilesAcross = FrameStreamFormat.tilesAcross(width, tileSize);
+        int x0 = (tile % tilesAcross) * tileSize;
+        int y0 = (tile / tilesAcross) * tileSize;
+        int tileWidth = Math.min(width, x0 + tileSize) - x0;
+        int tileHeight = Math.min(height, y0 + tileSize) - y0;
+        int count = tileWidth * tileHeight;
+        int mode = source.get();
+
+        switch (mode) {
+            case FrameStreamFormat.MODE_SOLID: {
+                int color = source.getRgb();
+                for (int k = 0; k < count; k++) {
+                    put(k, color, x0, y0, tileWidth);
+                }
+                break;
+            }
+            case FrameStreamFormat.MODE_PALETTE: {
+                int colors = source.get();
+                if (colors == 0 || colors > FrameStreamFormat.MAX_PALETTE) {
+                    throw new IllegalArgumentException("Bad palette size " + colors);
+                }
+                int[] palette = new int[colors];
+                for (int c = 0; c < colors; c++) {
+                    palette[c] = source.getRgb();
+                }
+                int bits = colors <= 2 ? 1 : colors <= 4 ? 2 : 4;
+                int mask = (1 << bits) - 1;
+                int current = 0;
+                int available = 0;
+                for (int k = 0; k < count; k++) {
+                    if (available == 0) {
+                        current = source.get();
+                        available = 8;
+                    }
+                    available -= bits;
+                    int index = (current >> available) & mask;
+                    if (index >= colors) {
+                        throw new IllegalArgumentException("Palette index out of range");
+                    }
+                    put(k, palette[index], x0, y0, tileWidth);
+                }
+                break;
+            }
+            case FrameStreamFormat.MODE_RLE: {
+                int k = 0;
+                while (k < count) {
+                    int run = source.getVarint();
+                    int color = source.getRgb();
+                    if (run <= 0 || k + run > count) {
+                        throw new IllegalArgumentException("Bad run length");
+                    }
+                    for (int end = k + run; k < end; k++) {
+                        put(k, color, x0, y0, tileWidth);
+                    }
+                }
+                break;
+            }
+            case FrameStreamFormat.MODE_RAW:
+                for (int k = 0; k < count; k++) {
+                    put(k, source.getRgb(), x0, y0, tileWidth);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown tile mode " + mode);
+        }
+    }
+
+    private void put(int k, int color, int x0, int y0, int tileWidth) {
+        pixels[(y0 + k / tileWidth) * width + x0 + k % tileWidth] = color;
+    }
+}
@@ -0,0 +1,502 @@
+package com.godot.webview;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes captured WebView frames (RGBA8, as returned by getPixelData) into a packetised
+ * stream that remote players can decode with {@link FrameStreamDecoder}.
+ *
+ * Keyframes carry every tile; delta frames detect a vertical page scroll, shift the previous
+ * image accordingly and then send only the tiles that still differ. Tiles are stored as a
+ * solid colour, a small palette, runs or raw pixels, whichever is smallest, and the whole
+ * payload goes through Deflater.
+ *
+ * Rate control is a token bucket at the target bitrate: a frame is skipped when the bucket is
+ * empty, and a delta frame stops adding tiles once its estimated size would exceed the
+ * bucket. Deferred tiles stay different from the reference and are sent by later frames,
+ * starting where the last frame stopped. If tiles keep being deferred the encoder drops
+ * colour precision (up to 3 bits per channel); with spare budget it refines back again.
+ *
+ * Not thread-safe; use from one thread.
+ */
+final class FrameStreamEncoder {
+
+    static final int DEFAULT_TILE_SIZE = 32;
+    static final int DEFAULT_MTU = 1200;
+    static final int DEFAULT_BITRATE = 2_000_000;
+    static final int DEFAULT_KEYFRAME_INTERVAL_MS = 10_000;
+
+    private static final int MAX_QUANT_SHIFT = 3;
+    private static final int SCROLL_SAMPLE_ROWS = 32;
+
+    private final int width;
+    private final int height;
+    private final int tileSize;
+    private final int mtu;
+    private final int tilesAcross;
+    private final int tileCount;
+
+    private final int[] current;
+    private final int[] reference;
+    private long[] rowHashes;
+    private long[] previousRowHashes;
+    private final int[] tilePixels;
+    private final int[] palette = new int[FrameStreamFormat.MAX_PALETTE];
+    private final int[] scrollCandidates = new int[SCROLL_SAMPLE_ROWS];
+    private final FrameStreamFormat.ByteSink payload;
+    private byte[] frame;
+    private final Deflater deflater;
+
+    private int targetBitrate = DEFAULT_BITRATE;
+    private int keyframeIntervalMs = DEFAULT_KEYFRAME_INTERVAL_MS;
+    private boolean keyframeRequested = true;
+
+    private int frameNumber = 0;
+    private long lastTimestamp = -1;
+    private long lastKeyframeTime = 0;
+    private double budgetBytes = 0;
+    private double compressionRatio = 0.5;
+    private int quantShift = 0;
+    private int tileCursor = 0;
+    private int deferredStreak = 0;
+    private int headroomStreak = 0;
+
+    private long framesEncoded = 0;
+    private long framesSkipped = 0;
+    private long keyframes = 0;
+    private long bytesSent = 0;
+    private int lastFrameBytes = 0;
+    private int lastTiles = 0;
+    private int lastDeferredTiles = 0;
+    private int lastScrollDy = 0;
+    private long lastEncodeNanos = 0;
+
+    FrameStreamEncoder(int width, int height, int tileSize, int mtu) {
+        if (width <= 0 || height <= 0
+                || width > FrameStreamFormat.MAX_DIMENSION || height > FrameStreamFormat.MAX_DIMENSION) {
+            throw new IllegalArgumentException("Unsupported frame size " + width + "x" + height);
+        }
+        if (tileSize < FrameStreamFormat.MIN_TILE_SIZE || tileSize > FrameStreamFormat.MAX_TILE_SIZE) {
+            throw new IllegalArgumentException("Tile size must be " + FrameStreamFormat.MIN_TILE_SIZE
+                + ".." + FrameStreamFormat.MAX_TILE_SIZE);
+        }
+        if (mtu <= FrameStreamFormat.PACKET_HEADER_BYTES + 16) {
+            throw new IllegalArgumentException("MTU too small: " + mtu);
+        }
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.mtu = mtu;
+        this.tilesAcross = FrameStreamFormat.tilesAcross(width, tileSize);
+        this.tileCount = FrameStreamFormat.tileCount(width, height, tileSize);
+        this.current = new int[width * height];
+        this.reference = new int[width * height];
+        this.rowHashes = new long[height];
+        this.tilePixels = new int[tileSize * tileSize];
+        this.payload = new FrameStreamFormat.ByteSink(64 * 1024);
+        this.frame = new byte[64 * 1024];
+        this.deflater = new Deflater(Deflater.BEST_SPEED);
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    void setTargetBitrate(int bitsPerSecond) {
+        targetBitrate = Math.max(8_000, bitsPerSecond);
+    }
+
+    void setKeyframeInterval(int intervalMs) {
+        keyframeIntervalMs = Math.max(0, intervalMs);
+    }
+
+    /**
+     * Number the next frame {@code next}. An encoder replacing another one (after a resize or
+     * restart) continues its numbering, so receivers do not take the new frames for stale ones.
+     */
+    void setNextFrameNumber(int next) {
+        frameNumber = next;
+    }
+
+    int nextFrameNumber() {
+        return frameNumber;
+    }
+
+    /** Send a full frame next, e.g. after a receiver joined or lost packets. */
+    void requestKeyframe() {
+        keyframeRequested = true;
+    }
+
+    /**
+     * Encode one frame captured at {@code timestampMs}. Returns the packets to send, or an
+     * empty list when nothing changed or the rate limit skips this frame.
+     */
+    List<byte[]> encode(byte[] rgba, long timestampMs) {
+        if (rgba.length < width * height * 4) {
+            throw new IllegalArgumentException("Expected " + width + "x" + height + " RGBA frame");
+        }
+        long start = System.nanoTime();
+
+        double bytesPerMs = targetBitrate / 8000.0;
+        double bucketLimit = bytesPerMs * 1000;
+        if (lastTimestamp < 0) {
+            budgetBytes = bucketLimit;
+        } else {
+            budgetBytes = Math.min(bucketLimit, budgetBytes + Math.max(0, timestampMs - lastTimestamp) * bytesPerMs);
+        }
+        lastTimestamp = timestampMs;
+
+        boolean key = keyframeRequested || framesEncoded == 0
+            || (keyframeIntervalMs > 0 && timestampMs - lastKeyframeTime >= keyframeIntervalMs);
+        if (!key && budgetBytes <= 0) {
+            framesSkipped++;
+            return Collections.emptyList();
+        }
+
+        toRgb(rgba, current);
+        hashRows(current, rowHashes);
+        int dy = 0;
+        if (!key && previousRowHashes != null) {
+            dy = detectScroll(previousRowHashes, rowHashes);
+            if (dy != 0) {
+                FrameStreamFormat.shiftRows(reference, width, height, dy);
+            }
+        }
+
+        payload.reset();
+        int tiles = 0;
+        int deferred = 0;
+        int firstDeferred = -1;
+        double rawBudget = budgetBytes / Math.max(0.01, compressionRatio);
+        for (int n = 0; n < tileCount; n++) {
+            int tile = key ? n : (tileCursor + n) % tileCount;
+            if (!key && !tileChanged(tile)) {
+                continue;
+            }
+            if (!key && tiles > 0 && payload.size > rawBudget) {
+                if (firstDeferred < 0) {
+                    firstDeferred = tile;
+                }
+                deferred++;
+                continue;
+            }
+            encodeTile(tile);
+            tiles++;
+        }
+
+        long[] swap = previousRowHashes;
+        previousRowHashes = rowHashes;
+        rowHashes = swap != null ? swap : new long[height];
+
+        if (!key && tiles == 0 && dy == 0) {
+            lastEncodeNanos = System.nanoTime() - start;
+            return Collections.emptyList();
+        }
+        tileCursor = firstDeferred >= 0 ? firstDeferred : 0;
+
+        int frameLength = writeFrame(key, dy, tiles);
+        List<byte[]> packets = FrameStreamFormat.packetize(frame, frameLength, frameNumber, mtu);
+        int wireBytes = frameLength + packets.size() * FrameStreamFormat.PACKET_HEADER_BYTES;
+
+        if (payload.size > 0) {
+            compressionRatio = 0.8 * compressionRatio + 0.2 * ((frameLength - FrameStreamFormat.FRAME_HEADER_BYTES) / (double) payload.size);
+        }
+        budgetBytes -= wireBytes;
+        adaptQuality(key, deferred, bucketLimit);
+
+        if (key) {
+            keyframeRequested = false;
+            lastKeyframeTime = timestampMs;
+            keyframes++;
+        }
+        frameNumber++;
+        framesEncoded++;
+        bytesSent += wireBytes;
+        lastFrameBytes = wireBytes;
+        lastTiles = tiles;
+        lastDeferredTiles = deferred;
+        lastScrollDy = dy;
+        lastEncodeNanos = System.nanoTime() - start;
+        return packets;
+    }
+
+    String statsJson() {
+        return String.format(Locale.US,
+            "{\"frames\":%d,\"keyframes\":%d,\"skipped\":%d,\"bytes_sent\":%d,\"last_frame_bytes\":%d," +
+            "\"last_tiles\":%d,\"last_deferred_tiles\":%d,\"last_scroll_dy\":%d,\"quant_shift\":%d," +
+            "\"last_encode_ms\":%.3f,\"target_bitrate\":%d}",
+            framesEncoded, keyframes, framesSkipped, bytesSent, lastFrameBytes,
+            lastTiles, lastDeferredTiles, lastScrollDy, quantShift,
+            lastEncodeNanos / 1_000_000.0, targetBitrate);
+    }
+
+    int quantShift() {
+        return quantShift;
+    }
+
+    long bytesSent() {
+        return bytesSent;
+    }
+
+    private void adaptQuality(boolean key, int deferred, double bucketLimit) {
+        if (key) {
+            return;
+        }
+        if (deferred > 0) {
+            headroomStreak = 0;
+            if (++deferredStreak >= 3 && quantShift < MAX_QUANT_SHIFT) {
+                quantShift++;
+                deferredStreak = 0;
+            }
+        } else {
+            deferredStreak = 0;
+            if (budgetBytes > bucketLimit / 2 && ++headroomStreak >= 15 && quantShift > 0) {
+                quantShift--;
+                headroomStreak = 0;
+            }
+        }
+    }
+
+    private int writeFrame(boolean key, int dy, int tiles) {
+        int bound = FrameStreamFormat.FRAME_HEADER_BYTES + payload.size + payload.size / 1000 + 64;
+        if (frame.length < bound) {
+            frame = new byte[bound];
+        }
+        frame[0] = (byte) FrameStreamFormat.VERSION;
+        frame[1] = (byte) (key ? FrameStreamFormat.TYPE_KEY : FrameStreamFormat.TYPE_DELTA);
+        FrameStreamFormat.putInt(frame, 2, frameNumber);
+        FrameStreamFormat.putShort(frame, 6, width);
+        FrameStreamFormat.putShort(frame, 8, height);
+        frame[10] = (byte) tileSize;
+        frame[11] = (byte) quantShift;
+        FrameStreamFormat.putShort(frame, 12, dy);
+        FrameStreamFormat.putShort(frame, 14, tiles);
+
+        deflater.reset();
+        deflater.setInput(payload.data, 0, payload.size);
+        deflater.finish();
+        int length = FrameStreamFormat.FRAME_HEADER_BYTES;
+        while (!deflater.finished()) {
+            if (length == frame.length) {
+                frame = Arrays.copyOf(frame, frame.length * 2);
+            }
+            length += deflater.deflate(frame, length, frame.length - length);
+        }
+        return length;
+    }
+
+    private boolean tileChanged(int tile) {
+        int x0 = (tile % tilesAcross) * tileSize;
+        int y0 = (tile / tilesAcross) * tileSize;
+        int x1 = Math.min(width, x0 + tileSize);
+        int y1 = Math.min(height, y0 + tileSize);
+        // Pixels already within the current quantisation error of the reference count as equal,
+        // so raising the shift does not resend everything
+        int tolerance = quantShift == 0 ? 0 : (1 << quantShift) - 1;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int i = row + x0; i < row + x1; i++) {
+                int a = current[i];
+                int b = reference[i];
+                if (a == b) {
+                    continue;
+                }
+                if (tolerance == 0
+                        || Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)) > tolerance
+                        || Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)) > tolerance
+                        || Math.abs((a & 0xFF) - (b & 0xFF)) > tolerance) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void encodeTile(int tile) {
+        int x0 = (tile % tilesAcross) * tileSize;
+        int y0 = (tile / tilesAcross) * tileSize;
+        int x1 = Math.min(width, x0 + tileSize);
+        int y1 = Math.min(height, y0 + tileSize);
+
+        // Quantise into the reference (what the decoder will have) and the tile scratch
+        int count = 0;
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int i = row + x0; i < row + x1; i++) {
+                int p = FrameStreamFormat.quantize(current[i], quantShift);
+                reference[i] = p;
+                tilePixels[count++] = p;
+            }
+        }
+
+        int colors = 0;
+        int runs = 1;
+        for (int i = 0; i < count; i++) {
+            int p = tilePixels[i];
+            if (i > 0 && p != tilePixels[i - 1]) {
+                runs++;
+            }
+            if (colors <= FrameStreamFormat.MAX_PALETTE && indexOf(p, colors) < 0) {
+                if (colors < FrameStreamFormat.MAX_PALETTE) {
+                    palette[colors] = p;
+                }
+                colors++;
+            }
+        }
+
+        payload.putVarint(tile);
+        if (colors == 1) {
+            payload.put(FrameStreamFormat.MODE_SOLID);
+            payload.putRgb(tilePixels[0]);
+            return;
+        }
+        int rawSize = count * 3;
+        int rleSize = runs * 5;
+        int paletteSize = Integer.MAX_VALUE;
+        int bits = 0;
+        if (colors <= FrameStreamFormat.MAX_PALETTE) {
+            bits = colors <= 2 ? 1 : colors <= 4 ? 2 : 4;
+            paletteSize = 1 + colors * 3 + (count * bits + 7) / 8;
+        }
+        if (paletteSize <= rleSize && paletteSize <= rawSize) {
+            writePalette(count, colors, bits);
+        } else if (rleSize < rawSize) {
+            writeRuns(count);
+        } else {
+            payload.put(FrameStreamFormat.MODE_RAW);
+            for (int i = 0; i < count; i++) {
+                payload.putRgb(tilePixels[i]);
+            }
+        }
+    }
+
+    private void writePalette(int count, int colors, int bits) {
+        payload.put(FrameStreamFormat.MODE_PALETTE);
+        payload.put(colors);
+        for (int c = 0; c < colors; c++) {
+            payload.putRgb(palette[c]);
+        }
+        int accumulator = 0;
+        int filled = 0;
+        for (int i = 0; i < count; i++) {
+            accumulator = (accumulator << bits) | indexOf(tilePixels[i], colors);
+            filled += bits;
+            if (filled == 8) {
+                payload.put(accumulator);
+                accumulator = 0;
+                filled = 0;
+            }
+        }
+        if (filled > 0) {
+            payload.put(accumulator << (8 - filled));
+        }
+    }
+
+    private void writeRuns(int count) {
+        payload.put(FrameStreamFormat.MODE_RLE);
+        int i = 0;
+        while (i < count) {
+            int p = tilePixels[i];
+            int end = i + 1;
+            while (end < count && tilePixels[end] == p) {
+                end++;
+            }
+            payload.putVarint(end - i);
+            payload.putRgb(p);
+            i = end;
+        }
+    }
+
+    private int indexOf(int color, int colors) {
+        int limit = Math.min(colors, FrameStreamFormat.MAX_PALETTE);
+        for (int c = 0; c < limit; c++) {
+            if (palette[c] == color) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    private static void toRgb(byte[] rgba, int[] out) {
+        for (int i = 0, o = 0; i < out.length; i++, o += 4) {
+            out[i] = (rgba[o] & 0xFF) << 16 | (rgba[o + 1] & 0xFF) << 8 | (rgba[o + 2] & 0xFF);
+        }
+    }
+
+    private void hashRows(int[] pixels, long[] out) {
+        for (int y = 0; y < height; y++) {
+            long h = 0xcbf29ce484222325L;
+            int end = (y + 1) * width;
+            for (int i = y * width; i < end; i++) {
+                h = (h ^ pixels[i]) * 0x100000001b3L;
+            }
+            out[y] = h;
+        }
+    }
+
+    /**
+     * Vertical scroll between the previous and current frame, as the row offset dy such that
+     * current row y shows what previous row y + dy showed. 0 when no shift explains the change
+     * better than none.
+     */
+    private int detectScroll(long[] previous, long[] now) {
+        int maxShift = Math.min(height / 2, Short.MAX_VALUE);
+        int step = Math.max(1, height / SCROLL_SAMPLE_ROWS);
+        int candidates = 0;
+        for (int y = 1; y < height && candidates < SCROLL_SAMPLE_ROWS; y += step) {
+            // Only rows that differ from their neighbour and from the same row before are useful
+            if (now[y] == now[y - 1] || now[y] == previous[y]) {
+                continue;
+            }
+            for (int d = 1; d <= maxShift; d++) {
+                if (y + d < height && previous[y + d] == now[y]) {
+                    scrollCandidates[candidates++] = d;
+                    break;
+                }
+                if (y - d >= 0 && previous[y - d] == now[y]) {
+                    scrollCandidates[candidates++] = -d;
+                    break;
+                }
+            }
+        }
+        if (candidates == 0) {
+            return 0;
+        }
+
+        int best = 0;
+        int bestVotes = 0;
+        for (int i = 0; i < candidates; i++) {
+            int votes = 0;
+            for (int j = 0; j < candidates; j++) {
+                if (scrollCandidates[j] == scrollCandidates[i]) {
+                    votes++;
+                }
+            }
+            if (votes > bestVotes) {
+                bestVotes = votes;
+                best = scrollCandidates[i];
+            }
+        }
+        return matchingRows(previous, now, best) > matchingRows(previous, now, 0) ? best : 0;
+    }
+
+    private int matchingRows(long[] previous, long[] now, int dy) {
+        int matches = 0;
+        int from = Math.max(0, -dy);
+        int to = Math.min(height, height - dy);
+        for (int y = from; y < to; y++) {
+            if (now[y] == previous[y + dy]) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,241 @@
+package com.godot.webview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wire format shared by {@link FrameStreamEncoder} and {@link FrameStreamDecoder}.
+ *
+ * A frame is a 16 byte header followed by a deflated tile payload:
+ * <pre>
+ *   u8  version        u8  type (KEY / DELTA)   u32 frame number
+ *   u16 width          u16 height               u8  tile size
+ *   u8  quant shift    s16 scroll dy            u16 tile count
+ * </pre>
+ * Delta frames first shift the previous image up by {@code scroll dy} rows (negative: down),
+ * then replace the listed tiles. Each tile is {@code varint index, u8 mode, data}, with RGB
+ * pixels (the stream is opaque):
+ * <ul>
+ *   <li>SOLID: one colour</li>
+ *   <li>PALETTE: count, colours, then 1/2/4 bit indices packed MSB first</li>
+ *   <li>RLE: (varint run length, colour) pairs in row-major order</li>
+ *   <li>RAW: every pixel</li>
+ * </ul>
+ * Frames are split into packets of at most the MTU, each with a 9 byte header
+ * ({@code u8 magic, u32 frame number, u16 index, u16 count}).
+ *
+ * Pure Java so the codec can be tested and benchmarked on a desktop JVM.
+ */
+final class FrameStreamFormat {
+
+    static final int VERSION = 1;
+    static final int TYPE_KEY = 0;
+    static final int TYPE_DELTA = 1;
+    static final int FRAME_HEADER_BYTES = 16;
+
+    static final int PACKET_MAGIC = 0xB7;
+    static final int PACKET_HEADER_BYTES = 9;
+    static final int MAX_PACKETS_PER_FRAME = 4096;
+
+    static final int MODE_SOLID = 0;
+    static final int MODE_PALETTE = 1;
+    static final int MODE_RLE = 2;
+    static final int MODE_RAW = 3;
+    static final int MAX_PALETTE = 16;
+
+    // Limits shared by encoder and decoder; the decoder rejects anything outside them
+    static final int MAX_DIMENSION = 4096;
+    static final int MIN_TILE_SIZE = 16;
+    static final int MAX_TILE_SIZE = 255;
+
+    private FrameStreamFormat() {
+    }
+
+    static int tilesAcross(int width, int tileSize) {
+        return (width + tileSize - 1) / tileSize;
+    }
+
+    static int tileCount(int width, int height, int tileSize) {
+        return tilesAcross(width, tileSize) * ((height + tileSize - 1) / tileSize);
+    }
+
+    /**
+     * Upper bound of a frame's inflated tile payload: every tile raw (3 bytes per pixel) plus
+     * its index varint and mode byte. The encoder never picks a mode larger than raw.
+     */
+    static long maxPayloadBytes(int width, int height, int tileSize) {
+        return tileCount(width, height, tileSize) * (3L * tileSize * tileSize + 8);
+    }
+
+    /** Reduce each channel to its top {@code 8 - shift} bits, reconstructed at the bucket middle. */
+    static int quantize(int rgb, int shift) {
+        if (shift == 0) {
+            return rgb;
+        }
+        int keep = (0xFF << shift) & 0xFF;
+        int mask = keep << 16 | keep << 8 | keep;
+        int half = (1 << shift) >> 1;
+        return (rgb & mask) | (half << 16 | half << 8 | half);
+    }
+
+    /** Move rows so that row y takes the content of row y + dy; uncovered rows keep their pixels. */
+    static void shiftRows(int[] pixels, int width, int height, int dy) {
+        if (dy > 0 && dy < height) {
+            System.arraycopy(pixels, dy * width, pixels, 0, (height - dy) * width);
+        } else if (dy < 0 && -dy < height) {
+            System.arraycopy(pixels, 0, pixels, -dy * width, (height + dy) * width);
+        }
+    }
+
+    /** Split an encoded frame into packets of at most {@code mtu} bytes. */
+    static List<byte[]> packetize(byte[] frame, int frameLength, int frameNumber, int mtu) {
+        int chunk = mtu - PACKET_HEADER_BYTES;
+        int count = Math.max(1, (frameLength + chunk - 1) / chunk);
+        if (count > MAX_PACKETS_PER_FRAME) {
+            throw new IllegalArgumentException("Frame needs " + count + " packets at MTU " + mtu);
+        }
+        List<byte[]> packets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int offset = i * chunk;
+            int length = Math.min(chunk, frameLength - offset);
+            byte[] packet = new byte[PACKET_HEADER_BYTES + length];
+            packet[0] = (byte) PACKET_MAGIC;
+            putInt(packet, 1, frameNumber);
+            putShort(packet, 5, i);
+            putShort(packet, 7, count);
+            System.arraycopy(frame, offset, packet, PACKET_HEADER_BYTES, length);
+            packets.add(packet);
+        }
+        return packets;
+    }
+
+    /** Concatenate packets as (u16 length, bytes) records, for handing a whole batch to Godot. */
+    static byte[] join(List<byte[]> packets) {
+        int total = 0;
+        for (byte[] packet : packets) {
+            total += 2 + packet.length;
+        }
+        byte[] out = new byte[total];
+        int offset = 0;
+        for (byte[] packet : packets) {
+            putShort(out, offset, packet.length);
+            System.arraycopy(packet, 0, out, offset + 2, packet.length);
+            offset += 2 + packet.length;
+        }
+        return out;
+    }
+
+    /** Inverse of {@link #join}; stops at the first truncated record. */
+    static List<byte[]> split(byte[] joined) {
+        List<byte[]> packets = new ArrayList<>();
+        int offset = 0;
+        while (offset + 2 <= joined.length) {
+            int length = getShort(joined, offset);
+            if (offset + 2 + length > joined.length) {
+                break;
+            }
+            packets.add(Arrays.copyOfRange(joined, offset + 2, offset + 2 + length));
+            offset += 2 + length;
+        }
+        return packets;
+    }
+
+    static void putShort(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 8);
+        out[offset + 1] = (byte) value;
+    }
+
+    static void putInt(byte[] out, int offset, int value) {
+        out[offset] = (byte) (value >>> 24);
+        out[offset + 1] = (byte) (value >>> 16);
+        out[offset + 2] = (byte) (value >>> 8);
+        out[offset + 3] = (byte) value;
+    }
+
+    static int getShort(byte[] in, int offset) {
+        return (in[offset] & 0xFF) << 8 | (in[offset + 1] & 0xFF);
+    }
+
+    static int getInt(byte[] in, int offset) {
+        return (in[offset] & 0xFF) << 24 | (in[offset + 1] & 0xFF) << 16
+            | (in[offset + 2] & 0xFF) << 8 | (in[offset + 3] & 0xFF);
+    }
+
+    /** Growable output buffer without the synchronisation of ByteArrayOutputStream. */
+    static final class ByteSink {
+        byte[] data;
+        int size;
+
+        ByteSink(int capacity) {
+            data = new byte[capacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + extra));
+            }
+        }
+
+        void put(int value) {
+            ensure(1);
+            data[size++] = (byte) value;
+        }
+
+        void putRgb(int rgb) {
+            ensure(3);
+            data[size++] = (byte) (rgb >>> 16);
+            data[size++] = (byte) (rgb >>> 8);
+            data[size++] = (byte) rgb;
+        }
+
+        void putVarint(int value) {
+            ensure(5);
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    /** Sequential reader over a decoded payload. */
+    static final class ByteSource {
+        private final byte[] data;
+        private final int end;
+        private int position;
+
+        ByteSource(byte[] data, int offset, int length) {
+            this.data = data;
+            this.position = offset;
+            this.end = offset + length;
+        }
+
+        int get() {
+            if (position >= end) {
+                throw new IllegalArgumentException("Truncated frame payload");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        int getRgb() {
+            return get() << 16 | get() << 8 | get();
+        }
+
+        int getVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+    }
+}
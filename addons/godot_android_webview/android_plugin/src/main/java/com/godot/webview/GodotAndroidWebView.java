@@ -8,12 +8,21 @@ import android.graphics.SurfaceTexture;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
+import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.Surface;
 import android.view.View;
+import android.view.ViewTreeObserver;
 import android.view.ViewGroup;
+import android.view.inputmethod.EditorInfo;
+import android.view.inputmethod.InputConnection;
+import android.webkit.WebBackForwardList;
+import android.webkit.CookieManager;
 import android.webkit.WebChromeClient;
+import android.webkit.WebHistoryItem;
 import android.webkit.WebResourceRequest;
+import android.webkit.WebResourceResponse;
 import android.webkit.WebSettings;
 import android.webkit.WebView;
 import android.webkit.WebViewClient;
@@ -26,8 +35,16 @@ import org.godotengine.godot.plugin.GodotPlugin;
 import org.godotengine.godot.plugin.SignalInfo;
 import org.godotengine.godot.plugin.UsedByGodot;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -49,7 +66,8 @@ public class GodotAndroidWebView extends GodotPlugin {
     private Canvas canvas;
     private Paint paint;
     private AtomicBoolean isInitialized = new AtomicBoolean(false);
-    private AtomicBoolean needsUpdate = new AtomicBoolean(false);
+    private AtomicBoolean firstFrameReady = new AtomicBoolean(false);
+    private long initializeStartTime = 0;
     private String currentUrl = "";
     private int loadProgress = 0;
     private boolean canGoBack = false;
@@ -59,15 +77,100 @@ public class GodotAndroidWebView extends GodotPlugin {
     private long touchDownTime = 0;
     private boolean isTouchActive = false;
     
-    // Update rate limiting - faster for smoother scrolling
+    // Capture only when the WebView repainted since the last delivered frame
+    private final DamageTracker damage = new DamageTracker();
     private long lastUpdateTime = 0;
-    private long lastForceUpdateTime = 0;
+    private long lastFallbackUpdateTime = 0;
+    private long fallbackUpdateIntervalMs = DEFAULT_FALLBACK_UPDATE_INTERVAL_MS; // Godot thread
+    private boolean capturingFrame = false; // main thread only
+    
+    // Resizes are debounced and applied by the capture thread between frames, never while a
+    // draw is in flight on the UI thread
+    private static final long RESIZE_DEBOUNCE_MS = 100;
+    private volatile int pendingWidth;
+    private volatile int pendingHeight;
+    private volatile long resizeRequestTime = 0;
+    private volatile boolean resizePending = false;
+    private final AtomicBoolean captureInFlight = new AtomicBoolean(false);
+    
+    // Optional region-of-interest capture around the pointer/gaze point (Godot thread buffers)
+    private final RoiCapture roiCapture = new RoiCapture();
+    private byte[] roiFrame;
+    private int[] roiPixels;
     private static final long MIN_UPDATE_INTERVAL_MS = 16; // ~60 FPS for smooth scrolling
-    private static final long FORCE_UPDATE_INTERVAL_MS = 100; // Force update every 100ms
+    // Safety net for content that changes without invalidating the hidden view (video, WebGL
+    // canvases); the old fixed refresh rate, so such content keeps playing smoothly
+    private static final long DEFAULT_FALLBACK_UPDATE_INTERVAL_MS = 100;
+    
+    // Optional disk LRU for whitelisted origins, consulted from shouldInterceptRequest
+    private volatile WebResourceCache resourceCache;
+    private static final String RESOURCE_CACHE_DIR = "godot_webview_resources";
+    
+    // Pre-warmed WebView instances (main thread only); see warmUp()
+    private final List<WarmWebView> warmPool = new ArrayList<>();
+    private volatile int warmPoolCapacity = 0;
+    private volatile int warmInstanceCount = 0; // warmPool.size(), published for the Godot thread
+    private volatile WarmWebView activeInstance;
+    
+    // Scroll/input/script commands are queued and flushed to the page at most once per vsync
+    private final JsBridgeQueue jsQueue = new JsBridgeQueue();
+    private final WebViewJsBridge jsBridge;
+    private final AtomicBoolean jsFlushScheduled = new AtomicBoolean(false);
+    private final Choreographer.FrameCallback jsFlushCallback = frameTimeNanos -> flushJsQueue();
+    
+    // Keystrokes are merged and replayed through the focused field's InputConnection once per
+    // UI-thread turn; the connection is main thread only and dropped whenever the page changes
+    private final TextInputQueue textInput = new TextInputQueue();
+    private final AtomicBoolean textFlushScheduled = new AtomicBoolean(false);
+    private final Runnable textFlush = this::flushTextInput;
+    private InputConnection inputConnection;
+    // Fallback steps (main thread) still to run, and whether one waits for the page runtime
+    private final ArrayDeque<FallbackSink.Step> fallbackSteps = new ArrayDeque<>();
+    private boolean fallbackWaiting = false;
+    private boolean textViaFallback = false; // last path taken, so switches are logged once
+    
+    // Latest scroll/layout state pushed by the page observer (JavaBridge thread writes)
+    private volatile int scrollY = 0;
+    private volatile int scrollHeight = 0;
+    private volatile int clientHeight = 0;
+    
+    // Co-browsing: captured frames encoded for remote players, and their decoders (Godot thread)
+    private FrameStreamEncoder streamEncoder;
+    private int streamNextFrame = 0; // carried across encoders so receivers never see numbers go back
+    private boolean streaming = false;
+    private int streamBitrate = FrameStreamEncoder.DEFAULT_BITRATE;
+    private int streamMtu = FrameStreamEncoder.DEFAULT_MTU;
+    private byte[] streamFrame;
+    private int streamFrameWidth;
+    private int streamFrameHeight;
+    private boolean streamFrameFresh = false;
+    private final Map<String, FrameStreamDecoder> streamDecoders = new HashMap<>();
+    private final Map<String, byte[]> streamImages = new HashMap<>();
+    
+    // Last frame of recently visited URLs, served on navigation until the live render catches up.
+    // Off until configureFrameSnapshots gives it a budget.
+    private static final long DEFAULT_SNAPSHOT_BYTES = 0;
+    // Live captures of the page being left are held back this long at most after a snapshot
+    private static final long SNAPSHOT_HOLD_MS = 2000;
+    private final FrameSnapshotCache snapshots = new FrameSnapshotCache(DEFAULT_SNAPSHOT_BYTES, 1);
+    private volatile String committedUrl; // page whose content is being drawn; null mid-navigation
+    private volatile int commitCount = 0;
+    private volatile byte[] pendingSnapshot;
+    private volatile String pendingSnapshotUrl;
+    private volatile int pendingSnapshotCommit;
+    private int snapshotHoldCommit; // Godot thread
+    private long snapshotHoldUntil = 0;
+    private byte[] lastFrame; // own copy; the delivered buffer may be reused for later frames
+    private String lastFrameUrl;
+    private int lastFrameWidth;
+    private int lastFrameHeight;
     
     public GodotAndroidWebView(Godot godot) {
         super(godot);
         mainHandler = new Handler(Looper.getMainLooper());
+        paint = new Paint();
+        paint.setFilterBitmap(true);
+        jsBridge = new WebViewJsBridge(jsQueue, this::onScrollState);
     }
     
     @NonNull
@@ -86,6 +189,9 @@ public class GodotAndroidWebView extends GodotPlugin {
         signals.add(new SignalInfo("title_changed", String.class));
         signals.add(new SignalInfo("texture_updated"));
         signals.add(new SignalInfo("scroll_info_received", String.class));
+        signals.add(new SignalInfo("first_frame_ready", Integer.class));
+        signals.add(new SignalInfo("scroll_state_changed", Integer.class, Integer.class, Integer.class));
+        signals.add(new SignalInfo("snapshot_shown", String.class));
         return signals;
     }
     
@@ -97,13 +203,8 @@ public class GodotAndroidWebView extends GodotPlugin {
         
         this.width = viewWidth;
         this.height = viewHeight;
-        
-        // Create bitmap and buffer for texture capture
-        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        pixelBuffer = ByteBuffer.allocateDirect(width * height * 4);
-        canvas = new Canvas(bitmap);
-        paint = new Paint();
-        paint.setFilterBitmap(true);
+        initializeStartTime = android.os.SystemClock.uptimeMillis();
+        firstFrameReady.set(false);
         
         mainHandler.post(() -> {
             Activity activity = getActivity();
@@ -111,127 +212,346 @@ public class GodotAndroidWebView extends GodotPlugin {
                 return;
             }
             
-            // Create WebView with hardware acceleration
-            webView = new WebView(activity);
-            webView.setLayoutParams(new FrameLayout.LayoutParams(width, height));
+            // Claim a pre-warmed instance if one is available, otherwise build one now
+            WarmWebView instance = claimWarmInstance();
+            if (instance == null) {
+                instance = createWarmInstance(activity, width, height);
+            }
+            adoptInstance(instance);
             
-            // Enable hardware acceleration for video playback
-            webView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+            // Load initial URL; the first frame is captured once the page commits visibly
+            if (initialUrl != null && !initialUrl.isEmpty()) {
+                webView.loadUrl(initialUrl);
+            } else {
+                onFirstFrameReady();
+            }
+            
+            isInitialized.set(true);
+        });
+        
+        return true;
+    }
+    
+    /**
+     * Create and configure {@code count} WebViews (and their capture bitmaps) ahead of time,
+     * e.g. during a loading screen, so a later initialize() only has to claim one and load
+     * its URL. Warm instances are also recycled by destroy() while the pool is below
+     * {@code count}.
+     */
+    @UsedByGodot
+    public void warmUp(int count, int viewWidth, int viewHeight) {
+        mainHandler.post(() -> {
+            Activity activity = getActivity();
+            if (activity == null) {
+                return;
+            }
+            warmPoolCapacity = Math.max(warmPoolCapacity, count);
+            while (warmPool.size() < count) {
+                warmPool.add(createWarmInstance(activity, viewWidth, viewHeight));
+                warmInstanceCount = warmPool.size();
+            }
+        });
+    }
+    
+    @UsedByGodot
+    public int getWarmInstanceCount() {
+        return warmInstanceCount;
+    }
+    
+    /** Destroy all idle warm instances (e.g. when leaving a scene that uses browser panels). */
+    @UsedByGodot
+    public void releaseWarmInstances() {
+        mainHandler.post(() -> {
+            warmPoolCapacity = 0;
+            while (!warmPool.isEmpty()) {
+                destroyInstance(warmPool.remove(warmPool.size() - 1));
+            }
+            warmInstanceCount = 0;
+        });
+    }
+    
+    /**
+     * A configured WebView attached (invisibly) to the activity plus the bitmap/buffer/canvas
+     * used to capture it. Idle instances are only touched on the main thread; the active
+     * instance's buffers are reshaped by the capture thread between frames.
+     */
+    private static final class WarmWebView {
+        final WebView view;
+        final FrameLayout container;
+        ViewTreeObserver.OnPreDrawListener preDrawListener;
+        int width;
+        int height;
+        Bitmap bitmap;
+        ByteBuffer pixelBuffer;
+        Canvas canvas;
+        
+        WarmWebView(WebView view, FrameLayout container, int width, int height) {
+            this.view = view;
+            this.container = container;
+            reshape(width, height);
+        }
+        
+        /**
+         * Resize the capture buffers, reusing their backing storage when the new frame fits.
+         * New allocations get 25% headroom so a drag-resize settles without reallocating.
+         * Returns false when the buffers had to be reallocated.
+         */
+        boolean reshape(int newWidth, int newHeight) {
+            int frameBytes = newWidth * newHeight * 4;
+            boolean reused = bitmap != null
+                && frameBytes <= bitmap.getAllocationByteCount()
+                && frameBytes <= pixelBuffer.capacity();
+            if (!reused) {
+                int allocHeight = newHeight + newHeight / 4;
+                bitmap = Bitmap.createBitmap(newWidth, allocHeight, Bitmap.Config.ARGB_8888);
+                pixelBuffer = ByteBuffer.allocateDirect(newWidth * allocHeight * 4);
+            }
+            bitmap.reconfigure(newWidth, newHeight, Bitmap.Config.ARGB_8888);
+            if (canvas == null) {
+                canvas = new Canvas(bitmap);
+            } else {
+                canvas.setBitmap(bitmap);
+            }
+            pixelBuffer.clear();
+            pixelBuffer.limit(frameBytes);
+            width = newWidth;
+            height = newHeight;
+            return reused;
+        }
+    }
+    
+    private WarmWebView claimWarmInstance() {
+        if (warmPool.isEmpty()) {
+            return null;
+        }
+        WarmWebView instance = warmPool.remove(warmPool.size() - 1);
+        warmInstanceCount = warmPool.size();
+        if (instance.width != width || instance.height != height) {
+            instance.reshape(width, height);
+            instance.view.setLayoutParams(new FrameLayout.LayoutParams(width, height));
+            instance.view.requestLayout();
+        }
+        return instance;
+    }
+    
+    private void adoptInstance(WarmWebView instance) {
+        activeInstance = instance;
+        webView = instance.view;
+        bitmap = instance.bitmap;
+        pixelBuffer = instance.pixelBuffer;
+        canvas = instance.canvas;
+        currentUrl = "";
+        loadProgress = 0;
+        canGoBack = false;
+        canGoForward = false;
+        inputConnection = null;
+        fallbackSteps.clear();
+        fallbackWaiting = false;
+        damage.reset();
+        webView.onResume();
+    }
+    
+    private WarmWebView createWarmInstance(Activity activity, int viewWidth, int viewHeight) {
+        // Create WebView with hardware acceleration
+        CaptureWebView newView = new CaptureWebView(activity);
+        newView.setLayoutParams(new FrameLayout.LayoutParams(viewWidth, viewHeight));
+        
+        // Enable hardware acceleration for video playback
+        newView.setLayerType(View.LAYER_TYPE_HARDWARE, null);
 
-            // Configure WebView settings for desktop-like experience
-            WebSettings settings = webView.getSettings();
-            settings.setJavaScriptEnabled(true);
-            settings.setDomStorageEnabled(true);
-            settings.setDatabaseEnabled(true);
-            settings.setMediaPlaybackRequiresUserGesture(false);
-            settings.setUseWideViewPort(true);
-            settings.setLoadWithOverviewMode(true);
-            settings.setSupportZoom(true);
-            settings.setBuiltInZoomControls(true);
-            settings.setDisplayZoomControls(false);
-            settings.setAllowFileAccess(true);
-            settings.setAllowContentAccess(true);
-            settings.setCacheMode(WebSettings.LOAD_DEFAULT);
+        // Configure WebView settings for desktop-like experience
+        WebSettings settings = newView.getSettings();
+        settings.setJavaScriptEnabled(true);
+        settings.setDomStorageEnabled(true);
+        settings.setDatabaseEnabled(true);
+        settings.setMediaPlaybackRequiresUserGesture(false);
+        settings.setUseWideViewPort(true);
+        settings.setLoadWithOverviewMode(true);
+        settings.setSupportZoom(true);
+        settings.setBuiltInZoomControls(true);
+        settings.setDisplayZoomControls(false);
+        settings.setAllowFileAccess(true);
+        settings.setAllowContentAccess(true);
+        settings.setCacheMode(WebSettings.LOAD_DEFAULT);
+        
+        // Force desktop mode with Chrome user agent
+        String desktopUserAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+        settings.setUserAgentString(desktopUserAgent);
+        
+        // Text settings
+        settings.setTextZoom(100);
+        settings.setMinimumFontSize(8);
+        settings.setMinimumLogicalFontSize(8);
+        
+        // Enable mixed content for HTTPS pages with HTTP resources
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            settings.setMixedContentMode(WebSettings.MIXED_CONTENT_COMPATIBILITY_MODE);
+        }
+        
+        // Set WebView client for page events. Callbacks from idle warm instances are ignored.
+        newView.setWebViewClient(new WebViewClient() {
+            @Override
+            public void onPageStarted(WebView view, String url, Bitmap favicon) {
+                super.onPageStarted(view, url, favicon);
+                if (view != webView) return;
+                currentUrl = url;
+                committedUrl = null;
+                showSnapshot(url);
+                jsBridge.newPage();
+                inputConnection = null;
+                scrollY = 0;
+                scrollHeight = 0;
+                clientHeight = 0;
+                emitSignal("page_started", url);
+            }
             
-            // Force desktop mode with Chrome user agent
-            String desktopUserAgent = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
-            settings.setUserAgentString(desktopUserAgent);
+            @Override
+            public void onPageCommitVisible(WebView view, String url) {
+                super.onPageCommitVisible(view, url);
+                if (view != webView) return;
+                committedUrl = url;
+                commitCount++;
+                // The new page's first frame is ready to be drawn
+                onFirstFrameReady();
+                // Start the scroll/layout observer; it reports the initial state right away
+                view.evaluateJavascript(jsBridge.installScript(), null);
+                // Commands queued during navigation were not pulled by the old page
+                if (!jsQueue.isEmpty()) {
+                    scheduleJsFlush();
+                }
+            }
             
-            // Text settings
-            settings.setTextZoom(100);
-            settings.setMinimumFontSize(8);
-            settings.setMinimumLogicalFontSize(8);
+            @Override
+            public void onPageFinished(WebView view, String url) {
+                super.onPageFinished(view, url);
+                if (view != webView) return;
+                currentUrl = url;
+                // Covers loads that never report a visible commit
+                committedUrl = url;
+                commitCount++;
+                canGoBack = view.canGoBack();
+                canGoForward = view.canGoForward();
+                
+                // Inject CSS to hide scrollbars (we handle scrolling via touch)
+                view.evaluateJavascript(
+                    "(function() {" +
+                    "  var style = document.createElement('style');" +
+                    "  style.textContent = '::-webkit-scrollbar { display: none !important; } " +
+                    "    html, body { scrollbar-width: none !important; -ms-overflow-style: none !important; }';" +
+                    "  document.head.appendChild(style);" +
+                    "})();",
+                    null
+                );
+                // No-op when onPageCommitVisible already installed it
+                view.evaluateJavascript(jsBridge.installScript(), null);
+                
+                emitSignal("page_loaded", url);
+                // Covers pages that finish without a visible commit (e.g. load errors)
+                onFirstFrameReady();
+                requestRender();
+            }
             
-            // Enable mixed content for HTTPS pages with HTTP resources
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                settings.setMixedContentMode(WebSettings.MIXED_CONTENT_COMPATIBILITY_MODE);
+            @Override
+            public boolean shouldOverrideUrlLoading(WebView view, WebResourceRequest request) {
+                return false;
             }
             
-            // Set WebView client for page events
-            webView.setWebViewClient(new WebViewClient() {
-                @Override
-                public void onPageStarted(WebView view, String url, Bitmap favicon) {
-                    super.onPageStarted(view, url, favicon);
-                    currentUrl = url;
-                    emitSignal("page_started", url);
+            @Override
+            public WebResourceResponse shouldInterceptRequest(WebView view, WebResourceRequest request) {
+                // Runs on a WebView IO thread. Only static sub-resources are cached; pages and
+                // XHR/fetch always go to the network so navigation and redirects behave normally.
+                // The cache's own requests carry the page's cookies and feed Set-Cookie back.
+                WebResourceCache cache = resourceCache;
+                if (cache == null || request.isForMainFrame() || !"GET".equalsIgnoreCase(request.getMethod())) {
+                    return super.shouldInterceptRequest(view, request);
                 }
-                
-                @Override
-                public void onPageFinished(WebView view, String url) {
-                    super.onPageFinished(view, url);
-                    currentUrl = url;
-                    canGoBack = view.canGoBack();
-                    canGoForward = view.canGoForward();
-                    
-                    // Inject CSS to hide scrollbars (we handle scrolling via touch)
-                    view.evaluateJavascript(
-                        "(function() {" +
-                        "  var style = document.createElement('style');" +
-                        "  style.textContent = '::-webkit-scrollbar { display: none !important; } " +
-                        "    html, body { scrollbar-width: none !important; -ms-overflow-style: none !important; }';" +
-                        "  document.head.appendChild(style);" +
-                        "})();",
-                        null
-                    );
-                    
-                    emitSignal("page_loaded", url);
-                    requestRender();
+                String url = request.getUrl().toString();
+                if (!cache.isAllowed(url) || !WebResourceCache.isStaticResource(url)) {
+                    return super.shouldInterceptRequest(view, request);
                 }
-                
-                @Override
-                public boolean shouldOverrideUrlLoading(WebView view, WebResourceRequest request) {
-                    return false;
+                CookieManager cookies = CookieManager.getInstance();
+                WebResourceCache.Response cached = cache.get(url, request.getRequestHeaders(), cookies.getCookie(url));
+                if (cached == null) {
+                    return super.shouldInterceptRequest(view, request);
                 }
-            });
-            
-            // Set Chrome client for progress, title, and fullscreen video
-            webView.setWebChromeClient(new WebChromeClient() {
-                @Override
-                public void onProgressChanged(WebView view, int newProgress) {
-                    loadProgress = newProgress;
-                    emitSignal("progress_changed", newProgress);
-                    if (newProgress % 10 == 0) {
-                        requestRender();
-                    }
+                for (String cookie : cached.setCookies) {
+                    cookies.setCookie(url, cookie);
                 }
-                
-                @Override
-                public void onReceivedTitle(WebView view, String title) {
-                    emitSignal("title_changed", title);
+                return new WebResourceResponse(
+                    cached.mimeType, cached.encoding, cached.status, cached.reason, cached.headers, cached.body);
+            }
+        });
+        
+        // Set Chrome client for progress, title, and fullscreen video
+        newView.setWebChromeClient(new WebChromeClient() {
+            @Override
+            public void onProgressChanged(WebView view, int newProgress) {
+                if (view != webView) return;
+                loadProgress = newProgress;
+                emitSignal("progress_changed", newProgress);
+                if (newProgress % 10 == 0) {
+                    requestRender();
                 }
-            });
-            
-            // Add WebView to activity (invisible but rendering)
-            FrameLayout container = new FrameLayout(activity);
-            container.setLayoutParams(new FrameLayout.LayoutParams(
-                ViewGroup.LayoutParams.MATCH_PARENT,
-                ViewGroup.LayoutParams.MATCH_PARENT
-            ));
-            container.addView(webView);
-            container.setVisibility(View.INVISIBLE);
-            
-            ViewGroup rootView = activity.findViewById(android.R.id.content);
-            if (rootView != null) {
-                rootView.addView(container);
             }
             
-            // Load initial URL
-            if (initialUrl != null && !initialUrl.isEmpty()) {
-                webView.loadUrl(initialUrl);
+            @Override
+            public void onReceivedTitle(WebView view, String title) {
+                if (view != webView) return;
+                emitSignal("title_changed", title);
             }
-            
-            isInitialized.set(true);
-            
-            // Force initial render
-            mainHandler.postDelayed(() -> needsUpdate.set(true), 500);
         });
         
-        return true;
+        // Page-side half of the batched command bridge; must be registered before the first load
+        newView.addJavascriptInterface(jsBridge, WebViewJsBridge.INTERFACE_NAME);
+        
+        // Add WebView to activity (invisible but rendering)
+        FrameLayout container = new FrameLayout(activity);
+        container.setLayoutParams(new FrameLayout.LayoutParams(
+            ViewGroup.LayoutParams.MATCH_PARENT,
+            ViewGroup.LayoutParams.MATCH_PARENT
+        ));
+        container.addView(newView);
+        container.setVisibility(View.INVISIBLE);
+        
+        ViewGroup rootView = activity.findViewById(android.R.id.content);
+        if (rootView != null) {
+            rootView.addView(container);
+        }
+        
+        // Damage tracking: Chromium's own invalidations, plus any traversal that finds the
+        // WebView or its container dirty. Idle warm instances never mark the active frame.
+        newView.setDamageListener(() -> {
+            // Our own software draw below must not count as new content
+            if (newView == webView && !capturingFrame) damage.markDirty();
+        });
+        ViewTreeObserver.OnPreDrawListener preDrawListener = () -> {
+            if (newView == webView && (newView.isDirty() || container.isDirty())) {
+                damage.markDirty();
+            }
+            return true;
+        };
+        newView.getViewTreeObserver().addOnPreDrawListener(preDrawListener);
+        
+        // Spin up the renderer now rather than on the first real navigation
+        newView.loadUrl("about:blank");
+        
+        WarmWebView instance = new WarmWebView(newView, container, viewWidth, viewHeight);
+        instance.preDrawListener = preDrawListener;
+        return instance;
+    }
+    
+    private void onFirstFrameReady() {
+        if (firstFrameReady.compareAndSet(false, true)) {
+            long elapsed = android.os.SystemClock.uptimeMillis() - initializeStartTime;
+            emitSignal("first_frame_ready", (int) elapsed);
+        }
+        requestRender();
     }
     
     @UsedByGodot
     public void loadUrl(String url) {
         if (!isInitialized.get() || webView == null) return;
+        showSnapshot(url);
         mainHandler.post(() -> webView.loadUrl(url));
     }
     
@@ -259,7 +579,10 @@ public class GodotAndroidWebView extends GodotPlugin {
     public void goBack() {
         if (!isInitialized.get() || webView == null) return;
         mainHandler.post(() -> {
-            if (webView.canGoBack()) webView.goBack();
+            if (webView.canGoBack()) {
+                showHistorySnapshot(-1);
+                webView.goBack();
+            }
         });
     }
     
@@ -267,10 +590,67 @@ public class GodotAndroidWebView extends GodotPlugin {
     public void goForward() {
         if (!isInitialized.get() || webView == null) return;
         mainHandler.post(() -> {
-            if (webView.canGoForward()) webView.goForward();
+            if (webView.canGoForward()) {
+                showHistorySnapshot(1);
+                webView.goForward();
+            }
         });
     }
     
+    /** Main thread: show the snapshot of the history entry {@code offset} steps away, if cached. */
+    private void showHistorySnapshot(int offset) {
+        WebBackForwardList history = webView.copyBackForwardList();
+        WebHistoryItem item = history != null ? history.getItemAtIndex(history.getCurrentIndex() + offset) : null;
+        if (item != null) {
+            showSnapshot(item.getUrl());
+        }
+    }
+    
+    /**
+     * Queue the cached frame of {@code url} for the next getPixelData call. Called as early as
+     * the target is known (loadUrl, back/forward) and again from onPageStarted for navigations
+     * the page started itself.
+     */
+    private void showSnapshot(String url) {
+        if (url == null || !snapshots.isEnabled()) return;
+        String key = FrameSnapshotCache.key(url);
+        String pendingUrl = pendingSnapshotUrl;
+        if (pendingSnapshot != null && pendingUrl != null && key.equals(FrameSnapshotCache.key(pendingUrl))) {
+            return;
+        }
+        byte[] frame = snapshots.get(url, width, height);
+        if (frame != null) {
+            pendingSnapshotUrl = url;
+            pendingSnapshotCommit = commitCount;
+            pendingSnapshot = frame;
+        }
+    }
+    
+    /**
+     * Size the per-URL frame snapshot cache; 0 disables it. With {@code downscale} 2 or 4 the
+     * snapshots are stored at half or quarter resolution, fitting 4x or 16x as many pages.
+     */
+    @UsedByGodot
+    public void configureFrameSnapshots(int maxMegabytes, int downscale) {
+        snapshots.configure(Math.max(0, maxMegabytes) * 1024L * 1024L, downscale);
+        if (!snapshots.isEnabled()) {
+            pendingSnapshot = null;
+            lastFrame = null;
+            lastFrameUrl = null;
+        }
+    }
+    
+    @UsedByGodot
+    public void clearFrameSnapshots() {
+        snapshots.clear();
+        pendingSnapshot = null;
+    }
+    
+    @UsedByGodot
+    public String getFrameSnapshotStats() {
+        return snapshots.statsJson();
+    }
+    
     @UsedByGodot
     public void reload() {
         if (!isInitialized.get() || webView == null) return;
@@ -283,20 +663,48 @@ public class GodotAndroidWebView extends GodotPlugin {
         mainHandler.post(() -> webView.stopLoading());
     }
     
+    /**
+     * Request a new capture size. Bursts (e.g. drag-resizing a panel) are debounced; the last
+     * size is applied by getPixelData() before it starts a frame, so frames keep the previous
+     * size until then. getWidth()/getHeight() report the size of the frames being delivered.
+     */
     @UsedByGodot
     public void resize(int newWidth, int newHeight) {
-        if (!isInitialized.get()) return;
+        if (!isInitialized.get() || newWidth <= 0 || newHeight <= 0) return;
         
-        this.width = newWidth;
-        this.height = newHeight;
+        pendingWidth = newWidth;
+        pendingHeight = newHeight;
+        resizeRequestTime = android.os.SystemClock.uptimeMillis();
+        resizePending = true;
+    }
+    
+    /** Capture thread only, with no draw in flight: the buffers are not shared at this point. */
+    private void applyPendingResize() {
+        if (!resizePending
+                || android.os.SystemClock.uptimeMillis() - resizeRequestTime < RESIZE_DEBOUNCE_MS) {
+            return;
+        }
+        resizePending = false;
+        int newWidth = pendingWidth;
+        int newHeight = pendingHeight;
+        WarmWebView instance = activeInstance;
+        if (instance == null || (newWidth == width && newHeight == height)) {
+            return;
+        }
         
-        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-        pixelBuffer = ByteBuffer.allocateDirect(width * height * 4);
-        canvas = new Canvas(bitmap);
+        boolean reused = instance.reshape(newWidth, newHeight);
+        width = newWidth;
+        height = newHeight;
+        bitmap = instance.bitmap;
+        pixelBuffer = instance.pixelBuffer;
+        canvas = instance.canvas;
+        damage.reset();
+        android.util.Log.d(TAG, "Resized capture to " + newWidth + "x" + newHeight
+            + (reused ? " (reused buffers)" : " (reallocated)"));
         
         mainHandler.post(() -> {
-            if (webView != null) {
-                webView.setLayoutParams(new FrameLayout.LayoutParams(width, height));
+            if (webView == instance.view) {
+                webView.setLayoutParams(new FrameLayout.LayoutParams(newWidth, newHeight));
                 webView.requestLayout();
             }
         });
@@ -362,6 +770,8 @@ public class GodotAndroidWebView extends GodotPlugin {
             webView.dispatchTouchEvent(event);
             event.recycle();
             isTouchActive = false;
+            // A tap may have focused another field; its connection is fetched on the next keystroke
+            inputConnection = null;
             requestRender();
         });
     }
@@ -415,6 +825,7 @@ public class GodotAndroidWebView extends GodotPlugin {
                 );
                 webView.dispatchTouchEvent(upEvent);
                 upEvent.recycle();
+                inputConnection = null;
                 requestRender();
             }, 50);
         });
@@ -438,71 +849,568 @@ public class GodotAndroidWebView extends GodotPlugin {
     @UsedByGodot
     public void scrollToPosition(int scrollY) {
         if (!isInitialized.get() || webView == null) return;
-        mainHandler.post(() -> {
-            webView.evaluateJavascript("window.scrollTo(0, " + scrollY + ");", null);
-            requestRender();
-        });
+        jsQueue.scrollTo(scrollY);
+        scheduleJsFlush();
     }
     
     @UsedByGodot
     public void scrollByAmount(int deltaY) {
         if (!isInitialized.get() || webView == null) return;
-        mainHandler.post(() -> {
-            webView.evaluateJavascript("window.scrollBy(0, " + deltaY + ");", null);
-            requestRender();
-        });
+        jsQueue.scrollBy(deltaY);
+        scheduleJsFlush();
     }
     
+    /**
+     * Emits scroll_info_received with the cached state. Kept for older scripts; the page
+     * pushes changes through scroll_state_changed, so there is no need to poll.
+     */
     @UsedByGodot
     public void getScrollInfo() {
-        if (!isInitialized.get() || webView == null) {
-            emitSignal("scroll_info_received", "{\"scrollY\":0,\"scrollHeight\":0,\"clientHeight\":0}");
-            return;
-        }
-        
-        mainHandler.post(() -> {
-            webView.evaluateJavascript(
-                "(function() { " +
-                "  return JSON.stringify({" +
-                "    scrollY: window.scrollY || document.documentElement.scrollTop || 0," +
-                "    scrollHeight: document.documentElement.scrollHeight || document.body.scrollHeight || 0," +
-                "    clientHeight: window.innerHeight || document.documentElement.clientHeight || 0" +
-                "  });" +
-                "})()",
-                value -> {
-                    String result = value;
-                    if (result != null && result.startsWith("\"") && result.endsWith("\"")) {
-                        result = result.substring(1, result.length() - 1);
-                        result = result.replace("\\\"", "\"");
-                    }
-                    emitSignal("scroll_info_received", result != null ? result : "{}");
-                }
-            );
-        });
+        emitSignal("scroll_info_received",
+            "{\"scrollY\":" + scrollY + ",\"scrollHeight\":" + scrollHeight + ",\"clientHeight\":" + clientHeight + "}");
+    }
+    
+    @UsedByGodot
+    public int getScrollY() {
+        return scrollY;
     }
     
+    @UsedByGodot
+    public int getScrollHeight() {
+        return scrollHeight;
+    }
+    
+    @UsedByGodot
+    public int getClientHeight() {
+        return clientHeight;
+    }
+    
+    private void onScrollState(int newScrollY, int newScrollHeight, int newClientHeight) {
+        scrollY = newScrollY;
+        scrollHeight = newScrollHeight;
+        clientHeight = newClientHeight;
+        emitSignal("scroll_state_changed", newScrollY, newScrollHeight, newClientHeight);
+        requestRender();
+    }
+    
+    /**
+     * Type text into the focused field. Text queued in the same UI-thread turn reaches the
+     * page as one edit; see {@link TextInputQueue}.
+     */
     @UsedByGodot
     public void inputText(String text) {
+        if (!isInitialized.get() || webView == null || text == null) return;
+        textInput.commitText(text, System.nanoTime());
+        scheduleTextFlush();
+    }
+    
+    /** Backspace is {@code (1, 0)}, forward delete {@code (0, 1)}; counted in code points. */
+    @UsedByGodot
+    public void deleteSurroundingText(int before, int after) {
         if (!isInitialized.get() || webView == null) return;
-        mainHandler.post(() -> {
-            String escapedText = text.replace("\\", "\\\\")
-                                    .replace("'", "\\'")
-                                    .replace("\n", "\\n");
-            webView.evaluateJavascript(
-                "if(document.activeElement){document.activeElement.value+='" + escapedText + "';}",
-                null
-            );
-        });
+        textInput.deleteSurroundingText(before, after, System.nanoTime());
+        scheduleTextFlush();
     }
     
+    /** Show {@code text} as the pending composition (underlined, replaced by the next call). */
     @UsedByGodot
-    public void executeJavaScript(String script) {
+    public void setComposingText(String text) {
+        if (!isInitialized.get() || webView == null || text == null) return;
+        textInput.setComposingText(text, System.nanoTime());
+        scheduleTextFlush();
+    }
+    
+    /** Keep the composition as typed text. */
+    @UsedByGodot
+    public void finishComposingText() {
         if (!isInitialized.get() || webView == null) return;
-        mainHandler.post(() -> webView.evaluateJavascript(script, null));
+        textInput.finishComposingText(System.nanoTime());
+        scheduleTextFlush();
+    }
+    
+    /** Select {@code [start, end)} of the focused field; equal values move the cursor. */
+    @UsedByGodot
+    public void setTextSelection(int start, int end) {
+        if (!isInitialized.get() || webView == null) return;
+        textInput.setSelection(start, end, System.nanoTime());
+        scheduleTextFlush();
+    }
+    
+    /** Press and release an Android key code (enter, tab, arrows, ...) with the given meta state. */
+    @UsedByGodot
+    public void sendKey(int keyCode, int metaState) {
+        if (!isInitialized.get() || webView == null) return;
+        textInput.sendKey(keyCode, metaState, System.nanoTime());
+        scheduleTextFlush();
+    }
+    
+    /** Keystroke counts and the latency from queueing to the InputConnection, as JSON. */
+    @UsedByGodot
+    public String getTextInputStats() {
+        return textInput.statsJson();
+    }
+    
+    private void scheduleTextFlush() {
+        if (textFlushScheduled.compareAndSet(false, true)) {
+            mainHandler.post(textFlush);
+        }
+    }
+    
+    private void flushTextInput() {
+        // Cleared first so keystrokes queued while applying schedule the next turn
+        textFlushScheduled.set(false);
+        if (webView == null || textInput.isEmpty()) return;
+        // Edits stay queued behind a fallback batch still waiting on the page; it reschedules
+        if (fallbackWaiting || !fallbackSteps.isEmpty()) return;
+        
+        InputConnection connection = textInputConnection();
+        if (connection == null) {
+            // No editable element has focus (or the page never offered a connection)
+            if (!textViaFallback) {
+                textViaFallback = true;
+                android.util.Log.w(TAG, "No InputConnection for the WebView; "
+                    + "text input uses key events and the page runtime");
+            }
+            FallbackSink sink = new FallbackSink();
+            textInput.apply(sink, System.nanoTime());
+            runFallback(sink.steps);
+            return;
+        }
+        if (textViaFallback) {
+            textViaFallback = false;
+            android.util.Log.d(TAG, "Text input goes through the focused field's InputConnection");
+        }
+        Runnable replay = () -> {
+            ConnectionSink sink = new ConnectionSink(connection);
+            connection.beginBatchEdit();
+            textInput.apply(sink, System.nanoTime());
+            connection.endBatchEdit();
+            if (sink.rejected) {
+                // The connection went stale (focus moved, field removed); ask for a new one and
+                // replay what it refused, in order, through the fallback
+                mainHandler.post(() -> {
+                    if (inputConnection == connection) inputConnection = null;
+                    if (sink.fallback != null) runFallback(sink.fallback.steps);
+                });
+            }
+        };
+        // Only ever used from its own thread: Chromium serves the connection on a dedicated IME
+        // thread (its handler); otherwise it belongs to the view's thread
+        Handler connectionHandler = connection.getHandler();
+        if (connectionHandler == null) connectionHandler = webView.getHandler();
+        if (connectionHandler == null) connectionHandler = mainHandler;
+        connectionHandler.post(replay);
+        requestRender();
+    }
+    
+    /**
+     * Main thread. The focused field's connection, or null when nothing editable has focus.
+     *
+     * The WebView is off-screen and not attached to an IME session, and Chromium's threaded
+     * connection factory tends to return null for a view without focus, so the view is given
+     * focus first. That only focuses our hidden view; which page element is focused stays up
+     * to the page. When Chromium still offers no connection the edits take the fallback path,
+     * which is logged.
+     */
+    private InputConnection textInputConnection() {
+        if (!webView.hasFocus()) {
+            webView.setFocusableInTouchMode(true);
+            webView.requestFocus();
+        }
+        if (!webView.hasFocus() || !webView.onCheckIsTextEditor()) {
+            inputConnection = null;
+        } else if (inputConnection == null) {
+            inputConnection = webView.onCreateInputConnection(new EditorInfo());
+        }
+        return inputConnection;
+    }
+    
+    /** Replays edits into an InputConnection; once it refuses one, the rest go to the fallback. */
+    private static final class ConnectionSink implements TextInputQueue.Sink {
+        final InputConnection connection;
+        boolean rejected = false;
+        FallbackSink fallback;
+        
+        ConnectionSink(InputConnection connection) {
+            this.connection = connection;
+        }
+        
+        @Override
+        public void commitText(String text) {
+            if (fallback != null) {
+                fallback.commitText(text);
+            } else if (!connection.commitText(text, 1)) {
+                rejected = true;
+                fallback = new FallbackSink();
+                fallback.commitText(text);
+            }
+        }
+        
+        @Override
+        public void setComposingText(String text) {
+            if (fallback == null) rejected |= !connection.setComposingText(text, 1);
+        }
+        
+        @Override
+        public void finishComposingText() {
+            if (fallback == null) rejected |= !connection.finishComposingText();
+        }
+        
+        @Override
+        public void deleteSurroundingText(int before, int after) {
+            if (fallback != null) {
+                fallback.deleteSurroundingText(before, after);
+            } else {
+                rejected |= !connection.deleteSurroundingTextInCodePoints(before, after);
+            }
+        }
+        
+        @Override
+        public void setSelection(int start, int end) {
+            if (fallback == null) rejected |= !connection.setSelection(start, end);
+        }
+        
+        @Override
+        public void sendKey(int keyCode, int metaState) {
+            if (fallback != null) {
+                fallback.sendKey(keyCode, metaState);
+                return;
+            }
+            long now = android.os.SystemClock.uptimeMillis();
+            connection.sendKeyEvent(new KeyEvent(now, now, KeyEvent.ACTION_DOWN, keyCode, 0, metaState));
+            connection.sendKeyEvent(new KeyEvent(now, now, KeyEvent.ACTION_UP, keyCode, 0, metaState));
+        }
+    }
+    
+    /**
+     * Fallback without a connection: text is inserted by the page runtime and keys (including
+     * deletes) are dispatched to the view. Compositions and selections cannot be expressed this
+     * way. Any thread; the steps are run in order by {@link #runFallback}.
+     */
+    private static final class FallbackSink implements TextInputQueue.Sink {
+        /** Text to insert, or a key press when {@code text} is null. */
+        static final class Step {
+            final String text;
+            final int keyCode;
+            final int metaState;
+            
+            Step(String text, int keyCode, int metaState) {
+                this.text = text;
+                this.keyCode = keyCode;
+                this.metaState = metaState;
+            }
+        }
+        
+        final List<Step> steps = new ArrayList<>();
+        
+        @Override
+        public void commitText(String text) {
+            steps.add(new Step(text, 0, 0));
+        }
+        
+        @Override
+        public void setComposingText(String text) {
+        }
+        
+        @Override
+        public void finishComposingText() {
+        }
+        
+        @Override
+        public void deleteSurroundingText(int before, int after) {
+            for (int i = 0; i < before; i++) sendKey(KeyEvent.KEYCODE_DEL, 0);
+            for (int i = 0; i < after; i++) sendKey(KeyEvent.KEYCODE_FORWARD_DEL, 0);
+        }
+        
+        @Override
+        public void setSelection(int start, int end) {
+        }
+        
+        @Override
+        public void sendKey(int keyCode, int metaState) {
+            steps.add(new Step(null, keyCode, metaState));
+        }
+    }
+    
+    /**
+     * Main thread. Text goes through the page runtime, which applies it asynchronously, so the
+     * steps after it wait for the script's callback; a key dispatched then reaches the page after
+     * the text, e.g. enter submits what was typed before it.
+     */
+    private void runFallback(List<FallbackSink.Step> steps) {
+        fallbackSteps.addAll(steps);
+        if (!fallbackWaiting) {
+            continueFallback();
+        }
+    }
+    
+    private void continueFallback() {
+        WebView view = webView;
+        while (view != null && !fallbackSteps.isEmpty()) {
+            FallbackSink.Step step = fallbackSteps.poll();
+            if (step.text != null) {
+                jsQueue.inputText(step.text);
+                fallbackWaiting = true;
+                view.evaluateJavascript(jsBridge.wakeScript(), value -> {
+                    if (view != webView) return;
+                    fallbackWaiting = false;
+                    continueFallback();
+                });
+                return;
+            }
+            long now = android.os.SystemClock.uptimeMillis();
+            view.dispatchKeyEvent(new KeyEvent(now, now, KeyEvent.ACTION_DOWN, step.keyCode, 0, step.metaState));
+            view.dispatchKeyEvent(new KeyEvent(now, now, KeyEvent.ACTION_UP, step.keyCode, 0, step.metaState));
+        }
+        requestRender();
+        if (!textInput.isEmpty()) {
+            scheduleTextFlush();
+        }
+    }
+    
+    /** Scripts queued in the same frame run together in a single evaluateJavascript call. */
+    @UsedByGodot
+    public void executeJavaScript(String script) {
+        if (!isInitialized.get() || webView == null || script == null) return;
+        jsQueue.execute(script);
+        scheduleJsFlush();
+    }
+    
+    private void scheduleJsFlush() {
+        if (jsFlushScheduled.compareAndSet(false, true)) {
+            mainHandler.post(() -> Choreographer.getInstance().postFrameCallback(jsFlushCallback));
+        }
+    }
+    
+    private void flushJsQueue() {
+        // Cleared first so anything queued while flushing schedules the next frame
+        jsFlushScheduled.set(false);
+        if (webView == null) return;
+        
+        String scripts = jsQueue.drainScripts();
+        if (scripts != null) {
+            webView.evaluateJavascript(scripts, null);
+        }
+        // The page runtime pulls the structured batch itself and posts results back once
+        if (jsQueue.hasCommands()) {
+            webView.evaluateJavascript(jsBridge.wakeScript(), null);
+        }
+        requestRender();
+    }
+    
+    /**
+     * Enable the disk LRU resource cache for the given comma-separated origins
+     * (e.g. "https://dash.example.com,https://cdn.example.com"). Can be called before initialize().
+     */
+    @UsedByGodot
+    public boolean enableResourceCache(String allowedOrigins, int maxMegabytes) {
+        Activity activity = getActivity();
+        if (activity == null || allowedOrigins == null || allowedOrigins.isEmpty() || maxMegabytes <= 0) {
+            return false;
+        }
+        try {
+            File directory = new File(activity.getCacheDir(), RESOURCE_CACHE_DIR);
+            resourceCache = new WebResourceCache(directory, maxMegabytes * 1024L * 1024L, allowedOrigins.split(","));
+            return true;
+        } catch (RuntimeException e) {
+            android.util.Log.e(TAG, "Failed to enable resource cache: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    @UsedByGodot
+    public void disableResourceCache() {
+        resourceCache = null;
+    }
+    
+    /**
+     * Pre-seed the resource cache from packaged APK assets. {@code assetDir}/manifest.tsv lists
+     * one resource per line: url, path relative to assetDir, content type and optional ETag,
+     * separated by tabs. Runs on a background thread.
+     */
+    @UsedByGodot
+    public void seedResourceCache(String assetDir) {
+        WebResourceCache cache = resourceCache;
+        Activity activity = getActivity();
+        if (cache == null || activity == null) return;
+        
+        String prefix = (assetDir == null || assetDir.isEmpty()) ? "" : assetDir + "/";
+        new Thread(() -> {
+            try (InputStream manifest = activity.getAssets().open(prefix + "manifest.tsv")) {
+                int seeded = cache.seedFromManifest(manifest, path -> activity.getAssets().open(prefix + path));
+                android.util.Log.d(TAG, "Seeded " + seeded + " cached resources from " + prefix);
+            } catch (IOException e) {
+                android.util.Log.w(TAG, "Resource cache seeding failed: " + e.getMessage());
+            }
+        }, "WebViewCacheSeed").start();
+    }
+    
+    /** Hit ratio, bytes saved, entry count etc. as a JSON string ("{}" when the cache is off). */
+    @UsedByGodot
+    public String getResourceCacheStats() {
+        WebResourceCache cache = resourceCache;
+        return cache != null ? cache.statsJson() : "{}";
+    }
+    
+    @UsedByGodot
+    public void clearResourceCache() {
+        WebResourceCache cache = resourceCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
     
     private void requestRender() {
-        needsUpdate.set(true);
+        damage.markDirty();
+    }
+    
+    /**
+     * Region-of-interest capture for large panels: each captured frame redraws only a
+     * rectangle of {@code regionFraction} of the panel around the focus point, and the full
+     * panel is refreshed every {@code peripheryIntervalMs}.
+     */
+    @UsedByGodot
+    public void setRoiCapture(boolean enabled, double regionFraction, int peripheryIntervalMs) {
+        roiCapture.configure(enabled, (float) regionFraction, peripheryIntervalMs);
+        requestRender();
+    }
+    
+    /** Pointer or gaze position in texture UV (0..1, origin top-left). */
+    @UsedByGodot
+    public void setFocusPoint(double u, double v) {
+        roiCapture.setFocus((float) u, (float) v);
+    }
+    
+    /** Last and averaged draw/copy times for region and full frames as a JSON string. */
+    @UsedByGodot
+    public String getRoiCaptureStats() {
+        return roiCapture.statsJson();
+    }
+    
+    /** Damage events and captured/skipped frame counts as a JSON string. */
+    @UsedByGodot
+    public String getCaptureStats() {
+        return damage.statsJson();
+    }
+    
+    /**
+     * Capture at least every {@code intervalMs} even without damage (default 100). Panels that
+     * only show static pages can raise it, or pass 0 to capture on damage alone.
+     */
+    @UsedByGodot
+    public void setCaptureFallbackInterval(int intervalMs) {
+        fallbackUpdateIntervalMs = intervalMs <= 0 ? 0 : Math.max(MIN_UPDATE_INTERVAL_MS, intervalMs);
+    }
+    
+    /**
+     * Start encoding captured frames for remote players (see {@link FrameStreamEncoder}).
+     * Frames are taken from getPixelData, so keep polling it while streaming.
+     */
+    @UsedByGodot
+    public void startFrameStream(int targetKbps, int mtu) {
+        streamBitrate = Math.max(8, targetKbps) * 1000;
+        streamMtu = mtu > 0 ? mtu : FrameStreamEncoder.DEFAULT_MTU;
+        streamEncoder = null;
+        streamFrame = null;
+        streamFrameFresh = false;
+        streaming = true;
+        // The first encoded frame is a keyframe of the whole panel
+        requestRender();
+    }
+    
+    @UsedByGodot
+    public void stopFrameStream() {
+        streaming = false;
+        streamEncoder = null;
+        streamFrame = null;
+        streamFrameFresh = false;
+    }
+    
+    /**
+     * Encode the frame last returned by getPixelData. Returns the packets joined as
+     * (u16 length, bytes) records, ready to send over a data channel, or an empty array when
+     * there is no new frame, nothing changed or the bitrate budget is used up.
+     */
+    @UsedByGodot
+    public byte[] encodeStreamFrame() {
+        if (!streaming || !streamFrameFresh || streamFrame == null) {
+            return new byte[0];
+        }
+        streamFrameFresh = false;
+        if (streamEncoder == null || streamEncoder.width() != streamFrameWidth
+                || streamEncoder.height() != streamFrameHeight) {
+            streamEncoder = new FrameStreamEncoder(streamFrameWidth, streamFrameHeight,
+                FrameStreamEncoder.DEFAULT_TILE_SIZE, streamMtu);
+            streamEncoder.setTargetBitrate(streamBitrate);
+            streamEncoder.setNextFrameNumber(streamNextFrame);
+        }
+        List<byte[]> packets = streamEncoder.encode(streamFrame, System.currentTimeMillis());
+        streamNextFrame = streamEncoder.nextFrameNumber();
+        return packets.isEmpty() ? new byte[0] : FrameStreamFormat.join(packets);
+    }
+    
+    /** Make the next encoded frame a keyframe, e.g. when a player joins or reports loss. */
+    @UsedByGodot
+    public void requestStreamKeyframe() {
+        if (streamEncoder != null) {
+            streamEncoder.requestKeyframe();
+        }
+    }
+    
+    @UsedByGodot
+    public String getFrameStreamStats() {
+        FrameStreamEncoder encoder = streamEncoder;
+        return encoder != null ? encoder.statsJson() : "{}";
+    }
+    
+    /**
+     * Feed packets received from a remote sharer, joined as returned by encodeStreamFrame.
+     * Returns the decoded RGBA frame when a new frame completed, otherwise an empty array.
+     */
+    @UsedByGodot
+    public byte[] decodeStreamPackets(String streamId, byte[] packets) {
+        FrameStreamDecoder decoder = streamDecoders.get(streamId);
+        if (decoder == null) {
+            decoder = new FrameStreamDecoder();
+            streamDecoders.put(streamId, decoder);
+        }
+        if (!decoder.receiveAll(packets)) {
+            return new byte[0];
+        }
+        byte[] image = decoder.toRgba(streamImages.get(streamId));
+        streamImages.put(streamId, image);
+        return image;
+    }
+    
+    @UsedByGodot
+    public int getStreamFrameWidth(String streamId) {
+        FrameStreamDecoder decoder = streamDecoders.get(streamId);
+        return decoder != null ? decoder.width() : 0;
+    }
+    
+    @UsedByGodot
+    public int getStreamFrameHeight(String streamId) {
+        FrameStreamDecoder decoder = streamDecoders.get(streamId);
+        return decoder != null ? decoder.height() : 0;
+    }
+    
+    /** True until a keyframe arrived, and again after packet loss; ask the sharer for one. */
+    @UsedByGodot
+    public boolean streamNeedsKeyframe(String streamId) {
+        FrameStreamDecoder decoder = streamDecoders.get(streamId);
+        return decoder == null || decoder.needsKeyframe();
+    }
+    
+    @UsedByGodot
+    public String getStreamDecoderStats(String streamId) {
+        FrameStreamDecoder decoder = streamDecoders.get(streamId);
+        return decoder != null ? decoder.statsJson() : "{}";
+    }
+    
+    @UsedByGodot
+    public void closeStream(String streamId) {
+        streamDecoders.remove(streamId);
+        streamImages.remove(streamId);
     }
 
     
@@ -512,49 +1420,118 @@ public class GodotAndroidWebView extends GodotPlugin {
             return new byte[0];
         }
         
+        // The page of the last frame was left: keep that frame for when the user comes back
+        if (lastFrameUrl != null && !lastFrameUrl.equals(committedUrl)) {
+            snapshots.put(lastFrameUrl, lastFrame, lastFrameWidth, lastFrameHeight);
+            lastFrameUrl = null;
+        }
+        
+        // A cached frame of the page being navigated to goes out before its first live frame,
+        // unless that page has already committed by now
+        byte[] snapshot = pendingSnapshot;
+        if (snapshot != null) {
+            pendingSnapshot = null;
+            int commit = pendingSnapshotCommit;
+            if (commit == commitCount && snapshot.length == width * height * 4) {
+                if (roiCapture.isEnabled()) {
+                    // Region frames are composited over it until the next full refresh
+                    roiFrame = snapshot;
+                }
+                // Until the next commit, live frames would only show the page being left
+                snapshotHoldCommit = commit;
+                snapshotHoldUntil = System.currentTimeMillis() + SNAPSHOT_HOLD_MS;
+                requestRender();
+                emitSignal("snapshot_shown", pendingSnapshotUrl);
+                emitSignal("texture_updated");
+                return snapshot;
+            }
+        }
+        
+        if (!firstFrameReady.get()) {
+            return new byte[0];
+        }
+        if (snapshotHoldUntil != 0) {
+            if (commitCount == snapshotHoldCommit && System.currentTimeMillis() < snapshotHoldUntil) {
+                return new byte[0];
+            }
+            snapshotHoldUntil = 0;
+        }
+        
+        // A draw that timed out last call still owns the bitmap; don't touch or resize it yet
+        if (captureInFlight.get()) {
+            return new byte[0];
+        }
+        applyPendingResize();
+        
         // Rate limit updates for performance
         long now = System.currentTimeMillis();
-        boolean forceUpdate = (now - lastForceUpdateTime) >= FORCE_UPDATE_INTERVAL_MS;
-        
-        if (!forceUpdate && (now - lastUpdateTime < MIN_UPDATE_INTERVAL_MS) && !needsUpdate.get()) {
+        if (now - lastUpdateTime < MIN_UPDATE_INTERVAL_MS) {
             return new byte[0];
         }
         
-        if (forceUpdate) {
-            lastForceUpdateTime = now;
+        // Nothing repainted since the last delivered frame
+        boolean fallbackUpdate = fallbackUpdateIntervalMs > 0
+            && (now - lastFallbackUpdateTime) >= fallbackUpdateIntervalMs;
+        if (!damage.hasNewDamage() && !fallbackUpdate) {
+            damage.skipped();
+            return new byte[0];
         }
         
+        lastFallbackUpdateTime = now;
         lastUpdateTime = now;
-        needsUpdate.set(false);
+        // Damage arriving while this frame is drawn stays pending for the next call
+        final long captureGeneration = damage.beginCapture();
+        final String frameUrl = committedUrl;
+        
+        // In region-of-interest mode only the focus rectangle is redrawn between full refreshes
+        final boolean fullFrame = roiCapture.takeFullFrame(now)
+            || roiFrame == null || roiFrame.length != width * height * 4;
+        final int[] region = fullFrame ? null : roiCapture.region(width, height);
+        final long[] drawNanos = new long[1];
         
         // Render WebView to bitmap on main thread
         final Object lock = new Object();
         final AtomicBoolean done = new AtomicBoolean(false);
         
+        captureInFlight.set(true);
         mainHandler.post(() -> {
             synchronized (lock) {
+                capturingFrame = true;
+                long drawStart = System.nanoTime();
                 try {
-                    // Clear canvas with white background
-                    canvas.drawColor(android.graphics.Color.WHITE);
-                    
-                    // For hardware-accelerated content, we need to use a different approach
-                    // First try software rendering for the WebView
-                    webView.setDrawingCacheEnabled(true);
-                    webView.buildDrawingCache(true);
-                    Bitmap cache = webView.getDrawingCache();
-                    
-                    if (cache != null) {
-                        // Scale the cached bitmap to our target size
-                        canvas.drawBitmap(cache, 0, 0, paint);
-                    } else {
-                        // Fallback to direct draw
+                    if (region != null) {
+                        // The software draw only rasterises the clipped area
+                        canvas.save();
+                        canvas.clipRect(region[0], region[1], region[0] + region[2], region[1] + region[3]);
+                        canvas.drawColor(android.graphics.Color.WHITE);
                         webView.draw(canvas);
+                        canvas.restore();
+                    } else {
+                        // Clear canvas with white background
+                        canvas.drawColor(android.graphics.Color.WHITE);
+                        
+                        // For hardware-accelerated content, we need to use a different approach
+                        // First try software rendering for the WebView
+                        webView.setDrawingCacheEnabled(true);
+                        webView.buildDrawingCache(true);
+                        Bitmap cache = webView.getDrawingCache();
+                        
+                        if (cache != null) {
+                            // Scale the cached bitmap to our target size
+                            canvas.drawBitmap(cache, 0, 0, paint);
+                        } else {
+                            // Fallback to direct draw
+                            webView.draw(canvas);
+                        }
+                        
+                        webView.setDrawingCacheEnabled(false);
                     }
-                    
-                    webView.setDrawingCacheEnabled(false);
                 } catch (Exception e) {
                     android.util.Log.e(TAG, "Error rendering WebView: " + e.getMessage());
                 }
+                drawNanos[0] = System.nanoTime() - drawStart;
+                capturingFrame = false;
+                captureInFlight.set(false);
                 done.set(true);
                 lock.notify();
             }
@@ -569,15 +1546,58 @@ public class GodotAndroidWebView extends GodotPlugin {
             } catch (InterruptedException e) {
                 return new byte[0];
             }
+            if (!done.get()) {
+                // Still drawing on the UI thread; the bitmap is handed back on a later call
+                return new byte[0];
+            }
         }
         
-        // Copy bitmap pixels to buffer
-        pixelBuffer.rewind();
-        bitmap.copyPixelsToBuffer(pixelBuffer);
+        long copyStart = System.nanoTime();
+        byte[] pixels;
+        if (region != null) {
+            // Composite the fresh region over the last full frame
+            int regionPixels = region[2] * region[3];
+            if (roiPixels == null || roiPixels.length < regionPixels) {
+                roiPixels = new int[regionPixels];
+            }
+            bitmap.getPixels(roiPixels, 0, region[2], region[0], region[1], region[2], region[3]);
+            RoiCapture.composite(roiPixels, region[0], region[1], region[2], region[3], width, roiFrame);
+            pixels = roiFrame;
+            roiCapture.recordRegion(drawNanos[0], System.nanoTime() - copyStart);
+        } else {
+            // Copy bitmap pixels to buffer
+            pixelBuffer.rewind();
+            bitmap.copyPixelsToBuffer(pixelBuffer);
+            
+            if (roiCapture.isEnabled()) {
+                // Kept as the periphery for the region frames that follow
+                roiFrame = PixelBuffers.copyToArray(pixelBuffer, roiFrame);
+                pixels = roiFrame;
+            } else {
+                pixels = PixelBuffers.copyToArray(pixelBuffer, null);
+            }
+            roiCapture.recordFull(drawNanos[0], System.nanoTime() - copyStart);
+        }
+        damage.delivered(captureGeneration);
+        
+        // Only frames drawn entirely within one committed page are worth keeping for it
+        if (frameUrl != null && frameUrl.equals(committedUrl) && snapshots.isEnabled()) {
+            // Region frames are composited into roiFrame in place, so keep a copy, not the array
+            if (lastFrame == null || lastFrame.length != pixels.length) {
+                lastFrame = new byte[pixels.length];
+            }
+            System.arraycopy(pixels, 0, lastFrame, 0, pixels.length);
+            lastFrameUrl = frameUrl;
+            lastFrameWidth = width;
+            lastFrameHeight = height;
+        }
         
-        byte[] pixels = new byte[pixelBuffer.capacity()];
-        pixelBuffer.rewind();
-        pixelBuffer.get(pixels);
+        if (streaming) {
+            streamFrame = pixels;
+            streamFrameWidth = width;
+            streamFrameHeight = height;
+            streamFrameFresh = true;
+        }
         
         emitSignal("texture_updated");
         return pixels;
@@ -603,36 +1623,76 @@ public class GodotAndroidWebView extends GodotPlugin {
         if (!isInitialized.get()) return;
         
         mainHandler.post(() -> {
-            if (webView != null) {
-                webView.stopLoading();
-                webView.clearHistory();
-                webView.clearCache(true);
-                webView.loadUrl("about:blank");
-                webView.onPause();
-                webView.removeAllViews();
-                
-                ViewGroup parent = (ViewGroup) webView.getParent();
-                if (parent != null) {
-                    parent.removeView(webView);
-                    ViewGroup grandParent = (ViewGroup) parent.getParent();
-                    if (grandParent != null) {
-                        grandParent.removeView(parent);
-                    }
+            WarmWebView instance = activeInstance;
+            activeInstance = null;
+            webView = null;
+            resizePending = false;
+            committedUrl = null;
+            pendingSnapshot = null;
+            jsQueue.clear();
+            Choreographer.getInstance().removeFrameCallback(jsFlushCallback);
+            jsFlushScheduled.set(false);
+            textInput.clear();
+            mainHandler.removeCallbacks(textFlush);
+            textFlushScheduled.set(false);
+            inputConnection = null;
+            fallbackSteps.clear();
+            fallbackWaiting = false;
+            
+            if (instance != null) {
+                if (warmPool.size() < warmPoolCapacity) {
+                    // Hand the instance back to the pool instead of tearing it down
+                    instance.view.stopLoading();
+                    instance.view.loadUrl("about:blank");
+                    instance.view.clearHistory();
+                    instance.view.onPause();
+                    warmPool.add(instance);
+                    warmInstanceCount = warmPool.size();
+                } else {
+                    destroyInstance(instance);
                 }
-                
-                webView.destroy();
-                webView = null;
             }
             
             bitmap = null;
             pixelBuffer = null;
             canvas = null;
+            firstFrameReady.set(false);
             isInitialized.set(false);
         });
     }
+    
+    private void destroyInstance(WarmWebView instance) {
+        WebView view = instance.view;
+        ViewTreeObserver observer = view.getViewTreeObserver();
+        if (instance.preDrawListener != null && observer.isAlive()) {
+            observer.removeOnPreDrawListener(instance.preDrawListener);
+        }
+        view.stopLoading();
+        view.clearHistory();
+        view.clearCache(true);
+        view.loadUrl("about:blank");
+        view.onPause();
+        view.removeAllViews();
+        
+        ViewGroup parent = (ViewGroup) view.getParent();
+        if (parent != null) {
+            parent.removeView(view);
+            ViewGroup grandParent = (ViewGroup) parent.getParent();
+            if (grandParent != null) {
+                grandParent.removeView(parent);
+            }
+        }
+        
+        view.destroy();
+        instance.bitmap = null;
+        instance.pixelBuffer = null;
+        instance.canvas = null;
+    }
+    
     @Override
     public void onMainDestroy() {
         // Ensure we clean up the WebView when the activity is destroyed
+        releaseWarmInstances();
         destroy();
         super.onMainDestroy();
     }
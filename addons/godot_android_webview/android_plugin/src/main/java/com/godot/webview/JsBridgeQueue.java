@@ -0,0 +1,142 @@
+package com.godot.webview;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pending commands for the injected page runtime, drained once per frame.
+ *
+ * Structured commands are encoded as a compact JSON array of arrays
+ * ({@code [[op, arg], ...]}) that the runtime pulls through the JavaScript interface, so no
+ * script has to be compiled for them. Adjacent scroll commands are merged. Arbitrary scripts
+ * are concatenated into a single {@code evaluateJavascript} call per frame (they must run in
+ * the page's main world, where CSP does not block them).
+ *
+ * Thread-safe; has no Android dependencies.
+ */
+final class JsBridgeQueue {
+
+    static final int OP_SCROLL_TO = 1;
+    static final int OP_SCROLL_BY = 2;
+    static final int OP_INPUT_TEXT = 3;
+
+    private static final class Command {
+        final int op;
+        int value;
+        final String text;
+
+        Command(int op, int value, String text) {
+            this.op = op;
+            this.value = value;
+            this.text = text;
+        }
+    }
+
+    private final List<Command> commands = new ArrayList<>();
+    private final StringBuilder scripts = new StringBuilder();
+
+    synchronized void scrollTo(int y) {
+        Command last = lastCommand();
+        if (last != null && (last.op == OP_SCROLL_TO || last.op == OP_SCROLL_BY)) {
+            // An absolute scroll supersedes any scroll directly before it
+            commands.remove(commands.size() - 1);
+        }
+        commands.add(new Command(OP_SCROLL_TO, y, null));
+    }
+
+    synchronized void scrollBy(int deltaY) {
+        Command last = lastCommand();
+        if (last != null && (last.op == OP_SCROLL_BY || last.op == OP_SCROLL_TO)) {
+            last.value += deltaY;
+        } else {
+            commands.add(new Command(OP_SCROLL_BY, deltaY, null));
+        }
+    }
+
+    synchronized void inputText(String text) {
+        Command last = lastCommand();
+        if (last != null && last.op == OP_INPUT_TEXT) {
+            commands.set(commands.size() - 1, new Command(OP_INPUT_TEXT, 0, last.text + text));
+        } else {
+            commands.add(new Command(OP_INPUT_TEXT, 0, text));
+        }
+    }
+
+    synchronized void execute(String script) {
+        scripts.append("try{").append(script).append("\n}catch(e){}\n");
+    }
+
+    synchronized boolean hasCommands() {
+        return !commands.isEmpty();
+    }
+
+    synchronized boolean isEmpty() {
+        return commands.isEmpty() && scripts.length() == 0;
+    }
+
+    /** The pending structured commands as a JSON batch, or null when there are none. */
+    synchronized String drainCommands() {
+        if (commands.isEmpty()) {
+            return null;
+        }
+        StringBuilder batch = new StringBuilder(commands.size() * 12);
+        batch.append('[');
+        for (int i = 0; i < commands.size(); i++) {
+            Command command = commands.get(i);
+            if (i > 0) {
+                batch.append(',');
+            }
+            batch.append('[').append(command.op);
+            if (command.op == OP_INPUT_TEXT) {
+                batch.append(',');
+                appendJsonString(batch, command.text);
+            } else {
+                batch.append(',').append(command.value);
+            }
+            batch.append(']');
+        }
+        batch.append(']');
+        commands.clear();
+        return batch.toString();
+    }
+
+    /** All pending scripts as one program, or null when there are none. */
+    synchronized String drainScripts() {
+        if (scripts.length() == 0) {
+            return null;
+        }
+        String program = scripts.toString();
+        scripts.setLength(0);
+        return program;
+    }
+
+    synchronized void clear() {
+        commands.clear();
+        scripts.setLength(0);
+    }
+
+    private Command lastCommand() {
+        return commands.isEmpty() ? null : commands.get(commands.size() - 1);
+    }
+
+    static void appendJsonString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': out.append("\\\""); break;
+                case '\\': out.append("\\\\"); break;
+                case '\n': out.append("\\n"); break;
+                case '\r': out.append("\\r"); break;
+                case '\t': out.append("\\t"); break;
+                default:
+                    if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,47 @@
+package com.godot.webview;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pure-Java pixel buffer helpers used by the capture path.
+ * Kept free of Android classes so they can be benchmarked on a desktop JVM.
+ */
+final class PixelBuffers {
+
+    private PixelBuffers() {
+    }
+
+    /**
+     * Copy {@code source} from position 0 to its limit into {@code target}, reusing it when it
+     * is already the right size. The limit marks the current frame inside a larger buffer.
+     */
+    static byte[] copyToArray(ByteBuffer source, byte[] target) {
+        int size = source.limit();
+        byte[] out = (target != null && target.length == size) ? target : new byte[size];
+        ByteBuffer view = source.duplicate();
+        view.position(0);
+        view.get(out, 0, size);
+        return out;
+    }
+
+    /**
+     * Convert packed ARGB ints (as returned by {@code Bitmap.getPixels}) into RGBA8 bytes,
+     * the layout Godot's {@code Image.FORMAT_RGBA8} expects.
+     */
+    static void argbToRgba(int[] argb, int pixelCount, byte[] rgba, int rgbaOffset) {
+        argbToRgba(argb, 0, pixelCount, rgba, rgbaOffset);
+    }
+
+    /** As above, starting at {@code argbOffset} (used to convert one row of a region at a time). */
+    static void argbToRgba(int[] argb, int argbOffset, int pixelCount, byte[] rgba, int rgbaOffset) {
+        int o = rgbaOffset;
+        int end = argbOffset + pixelCount;
+        for (int i = argbOffset; i < end; i++) {
+            int c = argb[i];
+            rgba[o++] = (byte) (c >> 16);
+            rgba[o++] = (byte) (c >> 8);
+            rgba[o++] = (byte) c;
+            rgba[o++] = (byte) (c >>> 24);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.godot.webview;
+
+import java.util.Locale;
+
+/**
+ * Region-of-interest capture settings and timings.
+ *
+ * While enabled, the capture loop redraws and copies only a rectangle around the focus point
+ * (pointer or gaze UV supplied by Godot) on every frame, and refreshes the full frame at
+ * {@code peripheryIntervalMs}. Regions are composited into a persistent RGBA frame, so the
+ * periphery keeps its last full-resolution content between refreshes.
+ *
+ * Config setters may be called from any thread; timings are recorded by the capture thread.
+ * Has no Android dependencies.
+ */
+final class RoiCapture {
+
+    static final float DEFAULT_REGION_FRACTION = 0.35f;
+    static final int DEFAULT_PERIPHERY_INTERVAL_MS = 250;
+
+    private volatile boolean enabled = false;
+    private volatile float focusU = 0.5f;
+    private volatile float focusV = 0.5f;
+    private volatile float regionFraction = DEFAULT_REGION_FRACTION;
+    private volatile int peripheryIntervalMs = DEFAULT_PERIPHERY_INTERVAL_MS;
+    private long lastPeripheryTime = 0;
+
+    private final Timing regionTiming = new Timing();
+    private final Timing fullTiming = new Timing();
+
+    void configure(boolean enable, float fraction, int intervalMs) {
+        regionFraction = Math.max(0.05f, Math.min(1f, fraction));
+        peripheryIntervalMs = Math.max(0, intervalMs);
+        enabled = enable;
+        lastPeripheryTime = 0;
+    }
+
+    void setFocus(float u, float v) {
+        focusU = Math.max(0f, Math.min(1f, u));
+        focusV = Math.max(0f, Math.min(1f, v));
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /** True when this capture should redraw the whole frame; updates the refresh clock if so. */
+    boolean takeFullFrame(long nowMs) {
+        if (!enabled || nowMs - lastPeripheryTime >= peripheryIntervalMs) {
+            lastPeripheryTime = nowMs;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The focus rectangle for a {@code width} x {@code height} frame as {x, y, w, h}, centred on
+     * the focus point and shifted to stay inside the frame.
+     */
+    int[] region(int width, int height) {
+        int regionWidth = Math.max(1, Math.round(width * regionFraction));
+        int regionHeight = Math.max(1, Math.round(height * regionFraction));
+        int x = Math.round(focusU * width) - regionWidth / 2;
+        int y = Math.round(focusV * height) - regionHeight / 2;
+        x = Math.max(0, Math.min(width - regionWidth, x));
+        y = Math.max(0, Math.min(height - regionHeight, y));
+        return new int[] {x, y, regionWidth, regionHeight};
+    }
+
+    /** Write an ARGB rectangle (row stride {@code w}) into an RGBA frame of {@code frameWidth}. */
+    static void composite(int[] argb, int x, int y, int w, int h, int frameWidth, byte[] frame) {
+        for (int row = 0; row < h; row++) {
+            PixelBuffers.argbToRgba(argb, row * w, w, frame, ((y + row) * frameWidth + x) * 4);
+        }
+    }
+
+    void recordRegion(long drawNanos, long copyNanos) {
+        regionTiming.record(drawNanos, copyNanos);
+    }
+
+    void recordFull(long drawNanos, long copyNanos) {
+        fullTiming.record(drawNanos, copyNanos);
+    }
+
+    String statsJson() {
+        StringBuilder out = new StringBuilder();
+        out.append("{\"enabled\":").append(enabled);
+        out.append(",\"region\":");
+        regionTiming.appendJson(out);
+        out.append(",\"full\":");
+        fullTiming.appendJson(out);
+        out.append('}');
+        return out.toString();
+    }
+
+    /** Last and exponentially averaged draw/copy times. */
+    private static final class Timing {
+        private static final double ALPHA = 0.1;
+        private long frames;
+        private double lastDrawMs;
+        private double lastCopyMs;
+        private double avgDrawMs;
+        private double avgCopyMs;
+
+        synchronized void record(long drawNanos, long copyNanos) {
+            lastDrawMs = drawNanos / 1_000_000.0;
+            lastCopyMs = copyNanos / 1_000_000.0;
+            if (frames == 0) {
+                avgDrawMs = lastDrawMs;
+                avgCopyMs = lastCopyMs;
+            } else {
+                avgDrawMs += ALPHA * (lastDrawMs - avgDrawMs);
+                avgCopyMs += ALPHA * (lastCopyMs - avgCopyMs);
+            }
+            frames++;
+        }
+
+        synchronized void appendJson(StringBuilder out) {
+            out.append(String.format(Locale.US,
+                "{\"frames\":%d,\"draw_ms\":%.3f,\"copy_ms\":%.3f,\"avg_draw_ms\":%.3f,\"avg_copy_ms\":%.3f}",
+                frames, lastDrawMs, lastCopyMs, avgDrawMs, avgCopyMs));
+        }
+    }
+}
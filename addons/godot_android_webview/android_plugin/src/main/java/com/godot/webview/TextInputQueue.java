@@ -0,0 +1,221 @@
+package com.godot.webview;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Pending text edits for the focused field, applied together once per UI-thread turn.
+ *
+ * Keystrokes from the Godot thread are queued here and merged where the result is the same:
+ * adjacent commits are concatenated, a backspace right after a commit trims it, repeated
+ * deletes add up, and a newer composition or selection replaces the previous one. The plugin
+ * replays the batch into the WebView's {@code InputConnection} between one begin/end batch
+ * edit, so the page sees a single update and its input events in order.
+ *
+ * Each keystroke is timestamped when queued; {@link #apply} records how long it waited, and
+ * {@link #statsJson} reports the latency percentiles over the last {@link #LATENCY_WINDOW}.
+ *
+ * Thread-safe; has no Android dependencies.
+ */
+final class TextInputQueue {
+
+    static final int OP_COMMIT = 1;
+    static final int OP_COMPOSE = 2;
+    static final int OP_FINISH_COMPOSING = 3;
+    static final int OP_DELETE = 4;
+    static final int OP_SELECT = 5;
+    static final int OP_KEY = 6;
+
+    static final int LATENCY_WINDOW = 256;
+
+    /** Receives the merged edits, in order. */
+    interface Sink {
+        void commitText(String text);
+        void setComposingText(String text);
+        void finishComposingText();
+        void deleteSurroundingText(int before, int after);
+        void setSelection(int start, int end);
+        void sendKey(int keyCode, int metaState);
+    }
+
+    private static final class Edit {
+        final int op;
+        final StringBuilder text;
+        int first;
+        int second;
+
+        Edit(int op, String text, int first, int second) {
+            this.op = op;
+            this.text = text != null ? new StringBuilder(text) : null;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    private final List<Edit> edits = new ArrayList<>();
+    private long[] queuedAt = new long[16];
+    private int queuedCount = 0;
+
+    private final long[] latencies = new long[LATENCY_WINDOW];
+    private int latencyCount = 0;
+    private int latencyNext = 0;
+    private long keystrokes = 0;
+    private long batches = 0;
+    private long appliedEdits = 0;
+
+    synchronized void commitText(String text, long nowNanos) {
+        if (text.isEmpty()) {
+            return;
+        }
+        // Committing replaces the composition, so a composition right before it is moot
+        Edit last = lastEdit();
+        if (last != null && last.op == OP_COMPOSE) {
+            edits.remove(edits.size() - 1);
+            last = lastEdit();
+        }
+        if (last != null && last.op == OP_COMMIT) {
+            last.text.append(text);
+        } else {
+            edits.add(new Edit(OP_COMMIT, text, 0, 0));
+        }
+        stamp(nowNanos);
+    }
+
+    synchronized void setComposingText(String text, long nowNanos) {
+        Edit last = lastEdit();
+        if (last != null && last.op == OP_COMPOSE) {
+            last.text.setLength(0);
+            last.text.append(text);
+        } else {
+            edits.add(new Edit(OP_COMPOSE, text, 0, 0));
+        }
+        stamp(nowNanos);
+    }
+
+    synchronized void finishComposingText(long nowNanos) {
+        Edit last = lastEdit();
+        if (last == null || last.op != OP_FINISH_COMPOSING) {
+            edits.add(new Edit(OP_FINISH_COMPOSING, null, 0, 0));
+        }
+        stamp(nowNanos);
+    }
+
+    /**
+     * Delete {@code before} characters before the cursor and {@code after} after it, counted in
+     * code points so a backspace never leaves half of a surrogate pair behind.
+     */
+    synchronized void deleteSurroundingText(int before, int after, long nowNanos) {
+        before = Math.max(0, before);
+        after = Math.max(0, after);
+        if (before == 0 && after == 0) {
+            return;
+        }
+        Edit last = lastEdit();
+        // The cursor sits right after text committed in this batch; trim it instead. An emptied
+        // commit stays, since it still replaces whatever was selected or being composed.
+        while (before > 0 && last != null && last.op == OP_COMMIT && last.text.length() > 0) {
+            int end = last.text.length();
+            last.text.setLength(end - Character.charCount(last.text.codePointBefore(end)));
+            before--;
+        }
+        if (before > 0 || after > 0) {
+            if (last != null && last.op == OP_DELETE) {
+                last.first += before;
+                last.second += after;
+            } else {
+                edits.add(new Edit(OP_DELETE, null, before, after));
+            }
+        }
+        stamp(nowNanos);
+    }
+
+    synchronized void setSelection(int start, int end, long nowNanos) {
+        Edit last = lastEdit();
+        if (last != null && last.op == OP_SELECT) {
+            last.first = start;
+            last.second = end;
+        } else {
+            edits.add(new Edit(OP_SELECT, null, start, end));
+        }
+        stamp(nowNanos);
+    }
+
+    /** A key press (down and up) for keys that are not text, e.g. enter, tab or arrows. */
+    synchronized void sendKey(int keyCode, int metaState, long nowNanos) {
+        edits.add(new Edit(OP_KEY, null, keyCode, metaState));
+        stamp(nowNanos);
+    }
+
+    synchronized boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * Replay the pending edits into {@code sink} and record the latency of their keystrokes.
+     * Returns the number of edits applied.
+     */
+    synchronized int apply(Sink sink, long nowNanos) {
+        int count = edits.size();
+        if (count == 0) {
+            return 0;
+        }
+        for (Edit edit : edits) {
+            switch (edit.op) {
+                case OP_COMMIT: sink.commitText(edit.text.toString()); break;
+                case OP_COMPOSE: sink.setComposingText(edit.text.toString()); break;
+                case OP_FINISH_COMPOSING: sink.finishComposingText(); break;
+                case OP_DELETE: sink.deleteSurroundingText(edit.first, edit.second); break;
+                case OP_SELECT: sink.setSelection(edit.first, edit.second); break;
+                case OP_KEY: sink.sendKey(edit.first, edit.second); break;
+                default: break;
+            }
+        }
+        for (int i = 0; i < queuedCount; i++) {
+            latencies[latencyNext] = nowNanos - queuedAt[i];
+            latencyNext = (latencyNext + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+        }
+        edits.clear();
+        queuedCount = 0;
+        batches++;
+        appliedEdits += count;
+        return count;
+    }
+
+    synchronized void clear() {
+        edits.clear();
+        queuedCount = 0;
+    }
+
+    synchronized String statsJson() {
+        long[] window = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(window);
+        return String.format(Locale.US,
+            "{\"keystrokes\":%d,\"batches\":%d,\"edits\":%d,\"pending\":%d," +
+            "\"latency_p50_ms\":%.3f,\"latency_p95_ms\":%.3f,\"latency_max_ms\":%.3f}",
+            keystrokes, batches, appliedEdits, queuedCount,
+            percentileMs(window, 0.50), percentileMs(window, 0.95), percentileMs(window, 1.0));
+    }
+
+    private static double percentileMs(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private void stamp(long nowNanos) {
+        if (queuedCount == queuedAt.length) {
+            queuedAt = Arrays.copyOf(queuedAt, queuedCount * 2);
+        }
+        queuedAt[queuedCount++] = nowNanos;
+        keystrokes++;
+    }
+
+    private Edit lastEdit() {
+        return edits.isEmpty() ? null : edits.get(edits.size() - 1);
+    }
+}
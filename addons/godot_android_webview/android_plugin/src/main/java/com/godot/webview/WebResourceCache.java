@@ -0,0 +1,748 @@
+package com.godot.webview;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Size-bounded on-disk LRU cache for WebView sub-resources from whitelisted origins.
+ *
+ * Each entry is a body file plus a small properties file holding the URL, content type,
+ * validators (ETag / Last-Modified) and freshness. Stale entries are revalidated with a
+ * conditional GET; a 304 serves the body from disk. Bodies above {@link #MMAP_THRESHOLD_BYTES}
+ * are served from a memory-mapped file instead of a stream copy.
+ *
+ * Only static resources (by file extension, see {@link #isStaticResource}) are intercepted, so
+ * XHR/fetch calls always reach the WebView's own network stack. Requests carry the page's
+ * cookies. Whatever the network answers is handed to the WebView as is, so nothing is
+ * fetched twice; only 200 responses that are not {@code no-store}, {@code private}, setting
+ * cookies or varying on more than the encoding are kept. Redirects are left to the WebView,
+ * and the URL is not intercepted again this session.
+ *
+ * Has no Android dependencies: {@code GodotAndroidWebView} wraps {@link Response} in a
+ * {@code WebResourceResponse} from {@code shouldInterceptRequest} (a WebView IO thread), so
+ * every public method is thread-safe.
+ */
+final class WebResourceCache {
+
+    static final long MMAP_THRESHOLD_BYTES = 256 * 1024;
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+    private static final int READ_TIMEOUT_MS = 20_000;
+    private static final String BODY_SUFFIX = ".body";
+    private static final String META_SUFFIX = ".meta";
+    private static final String[] STORED_HEADERS = {
+        "Content-Type", "Access-Control-Allow-Origin", "Cache-Control", "ETag", "Last-Modified"
+    };
+    private static final Set<String> STATIC_EXTENSIONS = new HashSet<>(java.util.Arrays.asList(
+        "css", "js", "mjs", "png", "jpg", "jpeg", "gif", "webp", "avif", "svg", "ico", "bmp",
+        "woff", "woff2", "ttf", "otf", "eot", "wasm", "mp3", "ogg", "wav", "mp4", "webm",
+        "glb", "gltf", "bin", "ktx2"));
+    // Not forwarded: the cookie jar is the source of truth, and HttpURLConnection only
+    // decompresses bodies when it negotiated the encoding itself
+    private static final Set<String> SKIPPED_REQUEST_HEADERS = new HashSet<>(java.util.Arrays.asList(
+        "cookie", "accept-encoding"));
+    private static final Set<String> SKIPPED_RESPONSE_HEADERS = new HashSet<>(java.util.Arrays.asList(
+        "content-type", "content-length", "content-encoding", "transfer-encoding", "connection",
+        "set-cookie", "set-cookie2"));
+    private static final int MAX_REMEMBERED_REDIRECTS = 256;
+
+    /** A response ready to hand to the WebView. */
+    static final class Response {
+        final int status;
+        final String reason;
+        final String mimeType;
+        final String encoding;
+        final Map<String, String> headers;
+        final InputStream body;
+        final boolean fromCache;
+        /** Set-Cookie values of a network response, for the WebView's cookie jar. */
+        final List<String> setCookies;
+
+        Response(int status, String reason, String mimeType, String encoding, Map<String, String> headers,
+                 InputStream body, boolean fromCache, List<String> setCookies) {
+            this.status = status;
+            this.reason = reason;
+            this.mimeType = mimeType;
+            this.encoding = encoding;
+            this.headers = headers;
+            this.body = body;
+            this.fromCache = fromCache;
+            this.setCookies = setCookies;
+        }
+    }
+
+    private static final class Entry {
+        final String key;
+        final String url;
+        final Map<String, String> headers = new HashMap<>();
+        long size;
+        long storedAtMs;
+        long maxAgeMs;
+
+        Entry(String key, String url) {
+            this.key = key;
+            this.url = url;
+        }
+
+        String header(String name) {
+            return headers.get(name);
+        }
+
+        boolean isFresh(long nowMs) {
+            return maxAgeMs < 0 || nowMs - storedAtMs < maxAgeMs;
+        }
+    }
+
+    private final File directory;
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final Set<String> allowedOrigins = new HashSet<>();
+    // Access-ordered: iteration starts at the least recently used entry.
+    private final LinkedHashMap<String, Entry> index = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+    // URLs that redirected; the WebView loads them itself from then on
+    private final LinkedHashMap<String, Boolean> redirects = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_REMEMBERED_REDIRECTS;
+        }
+    };
+
+    private long hits = 0;
+    private long misses = 0;
+    private long revalidated = 0;
+    private long staleServed = 0;
+    private long bytesSaved = 0;
+    private long bytesDownloaded = 0;
+    private long passedThrough = 0;
+
+    WebResourceCache(File directory, long maxBytes, String[] origins) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.max(1, maxBytes / 4);
+        for (String origin : origins) {
+            String normalized = normalizeOrigin(origin);
+            if (normalized != null) {
+                allowedOrigins.add(normalized);
+            }
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IllegalStateException("Cannot create cache directory " + directory);
+        }
+        loadIndex();
+    }
+
+    boolean isAllowed(String url) {
+        String origin = normalizeOrigin(url);
+        return origin != null && allowedOrigins.contains(origin);
+    }
+
+    /** Scripts, styles, images, fonts, media and model files, judged by the path's extension. */
+    static boolean isStaticResource(String url) {
+        try {
+            String path = new URI(url.trim()).getPath();
+            if (path == null) {
+                return false;
+            }
+            int slash = path.lastIndexOf('/');
+            int dot = path.lastIndexOf('.');
+            return dot > slash && STATIC_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.US));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    Response get(String url, Map<String, String> requestHeaders) {
+        return get(url, requestHeaders, null);
+    }
+
+    /**
+     * Serve {@code url} from the cache, revalidating or fetching it as needed with
+     * {@code cookies} (the Cookie header value for the URL, or null).
+     * Returns null when the URL is not intercepted (other origin, not a static resource, a
+     * redirect) or the network failed, in which case the WebView should load it itself.
+     */
+    Response get(String url, Map<String, String> requestHeaders, String cookies) {
+        if (!isAllowed(url) || !isStaticResource(url)) {
+            return null;
+        }
+        String key = keyFor(url);
+        Entry entry;
+        boolean fresh;
+        synchronized (this) {
+            if (redirects.containsKey(key)) {
+                return null;
+            }
+            entry = index.get(key);
+            fresh = entry != null && entry.isFresh(System.currentTimeMillis());
+        }
+
+        if (fresh) {
+            Response cached = openCached(entry);
+            if (cached != null) {
+                synchronized (this) {
+                    hits++;
+                    bytesSaved += entry.size;
+                }
+                return cached;
+            }
+        }
+
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+            connection.setReadTimeout(READ_TIMEOUT_MS);
+            connection.setInstanceFollowRedirects(false);
+            if (requestHeaders != null) {
+                for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+                    if (!SKIPPED_REQUEST_HEADERS.contains(header.getKey().toLowerCase(Locale.US))) {
+                        connection.setRequestProperty(header.getKey(), header.getValue());
+                    }
+                }
+            }
+            if (cookies != null && !cookies.isEmpty()) {
+                connection.setRequestProperty("Cookie", cookies);
+            }
+            if (entry != null) {
+                if (entry.header("ETag") != null) {
+                    connection.setRequestProperty("If-None-Match", entry.header("ETag"));
+                }
+                if (entry.header("Last-Modified") != null) {
+                    connection.setRequestProperty("If-Modified-Since", entry.header("Last-Modified"));
+                }
+            }
+
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED && entry != null) {
+                refresh(entry, connection.getHeaderField("Cache-Control"));
+                Response cached = openCached(entry);
+                if (cached != null) {
+                    synchronized (this) {
+                        hits++;
+                        revalidated++;
+                        bytesSaved += entry.size;
+                    }
+                    return cached;
+                }
+                return null;
+            }
+            if (status >= 300 && status < 400) {
+                // WebResourceResponse cannot carry a redirect, and the target's body must not
+                // be served under this URL; let the WebView follow it natively from now on
+                synchronized (this) {
+                    misses++;
+                    redirects.put(key, Boolean.TRUE);
+                }
+                return null;
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                return passThrough(url, connection, status);
+            }
+            return storeAndServe(key, url, connection);
+        } catch (IOException e) {
+            if (entry != null) {
+                // Offline or server hiccup: a stale copy beats a broken panel.
+                Response cached = openCached(entry);
+                if (cached != null) {
+                    synchronized (this) {
+                        hits++;
+                        staleServed++;
+                        bytesSaved += entry.size;
+                    }
+                    return cached;
+                }
+            }
+            synchronized (this) {
+                misses++;
+            }
+            return null;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Add a packaged copy of {@code url}. Entries with an ETag are revalidated on first use;
+     * entries without one are treated as immutable (content-hashed bundle names).
+     */
+    void seed(String url, InputStream body, String contentType, String etag) throws IOException {
+        if (!isAllowed(url)) {
+            return;
+        }
+        String key = keyFor(url);
+        Entry entry = new Entry(key, url);
+        entry.headers.put("Content-Type", contentType);
+        if (etag != null && !etag.isEmpty()) {
+            entry.headers.put("ETag", etag);
+            entry.maxAgeMs = 0;
+        } else {
+            entry.maxAgeMs = -1;
+        }
+        entry.storedAtMs = System.currentTimeMillis();
+        File temp = File.createTempFile(key, ".tmp", directory);
+        entry.size = copyToFile(body, temp);
+        commit(entry, temp);
+    }
+
+    /**
+     * Seed from a manifest of tab-separated lines: {@code url, path, content-type[, etag]}.
+     * {@code opener} resolves each path relative to wherever the packaged files live.
+     */
+    int seedFromManifest(InputStream manifest, AssetOpener opener) throws IOException {
+        int seeded = 0;
+        String text = new String(readAll(manifest), StandardCharsets.UTF_8);
+        for (String line : text.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\t");
+            if (parts.length < 3) {
+                continue;
+            }
+            synchronized (this) {
+                if (index.containsKey(keyFor(parts[0]))) {
+                    continue;
+                }
+            }
+            try (InputStream body = opener.open(parts[1])) {
+                seed(parts[0], body, parts[2], parts.length > 3 ? parts[3] : null);
+                seeded++;
+            }
+        }
+        return seeded;
+    }
+
+    interface AssetOpener {
+        InputStream open(String path) throws IOException;
+    }
+
+    synchronized void clear() {
+        for (Entry entry : new ArrayList<>(index.values())) {
+            deleteFiles(entry.key);
+        }
+        index.clear();
+        totalBytes = 0;
+    }
+
+    synchronized int entryCount() {
+        return index.size();
+    }
+
+    synchronized long sizeBytes() {
+        return totalBytes;
+    }
+
+    synchronized String statsJson() {
+        long lookups = hits + misses;
+        double hitRatio = lookups == 0 ? 0.0 : (double) hits / lookups;
+        return String.format(Locale.US,
+            "{\"hits\":%d,\"misses\":%d,\"revalidated\":%d,\"stale_served\":%d,\"hit_ratio\":%.3f," +
+            "\"bytes_saved\":%d,\"bytes_downloaded\":%d,\"passed_through\":%d,\"entries\":%d," +
+            "\"size_bytes\":%d,\"max_bytes\":%d}",
+            hits, misses, revalidated, staleServed, hitRatio, bytesSaved, bytesDownloaded, passedThrough,
+            index.size(), totalBytes, maxBytes);
+    }
+
+    private Response storeAndServe(String key, String url, HttpURLConnection connection) throws IOException {
+        Entry entry = new Entry(key, url);
+        for (String name : STORED_HEADERS) {
+            String value = headerValue(connection, name);
+            if (value != null) {
+                entry.headers.put(name, value);
+            }
+        }
+        String cacheControl = entry.header("Cache-Control");
+        String directives = cacheControl != null ? cacheControl.toLowerCase(Locale.US) : "";
+        String vary = headerValue(connection, "Vary");
+        List<String> setCookies = setCookies(connection);
+        boolean cacheable = !directives.contains("no-store") && !directives.contains("private")
+            && setCookies.isEmpty()
+            && (vary == null || vary.trim().isEmpty() || vary.trim().equalsIgnoreCase("accept-encoding"));
+        entry.maxAgeMs = parseMaxAge(cacheControl, 0);
+        entry.storedAtMs = System.currentTimeMillis();
+
+        File temp = File.createTempFile(key, ".tmp", directory);
+        try (InputStream in = connection.getInputStream()) {
+            entry.size = copyToFile(in, temp);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        synchronized (this) {
+            misses++;
+            bytesDownloaded += entry.size;
+        }
+
+        if (!cacheable || entry.size > maxEntryBytes) {
+            // Serve once from the temp file and drop it.
+            synchronized (this) {
+                passedThrough++;
+            }
+            return buildResponse(entry, 200, "OK", new DeleteOnCloseInputStream(temp), false, setCookies);
+        }
+        commit(entry, temp);
+        Response response = openCached(entry);
+        if (response == null) {
+            throw new IOException("Cached body vanished for " + url);
+        }
+        return new Response(response.status, response.reason, response.mimeType, response.encoding,
+            response.headers, response.body, false, setCookies);
+    }
+
+    /** Hand an error response (404, 401, ...) to the WebView as is, without caching it. */
+    private Response passThrough(String url, HttpURLConnection connection, int status) throws IOException {
+        Entry entry = new Entry(keyFor(url), url);
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            String name = header.getKey();
+            if (name != null && !header.getValue().isEmpty()
+                    && !SKIPPED_RESPONSE_HEADERS.contains(name.toLowerCase(Locale.US))) {
+                entry.headers.put(name, String.join(", ", header.getValue()));
+            }
+        }
+        String contentType = connection.getHeaderField("Content-Type");
+        if (contentType != null) {
+            entry.headers.put("Content-Type", contentType);
+        }
+        File temp = File.createTempFile(entry.key, ".tmp", directory);
+        InputStream error = connection.getErrorStream();
+        try (InputStream in = error != null ? error : new java.io.ByteArrayInputStream(new byte[0])) {
+            entry.size = copyToFile(in, temp);
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        synchronized (this) {
+            misses++;
+            passedThrough++;
+            bytesDownloaded += entry.size;
+        }
+        String reason = connection.getResponseMessage();
+        return buildResponse(entry, status, reason != null && !reason.isEmpty() ? reason : "Error",
+            new DeleteOnCloseInputStream(temp), false, setCookies(connection));
+    }
+
+    private static List<String> setCookies(HttpURLConnection connection) {
+        return headerValues(connection, "Set-Cookie");
+    }
+
+    /** Every value of a response header, in any letter case (repeated Cache-Control lines count). */
+    private static List<String> headerValues(HttpURLConnection connection, String name) {
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                values.addAll(header.getValue());
+            }
+        }
+        return values;
+    }
+
+    private static String headerValue(HttpURLConnection connection, String name) {
+        List<String> values = headerValues(connection, name);
+        return values.isEmpty() ? null : String.join(", ", values);
+    }
+
+    /** A 304 extended the entry's freshness. */
+    private synchronized void refresh(Entry entry, String cacheControl) {
+        entry.storedAtMs = System.currentTimeMillis();
+        entry.maxAgeMs = parseMaxAge(cacheControl, entry.maxAgeMs);
+        if (index.get(entry.key) == entry) {
+            writeMeta(entry);
+        }
+    }
+
+    private void commit(Entry entry, File temp) throws IOException {
+        File body = new File(directory, entry.key + BODY_SUFFIX);
+        synchronized (this) {
+            Entry previous = index.remove(entry.key);
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            if (body.exists() && !body.delete()) {
+                temp.delete();
+                throw new IOException("Cannot replace " + body);
+            }
+            if (!temp.renameTo(body)) {
+                temp.delete();
+                throw new IOException("Cannot move " + temp + " to " + body);
+            }
+            writeMeta(entry);
+            index.put(entry.key, entry);
+            totalBytes += entry.size;
+            evictIfNeeded();
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Entry> iterator = index.values().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.size;
+            deleteFiles(eldest.key);
+        }
+    }
+
+    private Response openCached(Entry entry) {
+        File body = new File(directory, entry.key + BODY_SUFFIX);
+        try {
+            InputStream stream;
+            if (entry.size >= MMAP_THRESHOLD_BYTES) {
+                try (FileChannel channel = new FileInputStream(body).getChannel()) {
+                    stream = new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                }
+            } else {
+                stream = new BufferedInputStream(new FileInputStream(body));
+            }
+            // Keeps the LRU order on disk so it survives restarts.
+            body.setLastModified(System.currentTimeMillis());
+            return buildResponse(entry, 200, "OK", stream, true, Collections.emptyList());
+        } catch (IOException e) {
+            synchronized (this) {
+                if (index.remove(entry.key) != null) {
+                    totalBytes -= entry.size;
+                }
+            }
+            deleteFiles(entry.key);
+            return null;
+        }
+    }
+
+    private static Response buildResponse(Entry entry, int status, String reason, InputStream body,
+                                          boolean fromCache, List<String> setCookies) {
+        String contentType = entry.header("Content-Type");
+        String mimeType = "application/octet-stream";
+        String encoding = null;
+        if (contentType != null) {
+            String[] parts = contentType.split(";");
+            mimeType = parts[0].trim();
+            for (int i = 1; i < parts.length; i++) {
+                String part = parts[i].trim();
+                if (part.toLowerCase(Locale.US).startsWith("charset=")) {
+                    encoding = part.substring("charset=".length()).replace("\"", "");
+                }
+            }
+        }
+        Map<String, String> headers = new HashMap<>(entry.headers);
+        headers.remove("Content-Type");
+        return new Response(status, reason, mimeType, encoding, Collections.unmodifiableMap(headers), body,
+            fromCache, setCookies);
+    }
+
+    private void loadIndex() {
+        File[] metaFiles = directory.listFiles((dir, name) -> name.endsWith(META_SUFFIX));
+        if (metaFiles == null) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>();
+        Map<String, Long> lastUsed = new HashMap<>();
+        for (File metaFile : metaFiles) {
+            String key = metaFile.getName().substring(0, metaFile.getName().length() - META_SUFFIX.length());
+            File body = new File(directory, key + BODY_SUFFIX);
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(metaFile)) {
+                properties.load(in);
+            } catch (IOException e) {
+                deleteFiles(key);
+                continue;
+            }
+            String url = properties.getProperty("url");
+            if (url == null || !body.isFile()) {
+                deleteFiles(key);
+                continue;
+            }
+            Entry entry = new Entry(key, url);
+            entry.size = body.length();
+            entry.storedAtMs = Long.parseLong(properties.getProperty("storedAt", "0"));
+            entry.maxAgeMs = Long.parseLong(properties.getProperty("maxAge", "0"));
+            for (String name : STORED_HEADERS) {
+                String value = properties.getProperty("h." + name);
+                if (value != null) {
+                    entry.headers.put(name, value);
+                }
+            }
+            entries.add(entry);
+            lastUsed.put(key, body.lastModified());
+        }
+        entries.sort((a, b) -> Long.compare(lastUsed.get(a.key), lastUsed.get(b.key)));
+        synchronized (this) {
+            for (Entry entry : entries) {
+                index.put(entry.key, entry);
+                totalBytes += entry.size;
+            }
+            evictIfNeeded();
+        }
+    }
+
+    private void writeMeta(Entry entry) {
+        Properties properties = new Properties();
+        properties.setProperty("url", entry.url);
+        properties.setProperty("storedAt", Long.toString(entry.storedAtMs));
+        properties.setProperty("maxAge", Long.toString(entry.maxAgeMs));
+        for (Map.Entry<String, String> header : entry.headers.entrySet()) {
+            properties.setProperty("h." + header.getKey(), header.getValue());
+        }
+        try (OutputStream out = new FileOutputStream(new File(directory, entry.key + META_SUFFIX))) {
+            properties.store(out, null);
+        } catch (IOException e) {
+            // The body is still usable for this session; it just won't survive a restart.
+        }
+    }
+
+    private void deleteFiles(String key) {
+        new File(directory, key + BODY_SUFFIX).delete();
+        new File(directory, key + META_SUFFIX).delete();
+    }
+
+    private static long parseMaxAge(String cacheControl, long fallback) {
+        if (cacheControl == null) {
+            return fallback;
+        }
+        long maxAge = fallback;
+        for (String directive : cacheControl.toLowerCase(Locale.US).split(",")) {
+            directive = directive.trim();
+            if (directive.equals("no-cache")) {
+                return 0;
+            }
+            if (directive.equals("immutable")) {
+                maxAge = -1;
+            } else if (directive.startsWith("max-age=") && maxAge >= 0) {
+                try {
+                    maxAge = Long.parseLong(directive.substring("max-age=".length())) * 1000L;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        return maxAge;
+    }
+
+    static String normalizeOrigin(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            URI uri = new URI(url.trim());
+            if (uri.getScheme() == null || uri.getHost() == null) {
+                return null;
+            }
+            String scheme = uri.getScheme().toLowerCase(Locale.US);
+            int port = uri.getPort();
+            if ((scheme.equals("https") && port == 443) || (scheme.equals("http") && port == 80)) {
+                port = -1;
+            }
+            return scheme + "://" + uri.getHost().toLowerCase(Locale.US) + (port == -1 ? "" : ":" + port);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String keyFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(String.format(Locale.US, "%02x", b));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long copyToFile(InputStream in, File target) throws IOException {
+        long total = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = new FileOutputStream(target)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                total += read;
+            }
+        }
+        return total;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /** Streams a (memory-mapped) buffer without copying it onto the heap first. */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+
+    private static final class DeleteOnCloseInputStream extends FilterInputStream {
+        private final File file;
+
+        DeleteOnCloseInputStream(File file) throws IOException {
+            super(new BufferedInputStream(new FileInputStream(file)));
+            this.file = file;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                file.delete();
+            }
+        }
+    }
+}
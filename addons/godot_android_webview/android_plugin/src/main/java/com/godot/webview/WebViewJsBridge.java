@@ -0,0 +1,115 @@
+package com.godot.webview;
+
+import android.webkit.JavascriptInterface;
+
+import java.security.SecureRandom;
+
+/**
+ * Persistent page-side runtime for the plugin's structured commands.
+ *
+ * The object is registered once per WebView with {@code addJavascriptInterface}. The runtime
+ * ({@code window.__godotBridge}) is installed when a page commits or on the first flush,
+ * whichever comes first; after that every flush is the same short wake script, which pulls
+ * the whole pending batch from {@link JsBridgeQueue} in one call and applies it.
+ *
+ * The runtime also watches scroll, viewport resize and document height changes and pushes
+ * the new values (as plain ints, no JSON) at most every {@link #SCROLL_STATE_INTERVAL_MS},
+ * and only when they actually changed. A random per-page token keeps page scripts from
+ * draining the queue or spoofing state.
+ *
+ * Interface methods run on the WebView's JavaBridge thread.
+ */
+final class WebViewJsBridge {
+
+    static final String INTERFACE_NAME = "__godotWebViewBridge";
+    static final int SCROLL_STATE_INTERVAL_MS = 50;
+
+    interface Listener {
+        void onScrollState(int scrollY, int scrollHeight, int clientHeight);
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final JsBridgeQueue queue;
+    private final Listener listener;
+    private volatile String token;
+    private volatile String installScript;
+    private volatile String wakeScript;
+
+    WebViewJsBridge(JsBridgeQueue queue, Listener listener) {
+        this.queue = queue;
+        this.listener = listener;
+        newPage();
+    }
+
+    /** Rotate the token; a runtime left over from the previous page can no longer pull. */
+    void newPage() {
+        String newToken = Long.toHexString(RANDOM.nextLong()) + Long.toHexString(RANDOM.nextLong());
+        String runtime = runtimeScript(newToken);
+        token = newToken;
+        installScript = "window.__godotBridge||" + runtime + ";";
+        wakeScript = "(window.__godotBridge||" + runtime + ").wake();";
+    }
+
+    /** Installs the runtime (and its scroll observer) if the page does not have it yet. */
+    String installScript() {
+        return installScript;
+    }
+
+    /** Constant for the lifetime of a page, so the engine only compiles it once. */
+    String wakeScript() {
+        return wakeScript;
+    }
+
+    @JavascriptInterface
+    public String pull(String pageToken) {
+        if (!token.equals(pageToken)) {
+            return "[]";
+        }
+        String batch = queue.drainCommands();
+        return batch != null ? batch : "[]";
+    }
+
+    @JavascriptInterface
+    public void scrollState(String pageToken, int scrollY, int scrollHeight, int clientHeight) {
+        if (token.equals(pageToken)) {
+            listener.onScrollState(scrollY, scrollHeight, clientHeight);
+        }
+    }
+
+    private static String runtimeScript(String token) {
+        return "(function(){" +
+            "var t='" + token + "',b=window." + INTERFACE_NAME + ";" +
+            // Passive scroll/layout observer: coalesce events into one rAF, rate limit, post on change
+            "var last=[-1,-1,-1],at=0,pending=false;" +
+            "function report(){pending=false;" +
+            "  var wait=" + SCROLL_STATE_INTERVAL_MS + "-(Date.now()-at);" +
+            "  if(wait>0){pending=true;setTimeout(report,wait);return;}" +
+            "  var d=document.documentElement,y=document.body;" +
+            "  var s=[Math.round(window.scrollY||d.scrollTop||0)," +
+            "    d.scrollHeight||(y&&y.scrollHeight)||0," +
+            "    window.innerHeight||d.clientHeight||0];" +
+            "  if(s[0]===last[0]&&s[1]===last[1]&&s[2]===last[2])return;" +
+            "  last=s;at=Date.now();b.scrollState(t,s[0],s[1],s[2]);}" +
+            "function changed(){if(!pending){pending=true;requestAnimationFrame(report);}}" +
+            "window.addEventListener('scroll',changed,{passive:true});" +
+            "window.addEventListener('resize',changed,{passive:true});" +
+            "if(window.ResizeObserver){var ro=new window.ResizeObserver(changed);ro.observe(document.documentElement);" +
+            "  if(document.body)ro.observe(document.body);" +
+            "  else document.addEventListener('DOMContentLoaded',function(){if(document.body)ro.observe(document.body);});}" +
+            "else if(window.MutationObserver){new window.MutationObserver(changed).observe(document.documentElement,{childList:true,subtree:true});}" +
+            "changed();" +
+            "return window.__godotBridge={wake:function(){" +
+            "  var q=JSON.parse(b.pull(t));" +
+            "  for(var i=0;i<q.length;i++){var c=q[i];try{" +
+            "    if(c[0]===" + JsBridgeQueue.OP_SCROLL_TO + ")window.scrollTo(0,c[1]);" +
+            "    else if(c[0]===" + JsBridgeQueue.OP_SCROLL_BY + ")window.scrollBy(0,c[1]);" +
+            // insertText edits at the cursor and fires input events like typing would
+            "    else if(c[0]===" + JsBridgeQueue.OP_INPUT_TEXT + "){var e=document.activeElement;" +
+            "      if(e&&!document.execCommand('insertText',false,c[1])){e.value+=c[1];" +
+            "        e.dispatchEvent(new Event('input',{bubbles:true}));}}" +
+            "  }catch(x){}}" +
+            "}};" +
+            "})()";
+    }
+}
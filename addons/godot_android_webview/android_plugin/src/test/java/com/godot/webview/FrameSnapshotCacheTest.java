@@ -0,0 +1,117 @@
+package com.godot.webview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class FrameSnapshotCacheTest {
+
+    private static final int W = 64;
+    private static final int H = 48;
+    private static final int FRAME_BYTES = W * H * 4;
+
+    private static byte[] frame(long seed) {
+        byte[] rgba = new byte[FRAME_BYTES];
+        new Random(seed).nextBytes(rgba);
+        return rgba;
+    }
+
+    @Test
+    public void servesACopyOfTheStoredFrame() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(10 * FRAME_BYTES, 1);
+        byte[] page = frame(1);
+        cache.put("https://example.com/a", page, W, H);
+        byte[] original = page.clone();
+        page[0]++;
+
+        byte[] served = cache.get("https://example.com/a", W, H);
+        assertArrayEquals(original, served);
+        assertNotSame(served, cache.get("https://example.com/a", W, H));
+    }
+
+    @Test
+    public void fragmentsShareASnapshot() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(10 * FRAME_BYTES, 1);
+        cache.put("https://example.com/docs#intro", frame(2), W, H);
+        assertNotNull(cache.get("https://example.com/docs#usage", W, H));
+        assertNotNull(cache.get("https://example.com/docs", W, H));
+    }
+
+    @Test
+    public void leastRecentlyUsedPageIsEvictedFirst() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(2 * FRAME_BYTES, 1);
+        cache.put("a", frame(1), W, H);
+        cache.put("b", frame(2), W, H);
+        cache.get("a", W, H);
+        cache.put("c", frame(3), W, H);
+
+        assertNotNull(cache.get("a", W, H));
+        assertNull(cache.get("b", W, H));
+        assertNotNull(cache.get("c", W, H));
+        assertTrue(cache.statsJson().contains("\"evictions\":1"));
+    }
+
+    @Test
+    public void sizeMismatchAndBlankPagesAreNotServed() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(10 * FRAME_BYTES, 1);
+        cache.put("a", frame(1), W, H);
+        cache.put("about:blank", frame(2), W, H);
+
+        assertNull(cache.get("a", W * 2, H));
+        assertNull(cache.get("about:blank", W, H));
+    }
+
+    @Test
+    public void downscaledSnapshotsFitMorePagesAndKeepBlockColours() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(FRAME_BYTES / 2, 2);
+        // 2x2 blocks of one colour survive the box filter and replication exactly
+        byte[] blocks = new byte[FRAME_BYTES];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) {
+                int i = (y * W + x) * 4;
+                blocks[i] = (byte) (x / 2 * 7);
+                blocks[i + 1] = (byte) (y / 2 * 5);
+                blocks[i + 2] = (byte) 200;
+                blocks[i + 3] = (byte) 255;
+            }
+        }
+        cache.put("a", blocks, W, H);
+        cache.put("b", frame(2), W, H);
+
+        assertArrayEquals(blocks, cache.get("a", W, H));
+        assertEquals(FRAME_BYTES / 2, sizeBytes(cache));
+    }
+
+    @Test
+    public void oddSizesDownscaleAndComeBackAtFullSize() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(FRAME_BYTES, 4);
+        byte[] odd = new byte[13 * 7 * 4];
+        new Random(5).nextBytes(odd);
+        cache.put("odd", odd, 13, 7);
+        assertEquals(odd.length, cache.get("odd", 13, 7).length);
+    }
+
+    @Test
+    public void zeroBudgetDisablesTheCache() {
+        FrameSnapshotCache cache = new FrameSnapshotCache(0, 1);
+        cache.put("a", frame(1), W, H);
+        assertNull(cache.get("a", W, H));
+
+        cache.configure(FRAME_BYTES, 1);
+        cache.put("a", frame(1), W, H);
+        assertNotNull(cache.get("a", W, H));
+    }
+
+    private static long sizeBytes(FrameSnapshotCache cache) {
+        String stats = cache.statsJson();
+        int start = stats.indexOf("\"size_bytes\":") + "\"size_bytes\":".length();
+        return Long.parseLong(stats.substring(start, stats.indexOf(',', start)));
+    }
+}
@@ -0,0 +1,248 @@
+package com.godot.webview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.zip.Deflater;
+
+/** Round trips synthetic page-scroll sequences through FrameStreamEncoder/FrameStreamDecoder. */
+public class FrameStreamCodecTest {
+
+    private static final int WIDTH = 320;
+    private static final int HEIGHT = 240;
+    private static final int FRAME_MS = 33;
+
+    private final SyntheticPages pages = new SyntheticPages(WIDTH, HEIGHT, 2000, true, 7);
+
+    @Test
+    public void losslessAtHighBitrate() {
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+
+        byte[][] frames = pages.scrollSequence(30, 9);
+        for (int i = 0; i < frames.length; i++) {
+            List<byte[]> packets = encoder.encode(frames[i], i * FRAME_MS);
+            for (byte[] packet : packets) {
+                decoder.receive(packet);
+            }
+            assertEquals(0, encoder.quantShift());
+            assertArrayEquals("frame " + i, frames[i], decoder.toRgba(null));
+        }
+        assertFalse(decoder.needsKeyframe());
+    }
+
+    @Test
+    public void packetsRespectMtu() {
+        FrameStreamEncoder encoder = new FrameStreamEncoder(WIDTH, HEIGHT, FrameStreamEncoder.DEFAULT_TILE_SIZE, 500);
+        encoder.setTargetBitrate(100_000_000);
+        byte[][] frames = pages.scrollSequence(10, 30);
+        int packetCount = 0;
+        for (int i = 0; i < frames.length; i++) {
+            for (byte[] packet : encoder.encode(frames[i], i * FRAME_MS)) {
+                assertTrue(packet.length <= 500);
+                packetCount++;
+            }
+        }
+        assertTrue(packetCount > frames.length);
+    }
+
+    @Test
+    public void lostPacketWaitsForKeyframe() {
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        byte[][] frames = pages.scrollSequence(6, 40);
+
+        feed(decoder, encoder.encode(frames[0], 0));
+        assertFalse(decoder.needsKeyframe());
+
+        // Drop one packet of frame 1: frame 2 can no longer be applied
+        List<byte[]> lossy = encoder.encode(frames[1], FRAME_MS);
+        feed(decoder, lossy.subList(1, lossy.size()));
+        feed(decoder, encoder.encode(frames[2], 2 * FRAME_MS));
+        assertTrue(decoder.needsKeyframe());
+
+        encoder.requestKeyframe();
+        feed(decoder, encoder.encode(frames[3], 3 * FRAME_MS));
+        assertFalse(decoder.needsKeyframe());
+        assertArrayEquals(frames[3], decoder.toRgba(null));
+
+        feed(decoder, encoder.encode(frames[4], 4 * FRAME_MS));
+        assertArrayEquals(frames[4], decoder.toRgba(null));
+    }
+
+    @Test
+    public void joinedBatchesRoundTrip() {
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        byte[][] frames = pages.scrollSequence(3, 20);
+        for (int i = 0; i < frames.length; i++) {
+            byte[] joined = FrameStreamFormat.join(encoder.encode(frames[i], i * FRAME_MS));
+            assertTrue(decoder.receiveAll(joined));
+            assertArrayEquals(frames[i], decoder.toRgba(null));
+        }
+    }
+
+    @Test
+    public void staysNearTargetBitrate() {
+        int bitrate = 300_000;
+        FrameStreamEncoder encoder = newEncoder(bitrate);
+        encoder.setKeyframeInterval(0);
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+
+        int frameCount = 150;
+        byte[][] frames = pages.scrollSequence(frameCount, 6);
+        for (int i = 0; i < frameCount; i++) {
+            feed(decoder, encoder.encode(frames[i], i * FRAME_MS));
+        }
+        double seconds = frameCount * FRAME_MS / 1000.0;
+        // The bucket starts full, so allow one second of burst on top of the steady rate
+        double allowed = bitrate / 8.0 * (seconds + 1) * 1.1;
+        assertTrue("sent " + encoder.bytesSent() + " allowed " + allowed, encoder.bytesSent() <= allowed);
+        assertFalse(decoder.needsKeyframe());
+        assertTrue(encoder.quantShift() > 0);
+    }
+
+    @Test
+    public void scrollDetectionSavesBytes() {
+        // Same content, once scrolled and once replaced by unrelated frames of the same kind
+        SyntheticPages other = new SyntheticPages(WIDTH, HEIGHT, 2000, true, 99);
+        byte[][] scrolled = pages.scrollSequence(20, 12);
+        byte[][] unrelated = new byte[20][];
+        for (int i = 0; i < unrelated.length; i++) {
+            unrelated[i] = (i % 2 == 0 ? pages : other).frame(i * 97, null);
+        }
+        long scrollBytes = totalBytes(scrolled);
+        long unrelatedBytes = totalBytes(unrelated);
+        assertTrue(scrollBytes + " vs " + unrelatedBytes, scrollBytes * 3 < unrelatedBytes);
+    }
+
+    @Test
+    public void unchangedFramesSendNothing() {
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        byte[] frame = pages.frame(0, null);
+        assertFalse(encoder.encode(frame, 0).isEmpty());
+        assertTrue(encoder.encode(frame, FRAME_MS).isEmpty());
+    }
+
+    @Test
+    public void restartedSenderIsNotTakenForStalePackets() {
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        FrameStreamEncoder first = newEncoder(100_000_000);
+        byte[][] frames = pages.scrollSequence(40, 10);
+        for (int i = 0; i < 30; i++) {
+            feed(decoder, first.encode(frames[i], i * FRAME_MS));
+        }
+        // A keyframe is left half assembled, then the sender restarts from frame 0
+        first.requestKeyframe();
+        List<byte[]> partial = first.encode(frames[30], 30 * FRAME_MS);
+        assertTrue(partial.size() > 1);
+        feed(decoder, partial.subList(0, 1));
+
+        FrameStreamEncoder restarted = newEncoder(100_000_000);
+        feed(decoder, restarted.encode(frames[31], 31 * FRAME_MS));
+        assertArrayEquals(frames[31], decoder.toRgba(null));
+
+        // Another half-assembled keyframe; a replacement encoder (e.g. after a resize) continues
+        // the numbering, so its frames are newer and replace it at once
+        restarted.requestKeyframe();
+        feed(decoder, restarted.encode(frames[32], 32 * FRAME_MS).subList(0, 1));
+        FrameStreamEncoder resized = newEncoder(100_000_000);
+        resized.setNextFrameNumber(restarted.nextFrameNumber());
+        feed(decoder, resized.encode(frames[33], 33 * FRAME_MS));
+        assertArrayEquals(frames[33], decoder.toRgba(null));
+        assertFalse(decoder.needsKeyframe());
+    }
+
+    @Test
+    public void oversizedFramesAreDropped() {
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        assertFalse(feedAll(decoder, hostileFrame(0xFFFF, 0xFFFF, 32, new byte[64], 1)));
+        assertFalse(feedAll(decoder, hostileFrame(16384, 16384, 32, new byte[64], 2)));
+        assertFalse(feedAll(decoder, hostileFrame(FrameStreamFormat.MAX_DIMENSION + 1, 64, 32, new byte[64], 3)));
+        assertEquals(0, decoder.width());
+        assertTrue(decoder.needsKeyframe());
+    }
+
+    @Test
+    public void unknownTileSizesAreDropped() {
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        assertFalse(feedAll(decoder, hostileFrame(64, 64, 0, new byte[64], 1)));
+        assertFalse(feedAll(decoder, hostileFrame(64, 64, 4, new byte[64], 2)));
+        assertEquals(0, decoder.width());
+    }
+
+    @Test
+    public void deflateBombIsDropped() {
+        FrameStreamDecoder decoder = new FrameStreamDecoder();
+        // 64 MB of zeros deflate to ~64 KB; a 64x64 frame holds at most ~12 KB of tiles
+        assertFalse(feedAll(decoder, hostileFrame(64, 64, 32, new byte[64 * 1024 * 1024], 1)));
+        assertTrue(decoder.needsKeyframe());
+
+        // The decoder still works afterwards
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        byte[] frame = pages.frame(0, null);
+        feed(decoder, encoder.encode(frame, 0));
+        assertArrayEquals(frame, decoder.toRgba(null));
+    }
+
+    /** Packets of a keyframe with the given header fields and raw (uncompressed) tile payload. */
+    private static List<byte[]> hostileFrame(int width, int height, int tileSize, byte[] payload, int frameNumber) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(payload);
+        deflater.finish();
+        byte[] body = new byte[payload.length / 100 + 1024];
+        int bodyLength = 0;
+        while (!deflater.finished()) {
+            if (bodyLength == body.length) {
+                body = java.util.Arrays.copyOf(body, body.length * 2);
+            }
+            bodyLength += deflater.deflate(body, bodyLength, body.length - bodyLength);
+        }
+        deflater.end();
+
+        byte[] frame = new byte[FrameStreamFormat.FRAME_HEADER_BYTES + bodyLength];
+        frame[0] = FrameStreamFormat.VERSION;
+        frame[1] = FrameStreamFormat.TYPE_KEY;
+        FrameStreamFormat.putInt(frame, 2, frameNumber);
+        FrameStreamFormat.putShort(frame, 6, width);
+        FrameStreamFormat.putShort(frame, 8, height);
+        frame[10] = (byte) tileSize;
+        FrameStreamFormat.putShort(frame, 14, 1);
+        System.arraycopy(body, 0, frame, FrameStreamFormat.FRAME_HEADER_BYTES, bodyLength);
+        return FrameStreamFormat.packetize(frame, frame.length, frameNumber, FrameStreamEncoder.DEFAULT_MTU);
+    }
+
+    private static boolean feedAll(FrameStreamDecoder decoder, List<byte[]> packets) {
+        boolean completed = false;
+        for (byte[] packet : packets) {
+            completed |= decoder.receive(packet);
+        }
+        return completed;
+    }
+
+    private long totalBytes(byte[][] frames) {
+        FrameStreamEncoder encoder = newEncoder(100_000_000);
+        for (int i = 0; i < frames.length; i++) {
+            encoder.encode(frames[i], i * FRAME_MS);
+        }
+        return encoder.bytesSent();
+    }
+
+    private static FrameStreamEncoder newEncoder(int bitrate) {
+        FrameStreamEncoder encoder = new FrameStreamEncoder(WIDTH, HEIGHT,
+            FrameStreamEncoder.DEFAULT_TILE_SIZE, FrameStreamEncoder.DEFAULT_MTU);
+        encoder.setTargetBitrate(bitrate);
+        return encoder;
+    }
+
+    private static void feed(FrameStreamDecoder decoder, List<byte[]> packets) {
+        for (byte[] packet : packets) {
+            decoder.receive(packet);
+        }
+    }
+}
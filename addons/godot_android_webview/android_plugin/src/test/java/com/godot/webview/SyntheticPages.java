@@ -0,0 +1,109 @@
+package com.godot.webview;
+
+import java.util.Random;
+
+/**
+ * Deterministic stand-in for captured WebView frames: a tall page with a fixed header bar,
+ * text-like lines and optional photo-like blocks, viewed through a window at a scroll offset.
+ * Shared by the frame stream tests and the JMH benchmarks.
+ */
+final class SyntheticPages {
+
+    private static final int HEADER_HEIGHT = 48;
+
+    private final int width;
+    private final int height;
+    private final int pageHeight;
+    private final int[] page;
+
+    /** @param images whether to add noisy image blocks (hard to compress) between the text */
+    SyntheticPages(int width, int height, int pageHeight, boolean images, long seed) {
+        this.width = width;
+        this.height = height;
+        this.pageHeight = pageHeight;
+        this.page = new int[width * pageHeight];
+        render(images, new Random(seed));
+    }
+
+    int width() {
+        return width;
+    }
+
+    int height() {
+        return height;
+    }
+
+    int maxScroll() {
+        return pageHeight - height;
+    }
+
+    /** The RGBA8 viewport at {@code scrollY}, with the header pinned to the top like a sticky nav bar. */
+    byte[] frame(int scrollY, byte[] target) {
+        byte[] out = target != null && target.length == width * height * 4 ? target : new byte[width * height * 4];
+        int scroll = Math.max(0, Math.min(maxScroll(), scrollY));
+        for (int y = 0; y < height; y++) {
+            int source = y < HEADER_HEIGHT ? y : y + scroll;
+            for (int x = 0, o = y * width * 4; x < width; x++, o += 4) {
+                int p = page[source * width + x];
+                out[o] = (byte) (p >> 16);
+                out[o + 1] = (byte) (p >> 8);
+                out[o + 2] = (byte) p;
+                out[o + 3] = (byte) 0xFF;
+            }
+        }
+        return out;
+    }
+
+    /** Frames of a smooth scroll from the top, {@code step} pixels per frame. */
+    byte[][] scrollSequence(int frames, int step) {
+        byte[][] sequence = new byte[frames][];
+        for (int i = 0; i < frames; i++) {
+            sequence[i] = frame((i * step) % Math.max(1, maxScroll()), null);
+        }
+        return sequence;
+    }
+
+    private void render(boolean images, Random random) {
+        fill(0, 0, width, pageHeight, 0xFFFFFF);
+        fill(0, 0, width, HEADER_HEIGHT, 0x2B579A);
+        fill(16, 14, 180, 20, 0xFFFFFF);
+
+        int y = HEADER_HEIGHT + 24;
+        while (y < pageHeight - 40) {
+            if (images && random.nextInt(6) == 0) {
+                int blockHeight = 120 + random.nextInt(120);
+                int blockWidth = Math.min(width - 48, 240 + random.nextInt(Math.max(1, width / 2)));
+                for (int by = y; by < Math.min(pageHeight, y + blockHeight); by++) {
+                    for (int bx = 24; bx < 24 + blockWidth; bx++) {
+                        int base = 0x40 + (bx * 3 + by) % 0x80;
+                        page[by * width + bx] = (base + random.nextInt(24)) << 16
+                            | (base / 2 + random.nextInt(24)) << 8 | (0x60 + random.nextInt(24));
+                    }
+                }
+                y += blockHeight + 24;
+                continue;
+            }
+            // A line of "words": dark glyph-sized boxes with anti-aliased grey edges
+            int x = 24;
+            int lineEnd = width - 24 - random.nextInt(width / 3);
+            while (x < lineEnd) {
+                int word = 12 + random.nextInt(60);
+                for (int gx = x; gx < Math.min(lineEnd, x + word); gx += 7) {
+                    int glyphHeight = 8 + random.nextInt(4);
+                    fill(gx, y + 12 - glyphHeight, 5, glyphHeight, 0x222222);
+                    fill(gx + 5, y + 12 - glyphHeight, 1, glyphHeight, 0x999999);
+                }
+                x += word + 8;
+            }
+            y += random.nextInt(8) == 0 ? 40 : 22;
+        }
+    }
+
+    private void fill(int x, int y, int w, int h, int rgb) {
+        for (int row = Math.max(0, y); row < Math.min(pageHeight, y + h); row++) {
+            for (int col = Math.max(0, x); col < Math.min(width, x + w); col++) {
+                page[row * width + col] = rgb;
+            }
+        }
+    }
+}
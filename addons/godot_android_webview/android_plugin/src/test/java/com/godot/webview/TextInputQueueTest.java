@@ -0,0 +1,194 @@
+package com.godot.webview;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class TextInputQueueTest {
+
+    /** Records the calls it receives. */
+    private static final class RecordingSink implements TextInputQueue.Sink {
+        final List<String> calls = new ArrayList<>();
+
+        @Override public void commitText(String text) { calls.add("commit:" + text); }
+        @Override public void setComposingText(String text) { calls.add("compose:" + text); }
+        @Override public void finishComposingText() { calls.add("finish"); }
+        @Override public void deleteSurroundingText(int before, int after) { calls.add("delete:" + before + "," + after); }
+        @Override public void setSelection(int start, int end) { calls.add("select:" + start + "," + end); }
+        @Override public void sendKey(int keyCode, int metaState) { calls.add("key:" + keyCode + "," + metaState); }
+    }
+
+    /**
+     * A text field with a selection and a composing region, edited like an InputConnection
+     * would; deletes count code points.
+     */
+    private static final class Field implements TextInputQueue.Sink {
+        final StringBuilder text = new StringBuilder();
+        int selStart = 0;
+        int selEnd = 0;
+        int composeStart = -1;
+        int composeEnd = -1;
+
+        private void replace(String value, boolean composing) {
+            int start = composeStart >= 0 ? composeStart : selStart;
+            int end = composeStart >= 0 ? composeEnd : selEnd;
+            text.replace(start, end, value);
+            selStart = selEnd = start + value.length();
+            composeStart = composing ? start : -1;
+            composeEnd = composing ? selEnd : -1;
+        }
+
+        @Override public void commitText(String value) { replace(value, false); }
+        @Override public void setComposingText(String value) { replace(value, true); }
+        @Override public void finishComposingText() { composeStart = composeEnd = -1; }
+
+        @Override
+        public void deleteSurroundingText(int before, int after) {
+            composeStart = composeEnd = -1;
+            int afterEnd = selEnd;
+            for (int i = 0; i < after && afterEnd < text.length(); i++) {
+                afterEnd += Character.charCount(text.codePointAt(afterEnd));
+            }
+            text.delete(selEnd, afterEnd);
+            int beforeStart = selStart;
+            for (int i = 0; i < before && beforeStart > 0; i++) {
+                beforeStart -= Character.charCount(text.codePointBefore(beforeStart));
+            }
+            text.delete(beforeStart, selStart);
+            selEnd -= selStart - beforeStart;
+            selStart = beforeStart;
+        }
+
+        @Override
+        public void setSelection(int start, int end) {
+            composeStart = composeEnd = -1;
+            selStart = Math.max(0, Math.min(start, text.length()));
+            selEnd = Math.max(selStart, Math.min(end, text.length()));
+        }
+
+        @Override public void sendKey(int keyCode, int metaState) { }
+
+        String state() {
+            return text + "|" + selStart + "," + selEnd + "|" + composeStart + "," + composeEnd;
+        }
+    }
+
+    @Test
+    public void fastTypingReachesThePageAsOneCommit() {
+        TextInputQueue queue = new TextInputQueue();
+        for (char c : "hello world".toCharArray()) {
+            queue.commitText(String.valueOf(c), 0);
+        }
+        RecordingSink sink = new RecordingSink();
+
+        assertEquals(1, queue.apply(sink, 0));
+        assertEquals(List.of("commit:hello world"), sink.calls);
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.statsJson().contains("\"keystrokes\":11,\"batches\":1,\"edits\":1"));
+    }
+
+    @Test
+    public void backspaceTrimsPendingTextByWholeCharacters() {
+        TextInputQueue queue = new TextInputQueue();
+        queue.commitText("cat", 0);
+        queue.deleteSurroundingText(1, 0, 0);
+        queue.commitText("r", 0);
+        queue.commitText("😀", 0);
+        queue.deleteSurroundingText(1, 0, 0);
+        queue.deleteSurroundingText(4, 0, 0);
+        queue.deleteSurroundingText(0, 2, 0);
+        RecordingSink sink = new RecordingSink();
+
+        queue.apply(sink, 0);
+        assertEquals(List.of("commit:", "delete:1,2"), sink.calls);
+    }
+
+    @Test
+    public void compositionKeepsOnlyItsLatestTextAndACommitReplacesIt() {
+        TextInputQueue queue = new TextInputQueue();
+        queue.setComposingText("n", 0);
+        queue.setComposingText("ni", 0);
+        queue.setComposingText("nih", 0);
+        RecordingSink sink = new RecordingSink();
+        queue.apply(sink, 0);
+        assertEquals(List.of("compose:nih"), sink.calls);
+
+        queue.setComposingText("niha", 0);
+        queue.commitText("你好", 0);
+        queue.setSelection(0, 1, 0);
+        queue.setSelection(1, 2, 0);
+        queue.sendKey(66, 0, 0);
+        sink.calls.clear();
+        queue.apply(sink, 0);
+        assertEquals(List.of("commit:你好", "select:1,2", "key:66,0"), sink.calls);
+    }
+
+    @Test
+    public void batchedEditsLeaveTheFieldAsOneByOneEditsWould() {
+        Random random = new Random(5);
+        String[] words = {"a", "b", "xy", "é", "😀", "hello "};
+        for (int round = 0; round < 200; round++) {
+            TextInputQueue queue = new TextInputQueue();
+            Field direct = new Field();
+            for (int i = 0; i < 30; i++) {
+                TextInputQueue single = new TextInputQueue();
+                switch (random.nextInt(6)) {
+                    case 0:
+                    case 1: {
+                        String word = words[random.nextInt(words.length)];
+                        queue.commitText(word, 0);
+                        single.commitText(word, 0);
+                        break;
+                    }
+                    case 2: {
+                        int before = random.nextInt(3);
+                        int after = random.nextInt(2);
+                        queue.deleteSurroundingText(before, after, 0);
+                        single.deleteSurroundingText(before, after, 0);
+                        break;
+                    }
+                    case 3: {
+                        String word = words[random.nextInt(words.length)];
+                        queue.setComposingText(word, 0);
+                        single.setComposingText(word, 0);
+                        break;
+                    }
+                    case 4:
+                        queue.finishComposingText(0);
+                        single.finishComposingText(0);
+                        break;
+                    default: {
+                        int start = random.nextInt(8);
+                        int end = start + random.nextInt(3);
+                        queue.setSelection(start, end, 0);
+                        single.setSelection(start, end, 0);
+                        break;
+                    }
+                }
+                single.apply(direct, 0);
+            }
+            Field batched = new Field();
+            queue.apply(batched, 0);
+            assertEquals(direct.state(), batched.state());
+        }
+    }
+
+    @Test
+    public void latencyIsMeasuredPerKeystroke() {
+        TextInputQueue queue = new TextInputQueue();
+        queue.commitText("a", 0);
+        queue.commitText("b", 1_000_000);
+        queue.deleteSurroundingText(1, 0, 2_000_000);
+        queue.apply(new RecordingSink(), 4_000_000);
+
+        String stats = queue.statsJson();
+        assertTrue(stats, stats.contains("\"latency_p50_ms\":3.000"));
+        assertTrue(stats, stats.contains("\"latency_max_ms\":4.000"));
+        assertTrue(stats, stats.contains("\"pending\":0"));
+    }
+}
@@ -0,0 +1,309 @@
+package com.godot.webview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Exercises WebResourceCache against a local HTTP stand-in. */
+public class WebResourceCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String origin;
+    private final Map<String, byte[]> bodies = new HashMap<>();
+    private final Map<String, String> etags = new HashMap<>();
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final Map<String, Map<String, String>> extraHeaders = new HashMap<>();
+    private final Map<String, String> redirects = new HashMap<>();
+    private volatile String lastCookie;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.incrementAndGet();
+            lastCookie = exchange.getRequestHeaders().getFirst("Cookie");
+            if (redirects.containsKey(path)) {
+                exchange.getResponseHeaders().add("Location", redirects.get(path));
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = bodies.get(path);
+            if (body == null) {
+                byte[] notFound = "not found".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/plain");
+                exchange.sendResponseHeaders(404, notFound.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(notFound);
+                }
+                return;
+            }
+            for (Map.Entry<String, String> header : extraHeaders.getOrDefault(path, Collections.emptyMap()).entrySet()) {
+                exchange.getResponseHeaders().add(header.getKey(), header.getValue());
+            }
+            String etag = etags.get(path);
+            exchange.getResponseHeaders().add("Content-Type", "application/javascript; charset=utf-8");
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModifiedResponses.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    exchange.close();
+                    return;
+                }
+            } else {
+                exchange.getResponseHeaders().add("Cache-Control", "max-age=3600");
+            }
+            fullResponses.incrementAndGet();
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        origin = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private WebResourceCache newCache(long maxBytes) throws IOException {
+        return new WebResourceCache(new File(folder.getRoot(), "cache"), maxBytes, new String[] {origin});
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] bytes(int size) {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (i * 31);
+        }
+        return data;
+    }
+
+    @Test
+    public void freshEntryIsServedWithoutNetwork() throws IOException {
+        bodies.put("/app.js", "console.log(1)".getBytes(StandardCharsets.UTF_8));
+        WebResourceCache cache = newCache(1 << 20);
+
+        WebResourceCache.Response first = cache.get(origin + "/app.js", Collections.emptyMap());
+        assertFalse(first.fromCache);
+        assertEquals("application/javascript", first.mimeType);
+        assertEquals("utf-8", first.encoding);
+        read(first.body);
+
+        WebResourceCache.Response second = cache.get(origin + "/app.js", Collections.emptyMap());
+        assertTrue(second.fromCache);
+        assertArrayEquals(bodies.get("/app.js"), read(second.body));
+        assertEquals(1, fullResponses.get());
+        assertTrue(cache.statsJson().contains("\"hit_ratio\":0.500"));
+    }
+
+    @Test
+    public void etagRevalidationServesBodyFromDisk() throws IOException {
+        bodies.put("/bundle.js", bytes(10_000));
+        etags.put("/bundle.js", "\"v1\"");
+        WebResourceCache cache = newCache(1 << 20);
+
+        read(cache.get(origin + "/bundle.js", Collections.emptyMap()).body);
+        WebResourceCache.Response revalidated = cache.get(origin + "/bundle.js", Collections.emptyMap());
+
+        assertTrue(revalidated.fromCache);
+        assertArrayEquals(bodies.get("/bundle.js"), read(revalidated.body));
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+        assertTrue(cache.statsJson().contains("\"bytes_saved\":10000"));
+    }
+
+    @Test
+    public void changedEtagReplacesEntry() throws IOException {
+        bodies.put("/bundle.js", bytes(100));
+        etags.put("/bundle.js", "\"v1\"");
+        WebResourceCache cache = newCache(1 << 20);
+        read(cache.get(origin + "/bundle.js", Collections.emptyMap()).body);
+
+        bodies.put("/bundle.js", bytes(200));
+        etags.put("/bundle.js", "\"v2\"");
+        assertEquals(200, read(cache.get(origin + "/bundle.js", Collections.emptyMap()).body).length);
+        assertEquals(200, cache.sizeBytes());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() throws IOException {
+        for (String name : new String[] {"/a.js", "/b.js", "/c.js", "/d.js", "/e.js"}) {
+            bodies.put(name, bytes(240));
+        }
+        WebResourceCache cache = newCache(1_000);
+
+        for (String name : new String[] {"/a.js", "/b.js", "/c.js", "/d.js", "/a.js", "/e.js"}) {
+            read(cache.get(origin + name, null).body);
+        }
+
+        assertEquals(4, cache.entryCount());
+        assertTrue(cache.get(origin + "/a.js", null).fromCache);
+        assertFalse(cache.get(origin + "/b.js", null).fromCache);
+    }
+
+    @Test
+    public void oversizedBodiesAreServedButNotKept() throws IOException {
+        bodies.put("/huge.bin", bytes(600));
+        WebResourceCache cache = newCache(1_000);
+
+        assertEquals(600, read(cache.get(origin + "/huge.bin", null).body).length);
+        assertEquals(0, cache.entryCount());
+    }
+
+    @Test
+    public void largeBodiesAreServedFromMappedFiles() throws IOException {
+        byte[] blob = bytes((int) WebResourceCache.MMAP_THRESHOLD_BYTES * 2);
+        bodies.put("/font.woff2", blob);
+        WebResourceCache cache = newCache(16L << 20);
+
+        read(cache.get(origin + "/font.woff2", null).body);
+        WebResourceCache.Response cached = cache.get(origin + "/font.woff2", null);
+        assertTrue(cached.fromCache);
+        assertArrayEquals(blob, read(cached.body));
+    }
+
+    @Test
+    public void indexSurvivesReopen() throws IOException {
+        bodies.put("/app.js", bytes(50));
+        read(newCache(1 << 20).get(origin + "/app.js", null).body);
+
+        WebResourceCache reopened = newCache(1 << 20);
+        assertEquals(1, reopened.entryCount());
+        assertTrue(reopened.get(origin + "/app.js", null).fromCache);
+    }
+
+    @Test
+    public void otherOriginsAreNotIntercepted() throws IOException {
+        WebResourceCache cache = newCache(1 << 20);
+        assertNull(cache.get("https://example.com/app.js", null));
+        assertFalse(cache.isAllowed("http://127.0.0.1:1/app.js"));
+    }
+
+    @Test
+    public void seededEntriesAreServedOffline() throws IOException {
+        WebResourceCache cache = newCache(1 << 20);
+        String manifest = origin + "/static/vendor.abc123.js\tvendor.js\ttext/javascript\n";
+        int seeded = cache.seedFromManifest(
+            new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)),
+            path -> new ByteArrayInputStream(bytes(64)));
+        server.stop(0);
+
+        assertEquals(1, seeded);
+        WebResourceCache.Response response = cache.get(origin + "/static/vendor.abc123.js", null);
+        assertNotNull(response);
+        assertEquals(64, read(response.body).length);
+    }
+
+    @Test
+    public void onlyStaticResourcesAreIntercepted() throws IOException {
+        bodies.put("/api/items", bytes(10));
+        WebResourceCache cache = newCache(1 << 20);
+
+        assertNull(cache.get(origin + "/api/items", null));
+        assertNull(cache.get(origin + "/items.json?page=2", null));
+        assertEquals(0, requests.get());
+        assertTrue(WebResourceCache.isStaticResource(origin + "/static/app.min.js?v=3"));
+        assertFalse(WebResourceCache.isStaticResource(origin + "/v1.2/users"));
+    }
+
+    @Test
+    public void errorsArePassedThroughWithoutASecondRequest() throws IOException {
+        WebResourceCache cache = newCache(1 << 20);
+
+        WebResourceCache.Response response = cache.get(origin + "/missing.png", null);
+        assertEquals(404, response.status);
+        assertEquals("text/plain", response.mimeType);
+        assertEquals("not found", new String(read(response.body), StandardCharsets.UTF_8));
+        assertEquals(1, requests.get());
+        assertEquals(0, cache.entryCount());
+    }
+
+    @Test
+    public void pageCookiesAreSentAndNewOnesReturned() throws IOException {
+        bodies.put("/avatar.png", bytes(20));
+        extraHeaders.put("/avatar.png", Collections.singletonMap("Set-Cookie", "seen=1; Path=/"));
+        WebResourceCache cache = newCache(1 << 20);
+
+        WebResourceCache.Response response = cache.get(origin + "/avatar.png",
+            Collections.singletonMap("Cookie", "ignored=1"), "session=abc");
+        assertEquals("session=abc", lastCookie);
+        assertEquals(Collections.singletonList("seen=1; Path=/"), response.setCookies);
+        read(response.body);
+        // A response that sets cookies is specific to this session
+        assertEquals(0, cache.entryCount());
+    }
+
+    @Test
+    public void privateAndVaryingResponsesAreNotKept() throws IOException {
+        bodies.put("/private.js", bytes(30));
+        extraHeaders.put("/private.js", Collections.singletonMap("Cache-Control", "private, max-age=60"));
+        bodies.put("/negotiated.css", bytes(30));
+        extraHeaders.put("/negotiated.css", Collections.singletonMap("Vary", "Cookie"));
+        bodies.put("/plain.css", bytes(30));
+        extraHeaders.put("/plain.css", Collections.singletonMap("Vary", "Accept-Encoding"));
+        WebResourceCache cache = newCache(1 << 20);
+
+        for (String path : new String[] {"/private.js", "/negotiated.css", "/plain.css"}) {
+            assertEquals(30, read(cache.get(origin + path, null).body).length);
+        }
+        assertEquals(1, cache.entryCount());
+        assertTrue(cache.get(origin + "/plain.css", null).fromCache);
+    }
+
+    @Test
+    public void redirectsAreLeftToTheWebView() throws IOException {
+        bodies.put("/v2/logo.svg", bytes(40));
+        redirects.put("/logo.svg", origin + "/v2/logo.svg");
+        WebResourceCache cache = newCache(1 << 20);
+
+        assertNull(cache.get(origin + "/logo.svg", null));
+        assertNull(cache.get(origin + "/logo.svg", null));
+        assertEquals(1, requests.get());
+        assertEquals(0, cache.entryCount());
+    }
+}
@@ -437,7 +437,7 @@ func update_local_player_transform(head_pos: Vector3, head_rot: Vector3,
 			}
 			if not local_player_info.avatar_visuals.is_empty():
 				packet["avs"] = _avatar_visuals_to_dict(local_player_info.avatar_visuals)
-			_livekit_wrapper.send_json_packet(packet, LIVEKIT_TOPIC_REP_TRANSFORM, false)
+			_livekit_wrapper.publish_json_state("transform", packet, LIVEKIT_TOPIC_REP_TRANSFORM)
 			return
 
 		var binary_data = var_to_bytes(transform_data)
@@ -1052,7 +1052,7 @@ func update_grabbed_object(object_id: String, pos: Vector3, rot: Quaternion, sca
 		elif scale is Dictionary: packet["scale"] = scale
 		if rel_pos is Vector3: packet["rel_pos"] = _vec3_to_dict(rel_pos)
 		if rel_rot is Quaternion: packet["rel_rot"] = _quat_to_dict(rel_rot)
-		_livekit_wrapper.send_json_packet(packet, LIVEKIT_TOPIC_REP_OBJECT, false)
+		_livekit_wrapper.publish_json_state("obj/%s" % object_id, packet, LIVEKIT_TOPIC_REP_OBJECT)
 		return
 
 	# Fallback path: Nakama match relay
@@ -0,0 +1,384 @@
+package com.jvastola.physicshand.livekit
+
+import java.io.ByteArrayOutputStream
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.util.BitSet
+import java.util.Locale
+import java.util.zip.DataFormatException
+import java.util.zip.Deflater
+import java.util.zip.Inflater
+
+/**
+ * Compression and chunking for large reliable payloads.
+ *
+ * Sender: when [enabled], reliable payloads of at least [thresholdBytes] are zlib-compressed
+ * (with the shared [setDictionary] when one is set, and only when it actually shrinks them)
+ * and split by [encode] into packets of at most [chunkBytes]. The session sends them
+ * interleaved with other topics' traffic on [TOPIC], paced to [maxKbps] when that is above
+ * zero; later reliable packets on the same topic are held until the message is out.
+ *
+ * Receiver: [receive] always understands chunks, whether or not it sends them itself.
+ * Chunks are reassembled per sender and message id. Memory is bounded: a message may not
+ * exceed [maxMessageBytes] either encoded or decompressed, incomplete messages share
+ * [maxPendingBytes] (the oldest is evicted first) and are dropped after [timeoutNanos].
+ * A chunk count the message size cannot need is malformed, so a header alone cannot make it
+ * allocate more than the message itself. Senders refuse payloads above [maxMessageBytes].
+ *
+ * Chunk: `u8 version, u8 flags, varint message id, varint index, varint count,
+ * varint offset, varint encoded length, varint original length, topic` then body bytes.
+ * Flags bit 0 marks a compressed body; a dictionary is recorded in the zlib header itself.
+ */
+internal class BulkChannel(
+    private val clock: () -> Long = System::nanoTime,
+    private val maxMessageBytes: Int = MAX_MESSAGE_BYTES,
+    private val maxPendingBytes: Int = MAX_PENDING_BYTES,
+    private val timeoutNanos: Long = TIMEOUT_NANOS
+) {
+
+    class Message(val topic: String, val data: ByteArray)
+
+    private class Assembly(
+        val key: String,
+        val topic: String,
+        val compressed: Boolean,
+        val originalLength: Int,
+        val body: ByteArray,
+        val count: Int,
+        val reservedBytes: Long,
+        val startedNanos: Long
+    ) {
+        val received = BitSet(count)
+    }
+
+    @Volatile
+    var enabled = false
+
+    @Volatile
+    var thresholdBytes = DEFAULT_THRESHOLD_BYTES
+
+    @Volatile
+    var chunkBytes = DEFAULT_CHUNK_BYTES
+        set(value) {
+            field = value.coerceAtLeast(MIN_CHUNK_BYTES)
+        }
+
+    @Volatile
+    var maxKbps = 0
+
+    private val deflater = Deflater(Deflater.DEFAULT_COMPRESSION)
+    private val inflater = Inflater()
+    private var dictionary: ByteArray? = null
+    private var nextMessageId = 0
+    private var nextSendNanos = 0L
+
+    // Insertion order doubles as age order for eviction
+    private val assemblies = LinkedHashMap<String, Assembly>()
+    private var pendingBytes = 0L
+
+    private var sentMessages = 0L
+    private var sentChunks = 0L
+    private var originalBytesSent = 0L
+    private var encodedBytesSent = 0L
+    private var receivedMessages = 0L
+    private var timedOut = 0L
+    private var evicted = 0L
+    private var rejected = 0L
+    private var refused = 0L
+    private var malformed = 0L
+    private var missingDictionary = 0L
+
+    fun accepts(size: Int, reliability: LiveKitTransport.Reliability): Boolean =
+        enabled && reliability == LiveKitTransport.Reliability.RELIABLE && size >= thresholdBytes
+
+    /**
+     * False (and counted as refused) for payloads above [maxMessageBytes]: receivers with the
+     * same limit would drop them after the whole message had been sent.
+     */
+    @Synchronized
+    fun admit(size: Int): Boolean {
+        if (size <= maxMessageBytes) {
+            return true
+        }
+        refused++
+        return false
+    }
+
+    /**
+     * Preset dictionary for compression, e.g. representative JSON of our packet schemas with the
+     * most common strings last. Both sides must set the same bytes; empty clears it.
+     */
+    @Synchronized
+    fun setDictionary(bytes: ByteArray) {
+        dictionary = if (bytes.isEmpty()) null else bytes.copyOf()
+    }
+
+    /** Compresses [data] when that helps and splits it into chunks for [TOPIC]. */
+    @Synchronized
+    fun encode(data: ByteArray, topic: String): List<ByteArray> {
+        val compressed = compress(data)
+        val body = compressed ?: data
+        val flags = if (compressed != null) FLAG_COMPRESSED else 0
+        val messageId = nextMessageId++
+        val topicBytes = topic.toByteArray(Charsets.UTF_8)
+
+        val header = ByteArrayOutputStream(64)
+        val chunks = ArrayList<ByteArray>()
+        var offset = 0
+        var index = 0
+        // Header size depends on the varints; the bound keeps every chunk within chunkBytes
+        val bodyPerChunk = (chunkBytes - MAX_FIXED_HEADER_BYTES - topicBytes.size).coerceAtLeast(MIN_BODY_BYTES)
+        val count = maxOf(1, (body.size + bodyPerChunk - 1) / bodyPerChunk)
+        while (index < count) {
+            val length = minOf(bodyPerChunk, body.size - offset)
+            header.reset()
+            header.write(VERSION)
+            header.write(flags)
+            putVarint(header, messageId)
+            putVarint(header, index)
+            putVarint(header, count)
+            putVarint(header, offset)
+            putVarint(header, body.size)
+            putVarint(header, data.size)
+            putVarint(header, topicBytes.size)
+            header.write(topicBytes)
+            val chunk = ByteArray(header.size() + length)
+            val headerBytes = header.toByteArray()
+            System.arraycopy(headerBytes, 0, chunk, 0, headerBytes.size)
+            System.arraycopy(body, offset, chunk, headerBytes.size, length)
+            chunks.add(chunk)
+            offset += length
+            index++
+        }
+
+        sentMessages++
+        sentChunks += chunks.size
+        originalBytesSent += data.size
+        encodedBytesSent += body.size
+        return chunks
+    }
+
+    private fun compress(data: ByteArray): ByteArray? {
+        deflater.reset()
+        dictionary?.let { deflater.setDictionary(it) }
+        deflater.setInput(data)
+        deflater.finish()
+        val out = ByteArray(data.size)
+        var length = 0
+        while (!deflater.finished()) {
+            if (length == out.size) {
+                // Not smaller than the input; send it as is
+                return null
+            }
+            length += deflater.deflate(out, length, out.size - length)
+        }
+        return out.copyOf(length)
+    }
+
+    /** Milliseconds to wait after sending a chunk of [bytes] to stay under [maxKbps]. */
+    @Synchronized
+    fun pacingDelayMs(bytes: Int): Long {
+        val kbps = maxKbps
+        if (kbps <= 0) {
+            return 0L
+        }
+        val now = clock()
+        nextSendNanos = maxOf(nextSendNanos, now) + bytes * 8_000_000L / kbps
+        return (nextSendNanos - now) / 1_000_000L
+    }
+
+    /** Adds a chunk from [identity]; returns the message once its last chunk is in. */
+    @Synchronized
+    fun receive(identity: String, chunk: ByteArray): Message? {
+        val now = clock()
+        expire(now)
+        try {
+            val buffer = ByteBuffer.wrap(chunk)
+            if (buffer.get().toInt() != VERSION) {
+                malformed++
+                return null
+            }
+            val flags = buffer.get().toInt()
+            val messageId = getVarint(buffer)
+            val index = getVarint(buffer)
+            val count = getVarint(buffer)
+            val offset = getVarint(buffer)
+            val encodedLength = getVarint(buffer)
+            val originalLength = getVarint(buffer)
+            val topic = String(getBytes(buffer), Charsets.UTF_8)
+            val length = buffer.remaining()
+
+            if (encodedLength > maxMessageBytes || originalLength > maxMessageBytes) {
+                rejected++
+                return null
+            }
+            require(index < count && offset + length <= encodedLength) { "Chunk out of bounds" }
+            // Every chunk but the last carries at least MIN_BODY_BYTES, which bounds the count
+            // (and the received-chunk bitset) by the message size
+            require(count <= maxOf(1, (encodedLength + MIN_BODY_BYTES - 1) / MIN_BODY_BYTES)) { "Too many chunks" }
+
+            val key = "$identity/$messageId"
+            var assembly = assemblies[key]
+            if (assembly == null) {
+                val bytes = encodedLength.toLong() + (count + 7) / 8
+                if (!reserve(bytes)) {
+                    rejected++
+                    return null
+                }
+                assembly = Assembly(key, topic, flags and FLAG_COMPRESSED != 0, originalLength, ByteArray(encodedLength), count, bytes, now)
+                assemblies[key] = assembly
+            }
+            require(index < assembly.count && offset + length <= assembly.body.size) { "Chunk does not match its message" }
+            buffer.get(assembly.body, offset, length)
+            assembly.received.set(index)
+            if (assembly.received.cardinality() < assembly.count) {
+                return null
+            }
+
+            remove(assembly)
+            val data = if (assembly.compressed) inflate(assembly.body, assembly.originalLength) else assembly.body
+            if (data == null) {
+                return null
+            }
+            receivedMessages++
+            return Message(assembly.topic, data)
+        } catch (_: BufferUnderflowException) {
+            malformed++
+        } catch (_: IllegalArgumentException) {
+            malformed++
+        } catch (_: IndexOutOfBoundsException) {
+            malformed++
+        }
+        return null
+    }
+
+    private fun inflate(body: ByteArray, originalLength: Int): ByteArray? {
+        inflater.reset()
+        inflater.setInput(body)
+        val out = ByteArray(originalLength)
+        var length = 0
+        try {
+            while (!inflater.finished()) {
+                val n = inflater.inflate(out, length, out.size - length)
+                length += n
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        val shared = dictionary
+                        if (shared == null) {
+                            missingDictionary++
+                            return null
+                        }
+                        inflater.setDictionary(shared)
+                    } else if (inflater.needsInput() || length == out.size) {
+                        break
+                    }
+                }
+            }
+        } catch (_: DataFormatException) {
+            malformed++
+            return null
+        } catch (_: IllegalArgumentException) {
+            // Wrong dictionary
+            missingDictionary++
+            return null
+        }
+        if (!inflater.finished() || length != originalLength) {
+            malformed++
+            return null
+        }
+        return out
+    }
+
+    /** Makes room for [bytes] of reassembly buffer by evicting the oldest messages. */
+    private fun reserve(bytes: Long): Boolean {
+        if (bytes > maxPendingBytes) {
+            return false
+        }
+        while (pendingBytes + bytes > maxPendingBytes) {
+            remove(assemblies.values.first())
+            evicted++
+        }
+        pendingBytes += bytes
+        return true
+    }
+
+    private fun remove(assembly: Assembly) {
+        assemblies.remove(assembly.key)
+        pendingBytes -= assembly.reservedBytes
+    }
+
+    private fun expire(now: Long) {
+        while (assemblies.isNotEmpty()) {
+            val oldest = assemblies.values.first()
+            if (now - oldest.startedNanos < timeoutNanos) {
+                return
+            }
+            remove(oldest)
+            timedOut++
+        }
+    }
+
+    @Synchronized
+    fun forgetSender(identity: String) {
+        val prefix = "$identity/"
+        assemblies.values.filter { it.key.startsWith(prefix) }.forEach { remove(it) }
+    }
+
+    @Synchronized
+    fun statsJson(): String = String.format(
+        Locale.US,
+        "{\"enabled\":%b,\"sent_messages\":%d,\"sent_chunks\":%d,\"original_bytes\":%d,\"encoded_bytes\":%d," +
+            "\"received_messages\":%d,\"pending_messages\":%d,\"pending_bytes\":%d,\"timed_out\":%d," +
+            "\"evicted\":%d,\"rejected\":%d,\"refused\":%d,\"malformed\":%d,\"missing_dictionary\":%d}",
+        enabled, sentMessages, sentChunks, originalBytesSent, encodedBytesSent, receivedMessages,
+        assemblies.size, pendingBytes, timedOut, evicted, rejected, refused, malformed, missingDictionary
+    )
+
+    companion object {
+        /** Reserved data topic; chunks on it reach `data_received` reassembled, on their own topic. */
+        const val TOPIC = "lk/bulk"
+        const val DEFAULT_THRESHOLD_BYTES = 1024
+        const val DEFAULT_CHUNK_BYTES = 8 * 1024
+        const val MIN_CHUNK_BYTES = 512
+        const val MAX_MESSAGE_BYTES = 16 * 1024 * 1024
+        const val MAX_PENDING_BYTES = 32 * 1024 * 1024
+        const val TIMEOUT_NANOS = 15_000_000_000L
+        private const val VERSION = 1
+        private const val FLAG_COMPRESSED = 1
+        // version + flags + six 5-byte varints + topic length varint
+        private const val MAX_FIXED_HEADER_BYTES = 2 + 6 * 5 + 5
+        private const val MIN_BODY_BYTES = 256
+
+        private fun putVarint(out: ByteArrayOutputStream, value: Int) {
+            var v = value
+            while (v and 0x7F.inv() != 0) {
+                out.write((v and 0x7F) or 0x80)
+                v = v ushr 7
+            }
+            out.write(v)
+        }
+
+        private fun getVarint(buffer: ByteBuffer): Int {
+            var value = 0
+            var shift = 0
+            while (shift < 35) {
+                val b = buffer.get().toInt()
+                value = value or ((b and 0x7F) shl shift)
+                if (b and 0x80 == 0) {
+                    require(value >= 0) { "Negative varint" }
+                    return value
+                }
+                shift += 7
+            }
+            throw IllegalArgumentException("Malformed varint")
+        }
+
+        private fun getBytes(buffer: ByteBuffer): ByteArray {
+            val length = getVarint(buffer)
+            require(length <= buffer.remaining()) { "Bad length $length" }
+            val out = ByteArray(length)
+            buffer.get(out)
+            return out
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.jvastola.physicshand.livekit
+
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.util.Locale
+import kotlin.math.abs
+
+/**
+ * Round-trip time and clock offset estimation over ping/pong data packets, and a session clock
+ * shared by everyone in the room.
+ *
+ * A ping carries the sender's send time t0. The peer answers with a pong carrying t0, its
+ * receive time t1 and its send time t2. The sender stamps t3 on arrival, so
+ * `rtt = (t3 - t0) - (t2 - t1)` and `offset = ((t1 - t0) + (t2 - t3)) / 2` (peer clock minus
+ * ours). Samples outside `0..MAX_RTT` are rejected. Each peer keeps the last [window] samples.
+ * Its offset is taken from the lowest-RTT sample, which has the least queueing asymmetry (the
+ * NTP clock filter). Its reported RTT is the window median, so a few delayed packets do not
+ * move it.
+ *
+ * The session clock is the monotonic clock of the participant with the smallest identity
+ * among us and the peers we have samples from; everyone converges on the same reference
+ * without an election. Small corrections are slewed at [SLEW_RATE] so the clock never runs
+ * backwards; errors over [STEP_NANOS] (first sync, reference change) are stepped.
+ */
+internal class ClockSync(
+    private val clock: () -> Long = System::nanoTime,
+    private val window: Int = WINDOW
+) {
+
+    private class Sample(val rttNanos: Long, val offsetNanos: Long)
+
+    private inner class Peer {
+        val samples = ArrayDeque<Sample>()
+        var jitterNanos = 0.0
+        var lastRttNanos = -1L
+        var rejected = 0L
+
+        fun add(sample: Sample) {
+            if (lastRttNanos >= 0) {
+                jitterNanos += (abs(sample.rttNanos - lastRttNanos) - jitterNanos) / 16.0
+            }
+            lastRttNanos = sample.rttNanos
+            samples.addLast(sample)
+            if (samples.size > window) {
+                samples.removeFirst()
+            }
+        }
+
+        fun offsetNanos(): Long = samples.minByOrNull { it.rttNanos }!!.offsetNanos
+
+        fun medianRttNanos(): Long {
+            val sorted = samples.map { it.rttNanos }.sorted()
+            return sorted[sorted.size / 2]
+        }
+
+        fun minRttNanos(): Long = samples.minOf { it.rttNanos }
+    }
+
+    private val peers = HashMap<String, Peer>()
+    private var appliedOffsetNanos = 0L
+    private var lastSlewNanos = 0L
+    private var clockStarted = false
+    private var reference = ""
+
+    /** A ping stamped with the current time, to broadcast on [TOPIC]. */
+    fun pingPacket(): ByteArray =
+        ByteBuffer.allocate(PING_BYTES).put(PING).putLong(clock()).array()
+
+    /**
+     * Handles a packet from [identity] on [TOPIC]. Returns the pong to send back to [identity]
+     * when it is a ping, and null otherwise.
+     */
+    fun receive(identity: String, packet: ByteArray): ByteArray? {
+        val arrival = clock()
+        try {
+            val buffer = ByteBuffer.wrap(packet)
+            when (buffer.get()) {
+                PING -> {
+                    val t0 = buffer.long
+                    return ByteBuffer.allocate(PONG_BYTES).put(PONG).putLong(t0).putLong(arrival).putLong(clock()).array()
+                }
+                PONG -> {
+                    val t0 = buffer.long
+                    val t1 = buffer.long
+                    val t2 = buffer.long
+                    addSample(identity, t0, t1, t2, arrival)
+                }
+            }
+        } catch (_: BufferUnderflowException) {
+        }
+        return null
+    }
+
+    @Synchronized
+    private fun addSample(identity: String, t0: Long, t1: Long, t2: Long, t3: Long) {
+        val peer = peers.getOrPut(identity) { Peer() }
+        val rtt = (t3 - t0) - (t2 - t1)
+        if (rtt < 0 || rtt > MAX_RTT_NANOS || t3 < t0) {
+            peer.rejected++
+            return
+        }
+        peer.add(Sample(rtt, ((t1 - t0) + (t2 - t3)) / 2))
+    }
+
+    @Synchronized
+    fun forgetPeer(identity: String) {
+        peers.remove(identity)
+    }
+
+    @Synchronized
+    fun reset() {
+        peers.clear()
+        clockStarted = false
+        appliedOffsetNanos = 0L
+        reference = ""
+    }
+
+    /** Ping sooner while some peer (or nobody yet) has too few samples for a stable estimate. */
+    @Synchronized
+    fun pingIntervalMs(): Long =
+        if (peers.isEmpty() || peers.values.any { it.samples.size < WARMUP_SAMPLES }) WARMUP_INTERVAL_MS else INTERVAL_MS
+
+    /** Median RTT to [identity] in milliseconds, or -1 before the first sample. */
+    @Synchronized
+    fun rttMs(identity: String): Double {
+        val peer = peers[identity] ?: return -1.0
+        return if (peer.samples.isEmpty()) -1.0 else peer.medianRttNanos() / 1_000_000.0
+    }
+
+    /** Estimated clock of [identity] minus ours in milliseconds, or null before the first sample. */
+    @Synchronized
+    fun offsetMs(identity: String): Double? {
+        val peer = peers[identity] ?: return null
+        return if (peer.samples.isEmpty()) null else peer.offsetNanos() / 1_000_000.0
+    }
+
+    /** Session clock in nanoseconds: our monotonic clock moved onto the reference participant's. */
+    @Synchronized
+    fun sessionTimeNanos(localIdentity: String): Long {
+        val now = clock()
+        var ref = localIdentity
+        var target = 0L
+        for ((identity, peer) in peers) {
+            if (peer.samples.isNotEmpty() && (ref.isEmpty() || identity < ref)) {
+                ref = identity
+                target = peer.offsetNanos()
+            }
+        }
+        reference = ref
+
+        val error = target - appliedOffsetNanos
+        if (!clockStarted || abs(error) > STEP_NANOS) {
+            appliedOffsetNanos = target
+            clockStarted = true
+        } else {
+            val maxStep = ((now - lastSlewNanos) * SLEW_RATE).toLong()
+            appliedOffsetNanos += error.coerceIn(-maxStep, maxStep)
+        }
+        lastSlewNanos = now
+        return now + appliedOffsetNanos
+    }
+
+    fun sessionTimeMs(localIdentity: String): Double = sessionTimeNanos(localIdentity) / 1_000_000.0
+
+    @Synchronized
+    fun statsJson(): String {
+        val builder = StringBuilder()
+        builder.append("{\"reference\":\"").append(reference).append('"')
+        builder.append(",\"session_offset_ms\":").append(ms(appliedOffsetNanos))
+        builder.append(",\"peers\":{")
+        var first = true
+        for ((identity, peer) in peers) {
+            if (!first) {
+                builder.append(',')
+            }
+            first = false
+            builder.append('"').append(identity).append("\":{\"samples\":").append(peer.samples.size)
+            builder.append(",\"rejected\":").append(peer.rejected)
+            if (peer.samples.isNotEmpty()) {
+                builder.append(",\"rtt_ms\":").append(ms(peer.medianRttNanos()))
+                builder.append(",\"min_rtt_ms\":").append(ms(peer.minRttNanos()))
+                builder.append(",\"jitter_ms\":").append(ms(peer.jitterNanos.toLong()))
+                builder.append(",\"offset_ms\":").append(ms(peer.offsetNanos()))
+            }
+            builder.append('}')
+        }
+        builder.append("}}")
+        return builder.toString()
+    }
+
+    private fun ms(nanos: Long): String = String.format(Locale.US, "%.3f", nanos / 1_000_000.0)
+
+    companion object {
+        /** Reserved data topic; packets on it never reach `data_received`. */
+        const val TOPIC = "lk/time"
+        const val WINDOW = 16
+        const val WARMUP_SAMPLES = 5
+        const val WARMUP_INTERVAL_MS = 250L
+        const val INTERVAL_MS = 1_000L
+        const val MAX_RTT_NANOS = 5_000_000_000L
+        const val STEP_NANOS = 25_000_000L
+        const val SLEW_RATE = 0.05
+        private const val PING: Byte = 1
+        private const val PONG: Byte = 2
+        private const val PING_BYTES = 9
+        private const val PONG_BYTES = 25
+    }
+}
@@ -2,19 +2,11 @@ package com.jvastola.physicshand.livekit
 
 import android.os.Handler
 import android.os.Looper
-import io.livekit.android.*
-import io.livekit.android.events.*
-import io.livekit.android.room.*
-import io.livekit.android.room.track.*
-import io.livekit.android.room.participant.*
 import kotlinx.coroutines.*
-import livekit.org.webrtc.AudioTrackSink
 import org.godotengine.godot.Godot
 import org.godotengine.godot.plugin.GodotPlugin
 import org.godotengine.godot.plugin.SignalInfo
 import org.godotengine.godot.plugin.UsedByGodot
-import java.nio.ByteBuffer
-import java.nio.ByteOrder
 
 class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
 
@@ -22,21 +14,23 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
         const val PLUGIN_NAME = "GodotLiveKit"
     }
 
-    private var room: Room? = null
     private var scope = CoroutineScope(SupervisorJob() + Dispatchers.Main)
     private var isMuted: Boolean = false  // Track user's mute preference
     private val mainHandler = Handler(Looper.getMainLooper())
-    private var pcmSpatialAudioEnabled: Boolean = true
-
-    private data class RemoteAudioSinkBinding(
-        val participantIdentity: String,
-        val trackSid: String,
-        val track: RemoteAudioTrack,
-        val sink: AudioTrackSink
+    private var prepareJob: Job? = null
+    private var audioWarmed: Boolean = false
+    private var preResolvedUrl: String = ""
+    private var timeSyncJob: Job? = null
+
+    private val transport = LiveKitRoomTransport(scope)
+    private val session = LiveKitSession(
+        transport,
+        SignalEmitter { name, args -> emitSignal(name, *args) },
+        scope,
+        { mainHandler.post(it) },
+        { message, t -> android.util.Log.e("GodotLiveKit", message, t) }
     )
 
-    private val remoteAudioSinks = mutableMapOf<String, RemoteAudioSinkBinding>()
-
     override fun getPluginName(): String = PLUGIN_NAME
 
     override fun getPluginSignals(): Set<SignalInfo> {
@@ -47,21 +41,79 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
             SignalInfo("participant_left", String::class.java),
             SignalInfo("participant_metadata_changed", String::class.java, String::class.java),
             SignalInfo("data_received", String::class.java, ByteArray::class.java, String::class.java),
+            SignalInfo("state_received", String::class.java, String::class.java, ByteArray::class.java, String::class.java),
             SignalInfo("audio_frame", String::class.java, FloatArray::class.java),
             SignalInfo("track_subscribed", String::class.java, String::class.java),
             SignalInfo("track_unsubscribed", String::class.java, String::class.java),
             SignalInfo("audio_track_published"),
             SignalInfo("audio_track_unpublished"),
-            SignalInfo("error_occurred", String::class.java)
+            SignalInfo("error_occurred", String::class.java),
+            SignalInfo("join_timing", String::class.java)
         )
     }
 
+    /**
+     * Warm up everything that does not need a token: the Room object and its event listeners,
+     * the WebRTC factory / audio device (by creating and releasing a throwaway mic track) and
+     * the DNS entry of the signalling server. A later [connectToRoom] then only has to do the
+     * token handshake. Safe to call repeatedly; emits `join_timing` with the prepare phases.
+     */
+    @UsedByGodot
+    fun prepare(url: String) {
+        if (prepareJob?.isActive == true) {
+            return
+        }
+        prepareJob = scope.launch {
+            try {
+                prepareRoom(url, JoinPhaseTimer("prepare"))
+            } catch (e: CancellationException) {
+                throw e
+            } catch (e: Exception) {
+                android.util.Log.w("GodotLiveKit", "prepare failed (join will fall back to cold path): ${e.message}")
+            }
+        }
+    }
+
+    private suspend fun prepareRoom(url: String, timer: JoinPhaseTimer) {
+        val currentActivity = activity ?: return
+
+        if (transport.room == null) {
+            transport.createRoom(currentActivity)
+            timer.mark("room_create")
+        }
+
+        if (!audioWarmed) {
+            transport.warmAudio()
+            audioWarmed = true
+            timer.mark("audio_warm")
+        }
+
+        if (url.isNotEmpty() && url != preResolvedUrl) {
+            val host = try { java.net.URI(url).host } catch (_: Exception) { null }
+            if (!host.isNullOrEmpty()) {
+                withContext(Dispatchers.IO) {
+                    try {
+                        java.net.InetAddress.getAllByName(host)
+                    } catch (e: Exception) {
+                        android.util.Log.w("GodotLiveKit", "prepare: DNS pre-resolve of $host failed: ${e.message}")
+                    }
+                }
+                preResolvedUrl = url
+                timer.mark("dns_resolve")
+            }
+        }
+
+        android.util.Log.d("GodotLiveKit", "prepare done: ${timer.toJson()}")
+        emitSignal("join_timing", timer.toJson())
+    }
+
     @UsedByGodot
     fun connectToRoom(url: String, token: String) {
         android.util.Log.d("GodotLiveKit", "connectToRoom called: $url")
         scope.launch {
             try {
-                removeAllRemoteAudioSinks()
+                val timer = JoinPhaseTimer("join")
+                session.removeAllRemoteAudioSinks()
                 val currentActivity = activity
                 if (currentActivity == null) {
                     android.util.Log.e("GodotLiveKit", "Activity is null")
@@ -69,29 +121,36 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
                     return@launch
                 }
 
-                android.util.Log.d("GodotLiveKit", "Creating LiveKit room...")
-                // LK 2.x: Create room then connect
-                room = LiveKit.create(currentActivity)
-                android.util.Log.d("GodotLiveKit", "Room created, setting up listeners...")
-                
-                setupRoomListeners()
-                
+                // A prepare() still in flight finishes first so we don't create a second room.
+                prepareJob?.join()
+                timer.mark("prepare_wait")
+
+                if (!transport.hasIdleRoom) {
+                    // Cold path: prepare() was never called or the prepared room is unusable.
+                    android.util.Log.d("GodotLiveKit", "Creating LiveKit room (not prepared)...")
+                    transport.createRoom(currentActivity)
+                    audioWarmed = false
+                    timer.mark("room_create")
+                }
+
                 android.util.Log.d("GodotLiveKit", "Connecting to room...")
-                room?.connect(
-                    url,
-                    token
-                )
+                transport.connect(url, token)
+                timer.mark("signal_connect")
                 android.util.Log.d("GodotLiveKit", "Connected successfully!")
-                
+                emitSignal("room_connected")
+                startTimeSync()
+
                 // Only enable mic if not muted
                 if (!isMuted) {
-                    room?.localParticipant?.setMicrophoneEnabled(true)
+                    transport.setMicrophoneEnabled(true)
+                    timer.mark("mic_publish")
                     android.util.Log.d("GodotLiveKit", "connectToRoom: Mic enabled (not muted) with HQ settings")
                 } else {
                     android.util.Log.d("GodotLiveKit", "connectToRoom: Mic disabled (user muted)")
                 }
-                
-                emitSignal("room_connected")
+
+                android.util.Log.d("GodotLiveKit", "join done: ${timer.toJson()}")
+                emitSignal("join_timing", timer.toJson())
             } catch (e: Exception) {
                 android.util.Log.e("GodotLiveKit", "Connection error: ${e.javaClass.name}: ${e.message}", e)
                 emitSignal("error_occurred", "${e.javaClass.simpleName}: ${e.message ?: "Connection failed"}")
@@ -105,30 +164,73 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
     @UsedByGodot
     fun disconnectFromRoom() {
         scope.launch {
-            removeAllRemoteAudioSinks()
-            room?.disconnect()
-            room = null
+            prepareJob?.cancel()
+            prepareJob = null
+            stopTimeSync()
+            session.removeAllRemoteAudioSinks()
+            transport.disconnect()
+            // The warmed audio stack belongs to the room component; the next prepare() rebuilds it.
+            audioWarmed = false
             emitSignal("room_disconnected")
         }
     }
 
     @UsedByGodot
-    fun isRoomConnected(): Boolean = room?.state == Room.State.CONNECTED
+    fun isRoomConnected(): Boolean = transport.isConnected
 
     @UsedByGodot
     fun get_local_identity(): String {
-        return room?.localParticipant?.identity?.value ?: ""
+        return transport.localIdentity
     }
 
     @UsedByGodot
     fun getParticipantIdentities(): String {
-        val identities = mutableListOf<String>()
-        room?.remoteParticipants?.keys?.forEach { identities.add(it.value) }
-        return identities.joinToString(",")
+        return transport.remoteIdentities.joinToString(",")
+    }
+
+    @UsedByGodot
+    fun isPcmSpatialAudioEnabled(): Boolean = session.pcmSpatialAudioEnabled
+
+    /**
+     * Start appending incoming PCM, data packets and room events to a traffic log for offline
+     * replay ([TrafficReplayer]). A relative [path] is placed in the app's external files dir,
+     * where `adb pull` can reach it. Replaces a recording that is already running.
+     */
+    @UsedByGodot
+    fun startTrafficRecording(path: String, maxMegabytes: Int): Boolean {
+        stopTrafficRecording()
+        return try {
+            var file = java.io.File(path)
+            if (!file.isAbsolute) {
+                val dir = activity?.getExternalFilesDir(null) ?: activity?.filesDir ?: return false
+                file = java.io.File(dir, path)
+            }
+            file.parentFile?.mkdirs()
+            val maxBytes = if (maxMegabytes > 0) maxMegabytes * 1024L * 1024L else TrafficRecorder.DEFAULT_MAX_BYTES
+            session.recorder = TrafficRecorder(file, maxBytes)
+            android.util.Log.d("GodotLiveKit", "Recording traffic to ${file.absolutePath}")
+            true
+        } catch (e: Exception) {
+            android.util.Log.e("GodotLiveKit", "startTrafficRecording failed: ${e.message}", e)
+            false
+        }
+    }
+
+    /** Stops the recording and returns its final stats as JSON (`{}` when none was running). */
+    @UsedByGodot
+    fun stopTrafficRecording(): String {
+        val recorder = session.recorder ?: return "{}"
+        session.recorder = null
+        try {
+            recorder.close()
+        } catch (e: Exception) {
+            android.util.Log.w("GodotLiveKit", "Closing traffic log failed: ${e.message}")
+        }
+        return recorder.statsJson()
     }
 
     @UsedByGodot
-    fun isPcmSpatialAudioEnabled(): Boolean = pcmSpatialAudioEnabled
+    fun getTrafficRecordingStats(): String = session.recorder?.statsJson() ?: "{}"
 
     @UsedByGodot
     fun sendData(data: ByteArray, topic: String) {
@@ -137,24 +239,12 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
 
     @UsedByGodot
     fun sendDataReliable(data: ByteArray, topic: String) {
-        scope.launch {
-            room?.localParticipant?.publishData(
-                data,
-                DataPublishReliability.RELIABLE,
-                topic
-            )
-        }
+        session.sendData(data, topic, LiveKitTransport.Reliability.RELIABLE)
     }
 
     @UsedByGodot
     fun sendDataUnreliable(data: ByteArray, topic: String) {
-        scope.launch {
-            room?.localParticipant?.publishData(
-                data,
-                DataPublishReliability.LOSSY,
-                topic
-            )
-        }
+        session.sendData(data, topic, LiveKitTransport.Reliability.LOSSY)
     }
 
     @UsedByGodot
@@ -164,57 +254,99 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
 
     @UsedByGodot
     fun sendDataToReliable(data: ByteArray, identity: String, topic: String) {
-        publishDataToIdentity(data, identity, topic, DataPublishReliability.RELIABLE)
+        session.sendDataTo(data, identity, topic, LiveKitTransport.Reliability.RELIABLE)
     }
 
     @UsedByGodot
     fun sendDataToUnreliable(data: ByteArray, identity: String, topic: String) {
-        publishDataToIdentity(data, identity, topic, DataPublishReliability.LOSSY)
+        session.sendDataTo(data, identity, topic, LiveKitTransport.Reliability.LOSSY)
     }
 
+    /**
+     * Latest-value-wins lossy update for [key]: only the newest pending value per key is sent,
+     * and receivers drop stale or reordered ones (see [StateChannel]). Receivers get
+     * `state_received(identity, key, data, topic)`.
+     */
     @UsedByGodot
-    fun setAudioEnabled(enabled: Boolean) {
-        isMuted = !enabled  // Remember user preference
-        android.util.Log.d("GodotLiveKit", "setAudioEnabled: $enabled, isMuted: $isMuted")
-        scope.launch {
-            room?.localParticipant?.setMicrophoneEnabled(enabled)
+    fun publishState(key: String, data: ByteArray, topic: String) {
+        session.publishState(key, data, topic)
+    }
+
+    @UsedByGodot
+    fun getStateChannelStats(): String = session.stateChannelStatsJson()
+
+    /**
+     * Opt in to compressing and chunking reliable payloads of at least [thresholdBytes] (see
+     * [BulkChannel]). Chunks are at most [chunkBytes] and, when [maxKbps] > 0, paced to that
+     * rate. Receiving chunked payloads works regardless; they arrive as `data_received`.
+     * A threshold or chunk size <= 0 keeps the current one.
+     */
+    @UsedByGodot
+    fun configureLargePayloads(enabled: Boolean, thresholdBytes: Int, chunkBytes: Int, maxKbps: Int) {
+        val bulk = session.bulkChannel
+        if (thresholdBytes > 0) {
+            bulk.thresholdBytes = thresholdBytes
         }
+        if (chunkBytes > 0) {
+            bulk.chunkBytes = chunkBytes
+        }
+        bulk.maxKbps = maxOf(0, maxKbps)
+        bulk.enabled = enabled
     }
 
-    private fun publishDataToIdentity(
-        data: ByteArray,
-        identity: String,
-        topic: String,
-        reliability: DataPublishReliability
-    ) {
-        scope.launch {
-            val participant = room?.remoteParticipants?.values?.find { it.identity?.value == identity }
-            if (participant != null && participant.identity != null) {
-                room?.localParticipant?.publishData(
-                    data,
-                    reliability,
-                    topic,
-                    listOf(participant.identity!!)
-                )
+    /** Shared zlib dictionary for large payloads; every participant must set the same bytes. */
+    @UsedByGodot
+    fun setCompressionDictionary(dictionary: ByteArray) {
+        session.bulkChannel.setDictionary(dictionary)
+    }
+
+    @UsedByGodot
+    fun getLargePayloadStats(): String = session.bulkChannelStatsJson()
+
+    private fun startTimeSync() {
+        stopTimeSync()
+        timeSyncJob = scope.launch {
+            while (isActive && transport.isConnected) {
+                delay(session.sendTimeSyncPing())
             }
         }
     }
 
+    private fun stopTimeSync() {
+        timeSyncJob?.cancel()
+        timeSyncJob = null
+        session.clockSync.reset()
+    }
+
+    /**
+     * Room-wide clock in milliseconds, agreed on over data channel pings (see [ClockSync]).
+     * Only differences are meaningful; it runs at the rate of the local monotonic clock.
+     */
     @UsedByGodot
-    fun setParticipantVolume(identity: String, volume: Double) {
-        if (pcmSpatialAudioEnabled) {
-            // In PCM spatial mode, remote audio is rendered by Godot's AudioStreamPlayer3D.
-            return
+    fun getSessionTimeMs(): Double = session.sessionTimeMs()
+
+    /** Median round-trip time to [identity] in milliseconds, or -1 if not measured yet. */
+    @UsedByGodot
+    fun getPeerRttMs(identity: String): Double = session.clockSync.rttMs(identity)
+
+    /** Time sync reference plus per-peer rtt/min_rtt/jitter/offset in milliseconds, as JSON. */
+    @UsedByGodot
+    fun getTimeSyncStats(): String = session.clockSync.statsJson()
+
+    @UsedByGodot
+    fun setAudioEnabled(enabled: Boolean) {
+        isMuted = !enabled  // Remember user preference
+        android.util.Log.d("GodotLiveKit", "setAudioEnabled: $enabled, isMuted: $isMuted")
+        scope.launch {
+            transport.setMicrophoneEnabled(enabled)
         }
+    }
+
+    @UsedByGodot
+    fun setParticipantVolume(identity: String, volume: Double) {
         // LiveKit volume range is 0.0 to 10.0 (1.0 = normal)
         android.util.Log.d("GodotLiveKit", "setParticipantVolume: $identity -> $volume")
-        scope.launch {
-            val participant = room?.remoteParticipants?.values?.find { it.identity?.value == identity }
-            // audioTrackPublications returns List<Pair<TrackPublication, Track?>>
-            participant?.audioTrackPublications?.forEach { (_, track) ->
-                (track as? io.livekit.android.room.track.RemoteAudioTrack)?.setVolume(volume)
-            }
-        }
+        session.setParticipantVolume(identity, volume)
     }
 
     @UsedByGodot
@@ -228,50 +360,13 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
     @UsedByGodot
     fun setMetadata(metadata: String) {
         scope.launch {
-            room?.localParticipant?.updateMetadata(metadata)
-        }
-    }
-
-    private suspend fun setupRoomListeners() {
-        room?.let { r ->
-            scope.launch {
-                r.events.collect { event ->
-                    when (event) {
-                        is RoomEvent.ParticipantConnected -> emitSignal("participant_joined", event.participant.identity?.value ?: "")
-                        is RoomEvent.ParticipantDisconnected -> {
-                            val participantIdentity = event.participant.identity?.value ?: ""
-                            removeRemoteAudioSinksForParticipant(participantIdentity)
-                            emitSignal("participant_left", participantIdentity)
-                        }
-                        is RoomEvent.ParticipantMetadataChanged -> emitSignal("participant_metadata_changed", event.participant.identity?.value ?: "", event.participant.metadata ?: "")
-                        is RoomEvent.TrackSubscribed -> {
-                            val participantIdentity = event.participant.identity?.value ?: ""
-                            val trackSid = event.track.sid ?: ""
-                            emitSignal("track_subscribed", participantIdentity, trackSid)
-                            val remoteAudioTrack = event.track as? RemoteAudioTrack
-                            if (remoteAudioTrack != null) {
-                                attachRemoteAudioSink(participantIdentity, remoteAudioTrack, trackSid)
-                            }
-                        }
-                        is RoomEvent.TrackUnsubscribed -> {
-                            val participantIdentity = event.participant.identity?.value ?: ""
-                            val trackSid = event.track.sid ?: ""
-                            removeRemoteAudioSink(trackSid)
-                            emitSignal("track_unsubscribed", participantIdentity, trackSid)
-                        }
-                        is RoomEvent.DataReceived -> {
-                            emitSignal("data_received", event.participant?.identity?.value ?: "", event.data, event.topic ?: "")
-                        }
-                        else -> {}
-                    }
-                }
-            }
+            transport.updateMetadata(metadata)
         }
     }
 
     override fun onMainPause() {
         scope.launch {
-            room?.localParticipant?.setMicrophoneEnabled(false)
+            transport.setMicrophoneEnabled(false)
         }
         super.onMainPause()
     }
@@ -280,7 +375,7 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
         scope.launch {
             // Only re-enable mic if user hasn't muted
             if (!isMuted) {
-                room?.localParticipant?.setMicrophoneEnabled(true)
+                transport.setMicrophoneEnabled(true)
                 android.util.Log.d("GodotLiveKit", "onMainResume: Re-enabling mic (not muted)")
             } else {
                 android.util.Log.d("GodotLiveKit", "onMainResume: Keeping mic disabled (muted)")
@@ -293,15 +388,16 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
         // IMPORTANT: Don't launch coroutines during destruction - ART may already be shutting down
         // Safely disconnect by canceling scope first, then cleaning up room reference
         try {
-            removeAllRemoteAudioSinks()
+            session.removeAllRemoteAudioSinks()
+            stopTrafficRecording()
             // Cancel all pending coroutines first to prevent any callbacks
             scope.cancel()
-            
+
             // Synchronously clean up room reference without launching new coroutines
             // The LiveKit SDK will handle cleanup when the activity is destroyed
-            val currentRoom = room
-            room = null
-            
+            val currentRoom = transport.detach()
+            audioWarmed = false
+
             // Try to disconnect if room is still valid, but don't wait for it
             // and don't emit signals since Godot may also be shutting down
             currentRoom?.let { r ->
@@ -324,109 +420,7 @@ class GodotLiveKitPlugin(godot: Godot) : GodotPlugin(godot) {
         } catch (t: Throwable) {
             android.util.Log.w("GodotLiveKit", "Throwable during plugin destroy: ${t.message}")
         }
-        
-        super.onMainDestroy()
-    }
-
-    private fun attachRemoteAudioSink(participantIdentity: String, remoteAudioTrack: RemoteAudioTrack, trackSid: String) {
-        if (!pcmSpatialAudioEnabled) {
-            return
-        }
 
-        val effectiveSid = if (trackSid.isNotEmpty()) trackSid else "${participantIdentity}_${remoteAudioTrack.hashCode()}"
-        removeRemoteAudioSink(effectiveSid)
-
-        val sink = AudioTrackSink { audioData, bitsPerSample, _sampleRate, channelCount, numberOfFrames, _timestamp ->
-            if (!pcmSpatialAudioEnabled) {
-                return@AudioTrackSink
-            }
-            if (bitsPerSample != 16 || channelCount <= 0 || numberOfFrames <= 0) {
-                return@AudioTrackSink
-            }
-            val frame = pcm16ToStereoFloat(audioData, channelCount, numberOfFrames)
-            if (frame.isEmpty()) {
-                return@AudioTrackSink
-            }
-            mainHandler.post {
-                emitSignal("audio_frame", participantIdentity, frame)
-            }
-        }
-
-        try {
-            remoteAudioTrack.addSink(sink)
-            // Prevent non-spatial Android mixer output (we render spatialized audio in Godot).
-            remoteAudioTrack.setVolume(0.0)
-            remoteAudioSinks[effectiveSid] = RemoteAudioSinkBinding(participantIdentity, effectiveSid, remoteAudioTrack, sink)
-        } catch (e: Exception) {
-            android.util.Log.e("GodotLiveKit", "Failed to attach audio sink for $effectiveSid: ${e.message}", e)
-            pcmSpatialAudioEnabled = false
-        } catch (t: Throwable) {
-            android.util.Log.e("GodotLiveKit", "Failed to attach audio sink (throwable) for $effectiveSid: ${t.message}", t)
-            pcmSpatialAudioEnabled = false
-        }
-    }
-
-    private fun removeRemoteAudioSink(trackSid: String) {
-        if (trackSid.isEmpty()) {
-            return
-        }
-        val binding = remoteAudioSinks.remove(trackSid) ?: return
-        try {
-            binding.track.removeSink(binding.sink)
-        } catch (_: Exception) {
-        } catch (_: Throwable) {
-        }
-    }
-
-    private fun removeRemoteAudioSinksForParticipant(participantIdentity: String) {
-        if (participantIdentity.isEmpty()) {
-            return
-        }
-        val trackSids = remoteAudioSinks.values
-            .filter { it.participantIdentity == participantIdentity }
-            .map { it.trackSid }
-            .toList()
-        trackSids.forEach { removeRemoteAudioSink(it) }
-    }
-
-    private fun removeAllRemoteAudioSinks() {
-        val trackSids = remoteAudioSinks.keys.toList()
-        trackSids.forEach { removeRemoteAudioSink(it) }
-        remoteAudioSinks.clear()
-    }
-
-    private fun pcm16ToStereoFloat(audioData: ByteBuffer, channelCount: Int, numberOfFrames: Int): FloatArray {
-        if (channelCount <= 0 || numberOfFrames <= 0) {
-            return FloatArray(0)
-        }
-
-        val bytesPerSample = 2
-        val requiredBytes = numberOfFrames * channelCount * bytesPerSample
-        val source = audioData.duplicate().order(ByteOrder.LITTLE_ENDIAN)
-        if (source.remaining() < requiredBytes) {
-            return FloatArray(0)
-        }
-
-        val output = FloatArray(numberOfFrames * 2)
-        var outputIndex = 0
-
-        for (frameIndex in 0 until numberOfFrames) {
-            val left = source.short.toInt() / 32768.0f
-            val right = if (channelCount > 1) {
-                source.short.toInt() / 32768.0f
-            } else {
-                left
-            }
-
-            // Skip channels beyond stereo if present.
-            for (extraChannel in 2 until channelCount) {
-                source.short
-            }
-
-            output[outputIndex++] = left.coerceIn(-1.0f, 1.0f)
-            output[outputIndex++] = right.coerceIn(-1.0f, 1.0f)
-        }
-
-        return output
+        super.onMainDestroy()
     }
 }
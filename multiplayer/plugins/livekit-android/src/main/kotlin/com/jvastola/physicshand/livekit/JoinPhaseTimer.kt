@@ -0,0 +1,39 @@
+package com.jvastola.physicshand.livekit
+
+import java.util.Locale
+
+/**
+ * Measures how long each phase of preparing / joining a room takes.
+ *
+ * Phases are recorded in order; each duration covers the time since the previous mark
+ * (or since construction for the first one). The result is reported to Godot as a flat
+ * JSON object of milliseconds so it can be merged straight into the wrapper metrics.
+ */
+internal class JoinPhaseTimer(
+    private val stage: String,
+    private val clock: () -> Long = System::nanoTime
+) {
+    private val startNanos = clock()
+    private var lastMarkNanos = startNanos
+    private val phases = LinkedHashMap<String, Long>()
+
+    fun mark(phase: String) {
+        val now = clock()
+        phases[phase] = (phases[phase] ?: 0L) + (now - lastMarkNanos)
+        lastMarkNanos = now
+    }
+
+    fun totalMillis(): Double = (lastMarkNanos - startNanos) / 1_000_000.0
+
+    fun toJson(): String {
+        val builder = StringBuilder()
+        builder.append("{\"stage\":\"").append(stage).append('"')
+        phases.forEach { (phase, nanos) ->
+            builder.append(",\"").append(phase).append("_ms\":")
+                .append(String.format(Locale.US, "%.2f", nanos / 1_000_000.0))
+        }
+        builder.append(",\"total_ms\":").append(String.format(Locale.US, "%.2f", totalMillis()))
+        builder.append('}')
+        return builder.toString()
+    }
+}
@@ -0,0 +1,169 @@
+package com.jvastola.physicshand.livekit
+
+import android.content.Context
+import io.livekit.android.*
+import io.livekit.android.events.*
+import io.livekit.android.room.*
+import io.livekit.android.room.track.*
+import io.livekit.android.room.participant.*
+import kotlinx.coroutines.*
+import livekit.org.webrtc.AudioTrackSink
+
+/**
+ * [LiveKitTransport] backed by a real LiveKit [Room].
+ *
+ * The room is created explicitly with [createRoom] so the plugin can do it ahead of time
+ * (see `GodotLiveKitPlugin.prepare`). Events are collected on [scope].
+ */
+internal class LiveKitRoomTransport(private val scope: CoroutineScope) : LiveKitTransport {
+
+    var room: Room? = null
+        private set
+
+    private var listener: LiveKitTransport.Listener? = null
+    private var eventsJob: Job? = null
+
+    /** True when a room exists that has not been connected yet (or was cleanly disconnected). */
+    val hasIdleRoom: Boolean
+        get() = room?.state == Room.State.DISCONNECTED
+
+    override val isConnected: Boolean
+        get() = room?.state == Room.State.CONNECTED
+
+    override val localIdentity: String
+        get() = room?.localParticipant?.identity?.value ?: ""
+
+    override val remoteIdentities: Collection<String>
+        get() = room?.remoteParticipants?.keys?.map { it.value } ?: emptyList()
+
+    override fun hasRemoteParticipant(identity: String): Boolean =
+        room?.remoteParticipants?.containsKey(Participant.Identity(identity)) == true
+
+    override fun setListener(listener: LiveKitTransport.Listener?) {
+        this.listener = listener
+    }
+
+    fun createRoom(context: Context) {
+        eventsJob?.cancel()
+        val newRoom = LiveKit.create(context)
+        room = newRoom
+        eventsJob = scope.launch {
+            newRoom.events.collect { event -> dispatch(event) }
+        }
+    }
+
+    /**
+     * Creating a local audio track forces the PeerConnectionFactory, the audio device module
+     * and the capture source to initialise; the track itself is not needed afterwards.
+     */
+    fun warmAudio() {
+        room?.localParticipant?.createAudioTrack()?.dispose()
+    }
+
+    override suspend fun connect(url: String, token: String) {
+        val currentRoom = room ?: throw IllegalStateException("Room has not been created")
+        currentRoom.connect(url, token)
+    }
+
+    override suspend fun disconnect() {
+        room?.disconnect()
+        eventsJob?.cancel()
+        eventsJob = null
+        room = null
+    }
+
+    /** Drops the room reference without suspending; returns it so the caller can tear it down. */
+    fun detach(): Room? {
+        eventsJob?.cancel()
+        eventsJob = null
+        val currentRoom = room
+        room = null
+        return currentRoom
+    }
+
+    override suspend fun setMicrophoneEnabled(enabled: Boolean) {
+        room?.localParticipant?.setMicrophoneEnabled(enabled)
+    }
+
+    override suspend fun updateMetadata(metadata: String) {
+        room?.localParticipant?.updateMetadata(metadata)
+    }
+
+    override suspend fun publishData(
+        data: ByteArray,
+        reliability: LiveKitTransport.Reliability,
+        topic: String,
+        destinationIdentities: List<String>?
+    ) {
+        val localParticipant = room?.localParticipant ?: return
+        val lkReliability = when (reliability) {
+            LiveKitTransport.Reliability.RELIABLE -> DataPublishReliability.RELIABLE
+            LiveKitTransport.Reliability.LOSSY -> DataPublishReliability.LOSSY
+        }
+        if (destinationIdentities == null) {
+            localParticipant.publishData(data, lkReliability, topic)
+        } else {
+            localParticipant.publishData(
+                data,
+                lkReliability,
+                topic,
+                destinationIdentities.map { Participant.Identity(it) }
+            )
+        }
+    }
+
+    override suspend fun setParticipantVolume(identity: String, volume: Double) {
+        val participant = room?.remoteParticipants?.get(Participant.Identity(identity))
+        // audioTrackPublications returns List<Pair<TrackPublication, Track?>>
+        participant?.audioTrackPublications?.forEach { (_, track) ->
+            (track as? RemoteAudioTrack)?.setVolume(volume)
+        }
+    }
+
+    private fun dispatch(event: RoomEvent) {
+        val l = listener ?: return
+        when (event) {
+            is RoomEvent.ParticipantConnected -> l.onParticipantConnected(event.participant.identity?.value ?: "")
+            is RoomEvent.ParticipantDisconnected -> l.onParticipantDisconnected(event.participant.identity?.value ?: "")
+            is RoomEvent.ParticipantMetadataChanged -> l.onParticipantMetadataChanged(
+                event.participant.identity?.value ?: "",
+                event.participant.metadata ?: ""
+            )
+            is RoomEvent.TrackSubscribed -> l.onTrackSubscribed(
+                event.participant.identity?.value ?: "",
+                event.track.sid ?: "",
+                (event.track as? RemoteAudioTrack)?.let { RemoteAudioTrackSource(it) }
+            )
+            is RoomEvent.TrackUnsubscribed -> l.onTrackUnsubscribed(
+                event.participant.identity?.value ?: "",
+                event.track.sid ?: ""
+            )
+            is RoomEvent.DataReceived -> l.onDataReceived(
+                event.participant?.identity?.value ?: "",
+                event.data,
+                event.topic ?: ""
+            )
+            else -> {}
+        }
+    }
+
+    private class RemoteAudioTrackSource(private val track: RemoteAudioTrack) : RemoteAudioSource {
+        private val adapters = mutableMapOf<PcmSink, AudioTrackSink>()
+
+        override fun addSink(sink: PcmSink) {
+            val adapter = AudioTrackSink { audioData, bitsPerSample, sampleRate, channelCount, numberOfFrames, timestamp ->
+                sink.onData(audioData, bitsPerSample, sampleRate, channelCount, numberOfFrames, timestamp)
+            }
+            track.addSink(adapter)
+            adapters[sink] = adapter
+        }
+
+        override fun removeSink(sink: PcmSink) {
+            adapters.remove(sink)?.let { track.removeSink(it) }
+        }
+
+        override fun setVolume(volume: Double) {
+            track.setVolume(volume)
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import kotlinx.coroutines.yield
+import kotlin.coroutines.CoroutineContext
+
+/**
+ * Transport-independent core of [GodotLiveKitPlugin]: turns room events into Godot signals,
+ * owns the remote PCM sinks and routes outgoing data packets.
+ *
+ * Nothing in here touches Android or Godot classes directly, so the same code runs against
+ * [LiveKitRoomTransport] on device and against an in-memory fake room on a plain JVM.
+ */
+internal class LiveKitSession(
+    private val transport: LiveKitTransport,
+    private val emitter: SignalEmitter,
+    private val scope: CoroutineScope,
+    private val postToMain: (Runnable) -> Unit,
+    private val warn: (String, Throwable?) -> Unit = { _, _ -> }
+) : LiveKitTransport.Listener {
+
+    @Volatile
+    var pcmSpatialAudioEnabled: Boolean = true
+        private set
+
+    private data class RemoteAudioSinkBinding(
+        val participantIdentity: String,
+        val trackSid: String,
+        val source: RemoteAudioSource,
+        val sink: PcmSink
+    )
+
+    private val remoteAudioSinks = mutableMapOf<String, RemoteAudioSinkBinding>()
+
+    val remoteAudioSinkCount: Int
+        get() = remoteAudioSinks.size
+
+    private val stateChannel = StateChannel()
+
+    /** Opt-in compression and chunking of large reliable payloads; reassembly is always on. */
+    val bulkChannel = BulkChannel()
+
+    /**
+     * A queued reliable message: chunked and compressed when [bulk], sent as is otherwise.
+     * Chunks are encoded when the message reaches the head of its topic's queue.
+     */
+    private class OutgoingBulk(
+        val data: ByteArray,
+        val topic: String,
+        val destinations: List<String>?,
+        val bulk: Boolean
+    ) {
+        var chunks: List<ByteArray>? = null
+        var sent = 0
+    }
+
+    /** Per-topic FIFO of messages waiting behind a bulk message; a topic leaves when drained. */
+    private val bulkQueue = LinkedHashMap<String, ArrayDeque<OutgoingBulk>>()
+    private var bulkPumping = false
+
+    /** Where large payloads are compressed, off the (main-thread) session scope; tests run it inline. */
+    var bulkEncodeContext: CoroutineContext = Dispatchers.Default
+
+    /** Per-peer RTT / clock offset and the shared session clock, fed by pings on [ClockSync.TOPIC]. */
+    val clockSync = ClockSync()
+
+    /** When set, incoming traffic and outgoing packets are appended to this log. */
+    @Volatile
+    var recorder: TrafficRecorder? = null
+
+    init {
+        transport.setListener(this)
+    }
+
+    fun sendData(data: ByteArray, topic: String, reliability: LiveKitTransport.Reliability) {
+        recorder?.dataSent(data, topic, reliability, null)
+        if (queueBehindBulk(data, topic, null, reliability)) {
+            return
+        }
+        scope.launch {
+            transport.publishData(data, reliability, topic)
+        }
+    }
+
+    fun sendDataTo(data: ByteArray, identity: String, topic: String, reliability: LiveKitTransport.Reliability) {
+        recorder?.dataSent(data, topic, reliability, listOf(identity))
+        if (queueBehindBulk(data, topic, listOf(identity), reliability)) {
+            return
+        }
+        scope.launch {
+            if (transport.hasRemoteParticipant(identity)) {
+                transport.publishData(data, reliability, topic, listOf(identity))
+            }
+        }
+    }
+
+    /**
+     * Queues large reliable payloads for the bulk pump, and reliable messages on a topic that
+     * still has one pending behind it, so receivers see a topic's reliable messages in the
+     * order they were sent. Returns false when [data] can go out directly.
+     */
+    private fun queueBehindBulk(
+        data: ByteArray,
+        topic: String,
+        destinations: List<String>?,
+        reliability: LiveKitTransport.Reliability
+    ): Boolean {
+        if (reliability != LiveKitTransport.Reliability.RELIABLE) {
+            return false
+        }
+        val bulk = bulkChannel.accepts(data.size, reliability)
+        if (bulk && !bulkChannel.admit(data.size)) {
+            // Every receiver would drop it after it was sent in full
+            warn("Dropping ${data.size}-byte message on $topic: larger than receivers accept", null)
+            return true
+        }
+        val start = synchronized(bulkQueue) {
+            val pending = bulkQueue[topic]
+            if (!bulk && pending == null) {
+                return false
+            }
+            (pending ?: ArrayDeque<OutgoingBulk>().also { bulkQueue[topic] = it })
+                .addLast(OutgoingBulk(data, topic, destinations, bulk))
+            val idle = !bulkPumping
+            bulkPumping = true
+            idle
+        }
+        if (start) {
+            scope.launch { pumpBulk() }
+        }
+        return true
+    }
+
+    /**
+     * Sends queued chunks one at a time, round-robin across topics, and lets other queued
+     * sends run between chunks so a large payload never holds up small real-time packets.
+     * Within a topic, messages go out strictly one after the other. A message whose encoding
+     * or publishing fails is dropped, so the ones behind it still go out.
+     */
+    private suspend fun pumpBulk() {
+        var drained = false
+        try {
+            while (true) {
+                val queue: ArrayDeque<OutgoingBulk>
+                val message: OutgoingBulk
+                synchronized(bulkQueue) {
+                    val topic = bulkQueue.keys.firstOrNull()
+                    if (topic == null) {
+                        bulkPumping = false
+                        drained = true
+                        return
+                    }
+                    // This topic gets one turn, then waits behind the others
+                    queue = bulkQueue.remove(topic)!!
+                    bulkQueue[topic] = queue
+                    message = queue.first()
+                }
+                var pause = 0L
+                var done: Boolean
+                try {
+                    pause = sendNextPart(message)
+                    done = !message.bulk || message.sent == message.chunks!!.size
+                } catch (e: CancellationException) {
+                    throw e
+                } catch (e: Exception) {
+                    warn("Dropping ${message.data.size}-byte message on ${message.topic}: ${e.message}", e)
+                    done = true
+                }
+                if (done) {
+                    synchronized(bulkQueue) {
+                        queue.removeFirst()
+                        if (queue.isEmpty()) {
+                            bulkQueue.remove(message.topic)
+                        }
+                    }
+                }
+                if (pause > 0) {
+                    delay(pause)
+                } else {
+                    yield()
+                }
+            }
+        } finally {
+            if (!drained) {
+                // Cancelled; the next queued send starts a new pump
+                synchronized(bulkQueue) {
+                    bulkPumping = false
+                }
+            }
+        }
+    }
+
+    /** Publishes the next chunk of [message] (all of it when not bulk); returns the pacing pause. */
+    private suspend fun sendNextPart(message: OutgoingBulk): Long {
+        val destinations = message.destinations
+        val reachable = destinations == null || transport.hasRemoteParticipant(destinations[0])
+        if (!message.bulk) {
+            if (reachable) {
+                transport.publishData(message.data, LiveKitTransport.Reliability.RELIABLE, message.topic, destinations)
+            }
+            message.sent = 1
+            return 0L
+        }
+        val chunks = message.chunks
+            ?: withContext(bulkEncodeContext) { bulkChannel.encode(message.data, message.topic) }.also { message.chunks = it }
+        val chunk = chunks[message.sent++]
+        if (reachable) {
+            transport.publishData(chunk, LiveKitTransport.Reliability.RELIABLE, BulkChannel.TOPIC, destinations)
+        }
+        return bulkChannel.pacingDelayMs(chunk.size)
+    }
+
+    fun bulkChannelStatsJson(): String = bulkChannel.statsJson()
+
+    /**
+     * Publish the newest state of [key] (a player transform, a held object, ...) as a lossy
+     * update. Updates queued before the next flush replace each other, and receivers ignore
+     * anything older than what they applied; they get it as `state_received`.
+     */
+    fun publishState(key: String, data: ByteArray, topic: String) {
+        if (stateChannel.offer(key, topic, data)) {
+            scope.launch {
+                flushState()
+            }
+        }
+    }
+
+    private suspend fun flushState() {
+        for (packet in stateChannel.drainPackets()) {
+            recorder?.dataSent(packet, StateChannel.TOPIC, LiveKitTransport.Reliability.LOSSY, null)
+            transport.publishData(packet, LiveKitTransport.Reliability.LOSSY, StateChannel.TOPIC)
+        }
+    }
+
+    fun stateChannelStatsJson(): String = stateChannel.statsJson()
+
+    /** Broadcast a time sync ping; returns how long to wait before the next one. */
+    fun sendTimeSyncPing(): Long {
+        sendData(clockSync.pingPacket(), ClockSync.TOPIC, LiveKitTransport.Reliability.LOSSY)
+        return clockSync.pingIntervalMs()
+    }
+
+    fun sessionTimeMs(): Double = clockSync.sessionTimeMs(transport.localIdentity)
+
+    fun setParticipantVolume(identity: String, volume: Double) {
+        if (pcmSpatialAudioEnabled) {
+            // In PCM spatial mode, remote audio is rendered by Godot's AudioStreamPlayer3D.
+            return
+        }
+        scope.launch {
+            transport.setParticipantVolume(identity, volume)
+        }
+    }
+
+    override fun onParticipantConnected(identity: String) {
+        recorder?.participantJoined(identity)
+        emitter.emit("participant_joined", identity)
+    }
+
+    override fun onParticipantDisconnected(identity: String) {
+        recorder?.participantLeft(identity)
+        stateChannel.forgetSender(identity)
+        clockSync.forgetPeer(identity)
+        bulkChannel.forgetSender(identity)
+        removeRemoteAudioSinksForParticipant(identity)
+        emitter.emit("participant_left", identity)
+    }
+
+    override fun onParticipantMetadataChanged(identity: String, metadata: String) {
+        recorder?.metadataChanged(identity, metadata)
+        emitter.emit("participant_metadata_changed", identity, metadata)
+    }
+
+    override fun onTrackSubscribed(identity: String, trackSid: String, audio: RemoteAudioSource?) {
+        recorder?.trackSubscribed(identity, trackSid, audio != null)
+        emitter.emit("track_subscribed", identity, trackSid)
+        if (audio != null) {
+            attachRemoteAudioSink(identity, audio, trackSid)
+        }
+    }
+
+    override fun onTrackUnsubscribed(identity: String, trackSid: String) {
+        recorder?.trackUnsubscribed(identity, trackSid)
+        removeRemoteAudioSink(trackSid)
+        emitter.emit("track_unsubscribed", identity, trackSid)
+    }
+
+    override fun onDataReceived(identity: String, data: ByteArray, topic: String) {
+        recorder?.dataReceived(identity, data, topic)
+        if (topic == StateChannel.TOPIC) {
+            for (update in stateChannel.receive(identity, data)) {
+                emitter.emit("state_received", identity, update.key, update.data, update.topic)
+            }
+            return
+        }
+        if (topic == BulkChannel.TOPIC) {
+            val message = bulkChannel.receive(identity, data) ?: return
+            emitter.emit("data_received", identity, message.data, message.topic)
+            return
+        }
+        if (topic == ClockSync.TOPIC) {
+            val pong = clockSync.receive(identity, data)
+            if (pong != null) {
+                sendDataTo(pong, identity, ClockSync.TOPIC, LiveKitTransport.Reliability.LOSSY)
+            }
+            return
+        }
+        emitter.emit("data_received", identity, data, topic)
+    }
+
+    private fun attachRemoteAudioSink(participantIdentity: String, source: RemoteAudioSource, trackSid: String) {
+        if (!pcmSpatialAudioEnabled) {
+            return
+        }
+
+        val effectiveSid = if (trackSid.isNotEmpty()) trackSid else "${participantIdentity}_${source.hashCode()}"
+        removeRemoteAudioSink(effectiveSid)
+
+        val sink = PcmSink { audioData, bitsPerSample, sampleRate, channelCount, numberOfFrames, captureTimestampMs ->
+            recorder?.pcm(effectiveSid, audioData, bitsPerSample, sampleRate, channelCount, numberOfFrames, captureTimestampMs)
+            if (!pcmSpatialAudioEnabled) {
+                return@PcmSink
+            }
+            if (bitsPerSample != 16 || channelCount <= 0 || numberOfFrames <= 0) {
+                return@PcmSink
+            }
+            val frame = PcmConversion.pcm16ToStereoFloat(audioData, channelCount, numberOfFrames)
+            if (frame.isEmpty()) {
+                return@PcmSink
+            }
+            postToMain(Runnable {
+                emitter.emit("audio_frame", participantIdentity, frame)
+            })
+        }
+
+        try {
+            source.addSink(sink)
+            // Prevent non-spatial Android mixer output (we render spatialized audio in Godot).
+            source.setVolume(0.0)
+            remoteAudioSinks[effectiveSid] = RemoteAudioSinkBinding(participantIdentity, effectiveSid, source, sink)
+        } catch (t: Throwable) {
+            warn("Failed to attach audio sink for $effectiveSid: ${t.message}", t)
+            pcmSpatialAudioEnabled = false
+        }
+    }
+
+    private fun removeRemoteAudioSink(trackSid: String) {
+        if (trackSid.isEmpty()) {
+            return
+        }
+        val binding = remoteAudioSinks.remove(trackSid) ?: return
+        try {
+            binding.source.removeSink(binding.sink)
+        } catch (_: Throwable) {
+        }
+    }
+
+    private fun removeRemoteAudioSinksForParticipant(participantIdentity: String) {
+        if (participantIdentity.isEmpty()) {
+            return
+        }
+        val trackSids = remoteAudioSinks.values
+            .filter { it.participantIdentity == participantIdentity }
+            .map { it.trackSid }
+            .toList()
+        trackSids.forEach { removeRemoteAudioSink(it) }
+    }
+
+    fun removeAllRemoteAudioSinks() {
+        val trackSids = remoteAudioSinks.keys.toList()
+        trackSids.forEach { removeRemoteAudioSink(it) }
+        remoteAudioSinks.clear()
+    }
+}
@@ -0,0 +1,73 @@
+package com.jvastola.physicshand.livekit
+
+import java.nio.ByteBuffer
+
+/**
+ * The slice of a LiveKit room that the plugin logic depends on.
+ *
+ * [LiveKitRoomTransport] backs it with a real `io.livekit.android.room.Room`; tests and
+ * benchmarks use an in-memory fake so the PCM, sink and data paths run on a plain JVM.
+ */
+interface LiveKitTransport {
+
+    enum class Reliability { RELIABLE, LOSSY }
+
+    val isConnected: Boolean
+    val localIdentity: String
+    val remoteIdentities: Collection<String>
+
+    fun hasRemoteParticipant(identity: String): Boolean
+
+    fun setListener(listener: Listener?)
+
+    suspend fun connect(url: String, token: String)
+    suspend fun disconnect()
+    suspend fun setMicrophoneEnabled(enabled: Boolean)
+    suspend fun updateMetadata(metadata: String)
+
+    /** [destinationIdentities] of null broadcasts to the whole room. */
+    suspend fun publishData(
+        data: ByteArray,
+        reliability: Reliability,
+        topic: String,
+        destinationIdentities: List<String>? = null
+    )
+
+    /** Applies [volume] to every remote audio track of [identity] (LiveKit range 0.0 - 10.0). */
+    suspend fun setParticipantVolume(identity: String, volume: Double)
+
+    /** Room events, delivered on the transport's event thread. */
+    interface Listener {
+        fun onParticipantConnected(identity: String)
+        fun onParticipantDisconnected(identity: String)
+        fun onParticipantMetadataChanged(identity: String, metadata: String)
+        /** [audio] is non-null when the subscribed track is a remote audio track. */
+        fun onTrackSubscribed(identity: String, trackSid: String, audio: RemoteAudioSource?)
+        fun onTrackUnsubscribed(identity: String, trackSid: String)
+        fun onDataReceived(identity: String, data: ByteArray, topic: String)
+    }
+}
+
+/** A subscribed remote audio track that can deliver raw PCM to sinks. */
+interface RemoteAudioSource {
+    fun addSink(sink: PcmSink)
+    fun removeSink(sink: PcmSink)
+    fun setVolume(volume: Double)
+}
+
+/** Mirrors WebRTC's `AudioTrackSink` callback without depending on it. */
+fun interface PcmSink {
+    fun onData(
+        audioData: ByteBuffer,
+        bitsPerSample: Int,
+        sampleRate: Int,
+        channelCount: Int,
+        numberOfFrames: Int,
+        absoluteCaptureTimestampMs: Long
+    )
+}
+
+/** Forwards a plugin signal to Godot (`GodotPlugin.emitSignal`) or to a test recorder. */
+fun interface SignalEmitter {
+    fun emit(signalName: String, vararg args: Any)
+}
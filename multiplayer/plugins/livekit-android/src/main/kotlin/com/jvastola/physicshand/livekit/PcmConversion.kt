@@ -0,0 +1,51 @@
+package com.jvastola.physicshand.livekit
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+/**
+ * PCM helpers for the spatial audio path. Pure JVM code so it can be unit tested and
+ * benchmarked off-device.
+ */
+internal object PcmConversion {
+
+    /**
+     * Convert interleaved little-endian PCM16 into interleaved stereo floats in [-1, 1].
+     * Mono input is duplicated to both channels; channels beyond stereo are dropped.
+     * Returns an empty array when the buffer is too small for the declared frame count.
+     */
+    fun pcm16ToStereoFloat(audioData: ByteBuffer, channelCount: Int, numberOfFrames: Int): FloatArray {
+        if (channelCount <= 0 || numberOfFrames <= 0) {
+            return FloatArray(0)
+        }
+
+        val bytesPerSample = 2
+        val requiredBytes = numberOfFrames * channelCount * bytesPerSample
+        val source = audioData.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+        if (source.remaining() < requiredBytes) {
+            return FloatArray(0)
+        }
+
+        val output = FloatArray(numberOfFrames * 2)
+        var outputIndex = 0
+
+        for (frameIndex in 0 until numberOfFrames) {
+            val left = source.short.toInt() / 32768.0f
+            val right = if (channelCount > 1) {
+                source.short.toInt() / 32768.0f
+            } else {
+                left
+            }
+
+            // Skip channels beyond stereo if present.
+            for (extraChannel in 2 until channelCount) {
+                source.short
+            }
+
+            output[outputIndex++] = left.coerceIn(-1.0f, 1.0f)
+            output[outputIndex++] = right.coerceIn(-1.0f, 1.0f)
+        }
+
+        return output
+    }
+}
@@ -0,0 +1,213 @@
+package com.jvastola.physicshand.livekit
+
+import java.io.ByteArrayOutputStream
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.util.Locale
+import kotlin.random.Random
+
+/**
+ * Latest-value-wins keyed state over lossy data packets.
+ *
+ * Sender: [offer] replaces any pending value of the same key, so however many updates are
+ * queued between two flushes only the newest per key goes out. [drainPackets] stamps each
+ * value with a per-key sequence number and packs them into packets of at most
+ * [maxPacketBytes] (a single larger value gets its own packet).
+ *
+ * Receiver: [receive] delivers a value only when its sequence number is newer (serial number
+ * arithmetic, so wrap-around is fine) than the last one applied for that sender and key;
+ * stale and reordered values are dropped. Each sender picks a random epoch per session, so
+ * a client that rejoins and restarts its sequence numbers is not mistaken for stale.
+ *
+ * Packet: `u8 version, i32 epoch, varint count` then per value
+ * `varint seq, key, topic, payload` (strings and payload as varint length + bytes).
+ */
+internal class StateChannel(
+    private val epoch: Int = Random.nextInt(),
+    private val maxPacketBytes: Int = MAX_PACKET_BYTES
+) {
+
+    private class Pending(val topic: String, val data: ByteArray)
+
+    private class SenderState(val epoch: Int) {
+        val applied = HashMap<String, Int>()
+    }
+
+    class Update(val key: String, val topic: String, val data: ByteArray)
+
+    private val pending = LinkedHashMap<String, Pending>()
+    private val sequences = HashMap<String, Int>()
+    private var flushScheduled = false
+    private val senders = HashMap<String, SenderState>()
+
+    private var offered = 0L
+    private var coalesced = 0L
+    private var sentUpdates = 0L
+    private var sentPackets = 0L
+    private var sentBytes = 0L
+    private var applied = 0L
+    private var stale = 0L
+    private var malformed = 0L
+
+    /** Queue [data] as the newest state of [key]. Returns true when the caller must schedule a flush. */
+    @Synchronized
+    fun offer(key: String, topic: String, data: ByteArray): Boolean {
+        offered++
+        if (pending.put(key, Pending(topic, data)) != null) {
+            coalesced++
+        }
+        if (flushScheduled) {
+            return false
+        }
+        flushScheduled = true
+        return true
+    }
+
+    /** Takes every pending value, newest per key, encoded into packets. */
+    @Synchronized
+    fun drainPackets(): List<ByteArray> {
+        flushScheduled = false
+        if (pending.isEmpty()) {
+            return emptyList()
+        }
+        val packets = ArrayList<ByteArray>()
+        val entries = ArrayList<ByteArray>()
+        var size = PACKET_HEADER_BYTES
+        for ((key, value) in pending) {
+            val sequence = (sequences[key] ?: 0) + 1
+            sequences[key] = sequence
+            val entry = encodeEntry(sequence, key, value)
+            if (entries.isNotEmpty() && size + entry.size > maxPacketBytes) {
+                packets.add(encodePacket(entries))
+                entries.clear()
+                size = PACKET_HEADER_BYTES
+            }
+            entries.add(entry)
+            size += entry.size
+        }
+        packets.add(encodePacket(entries))
+        sentUpdates += pending.size
+        pending.clear()
+        sentPackets += packets.size
+        packets.forEach { sentBytes += it.size }
+        return packets
+    }
+
+    /** Decodes a packet from [identity] and returns the values that are newer than what was applied. */
+    fun receive(identity: String, packet: ByteArray): List<Update> {
+        val buffer = ByteBuffer.wrap(packet)
+        val fresh = ArrayList<Update>()
+        synchronized(this) {
+            try {
+                if (buffer.get().toInt() != VERSION) {
+                    malformed++
+                    return emptyList()
+                }
+                val senderEpoch = buffer.int
+                var sender = senders[identity]
+                if (sender == null || sender.epoch != senderEpoch) {
+                    sender = SenderState(senderEpoch)
+                    senders[identity] = sender
+                }
+                val count = getVarint(buffer)
+                repeat(count) {
+                    val sequence = getVarint(buffer)
+                    val key = String(getBytes(buffer), Charsets.UTF_8)
+                    val topic = String(getBytes(buffer), Charsets.UTF_8)
+                    val data = getBytes(buffer)
+                    val last = sender.applied[key]
+                    if (last != null && sequence - last <= 0) {
+                        stale++
+                    } else {
+                        sender.applied[key] = sequence
+                        applied++
+                        fresh.add(Update(key, topic, data))
+                    }
+                }
+            } catch (_: BufferUnderflowException) {
+                malformed++
+            } catch (_: IllegalArgumentException) {
+                malformed++
+            }
+        }
+        return fresh
+    }
+
+    @Synchronized
+    fun forgetSender(identity: String) {
+        senders.remove(identity)
+    }
+
+    @Synchronized
+    fun statsJson(): String = String.format(
+        Locale.US,
+        "{\"offered\":%d,\"coalesced\":%d,\"sent_updates\":%d,\"sent_packets\":%d,\"sent_bytes\":%d," +
+            "\"applied\":%d,\"stale_dropped\":%d,\"malformed\":%d}",
+        offered, coalesced, sentUpdates, sentPackets, sentBytes, applied, stale, malformed
+    )
+
+    private fun encodeEntry(sequence: Int, key: String, value: Pending): ByteArray {
+        val out = ByteArrayOutputStream(value.data.size + key.length + value.topic.length + 16)
+        putVarint(out, sequence)
+        putBytes(out, key.toByteArray(Charsets.UTF_8))
+        putBytes(out, value.topic.toByteArray(Charsets.UTF_8))
+        putBytes(out, value.data)
+        return out.toByteArray()
+    }
+
+    private fun encodePacket(entries: List<ByteArray>): ByteArray {
+        val out = ByteArrayOutputStream(PACKET_HEADER_BYTES + entries.sumOf { it.size })
+        out.write(VERSION)
+        out.write(epoch ushr 24)
+        out.write(epoch ushr 16)
+        out.write(epoch ushr 8)
+        out.write(epoch)
+        putVarint(out, entries.size)
+        entries.forEach { out.write(it) }
+        return out.toByteArray()
+    }
+
+    companion object {
+        /** Reserved data topic; packets on it never reach `data_received`. */
+        const val TOPIC = "lk/state"
+        const val MAX_PACKET_BYTES = 1200
+        private const val VERSION = 1
+        private const val PACKET_HEADER_BYTES = 10
+
+        private fun putVarint(out: ByteArrayOutputStream, value: Int) {
+            var v = value
+            while (v and 0x7F.inv() != 0) {
+                out.write((v and 0x7F) or 0x80)
+                v = v ushr 7
+            }
+            out.write(v)
+        }
+
+        private fun putBytes(out: ByteArrayOutputStream, bytes: ByteArray) {
+            putVarint(out, bytes.size)
+            out.write(bytes)
+        }
+
+        private fun getVarint(buffer: ByteBuffer): Int {
+            var value = 0
+            var shift = 0
+            while (shift < 35) {
+                val b = buffer.get().toInt()
+                value = value or ((b and 0x7F) shl shift)
+                if (b and 0x80 == 0) {
+                    return value
+                }
+                shift += 7
+            }
+            throw IllegalArgumentException("Malformed varint")
+        }
+
+        private fun getBytes(buffer: ByteBuffer): ByteArray {
+            val length = getVarint(buffer)
+            require(length in 0..buffer.remaining()) { "Bad length $length" }
+            val out = ByteArray(length)
+            buffer.get(out)
+            return out
+        }
+    }
+}
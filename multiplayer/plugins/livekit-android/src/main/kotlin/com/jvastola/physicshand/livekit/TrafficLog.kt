@@ -0,0 +1,81 @@
+package com.jvastola.physicshand.livekit
+
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.channels.FileChannel
+
+/**
+ * Binary layout of the traffic logs written by [TrafficRecorder] and read by [TrafficReplayer].
+ *
+ * A 16 byte header (`LKTR`, u8 version, 3 reserved bytes, i64 wall-clock start in ms) is
+ * followed by records of `u8 kind, varint microseconds since the previous record, body`.
+ * Identities, track SIDs and topics are interned: the first use of a string is preceded by
+ * a [STRING] record that assigns it the next id. Numbers are little-endian or LEB128
+ * varints. A zero kind byte (the zero fill of the unused mapped tail) ends the log, so a
+ * log cut off by a crash is still readable up to its last complete record.
+ */
+internal object TrafficLog {
+
+    const val MAGIC = 0x52544B4C // "LKTR" little-endian
+    const val VERSION = 1
+    const val HEADER_BYTES = 16
+
+    const val END = 0
+    /** varint id, varint length, UTF-8 bytes (no time delta). */
+    const val STRING = 1
+    /** identity */
+    const val PARTICIPANT_JOINED = 2
+    /** identity */
+    const val PARTICIPANT_LEFT = 3
+    /** identity, varint length, UTF-8 metadata */
+    const val METADATA = 4
+    /** identity, track SID, u8 has-audio */
+    const val TRACK_SUBSCRIBED = 5
+    /** identity, track SID */
+    const val TRACK_UNSUBSCRIBED = 6
+    /** track SID, u8 bits, varint rate, u8 channels, varint frames, i64 capture ms, varint length, PCM */
+    const val PCM = 7
+    /** identity, topic, varint length, payload */
+    const val DATA_IN = 8
+    /** topic, u8 reliability, varint destinations + 1 (0: broadcast), destinations, varint length, payload */
+    const val DATA_OUT = 9
+
+    fun putVarint(buffer: ByteBuffer, value: Long) {
+        var v = value
+        while (v and 0x7FL.inv() != 0L) {
+            buffer.put(((v and 0x7F) or 0x80).toByte())
+            v = v ushr 7
+        }
+        buffer.put(v.toByte())
+    }
+
+    fun getVarint(buffer: ByteBuffer): Long {
+        var value = 0L
+        var shift = 0
+        while (shift < 64) {
+            val b = buffer.get().toInt()
+            value = value or ((b and 0x7F).toLong() shl shift)
+            if (b and 0x80 == 0) {
+                return value
+            }
+            shift += 7
+        }
+        throw IllegalArgumentException("Malformed varint")
+    }
+
+    /** Maps [file] read-only and returns its records (header skipped), or throws on a bad header. */
+    fun open(file: File): ByteBuffer {
+        RandomAccessFile(file, "r").use { raf ->
+            val channel = raf.channel
+            val buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN)
+            require(buffer.remaining() >= HEADER_BYTES && buffer.getInt(0) == MAGIC) { "Not a traffic log: $file" }
+            require(buffer.get(4).toInt() == VERSION) { "Unsupported traffic log version ${buffer.get(4)}" }
+            buffer.position(HEADER_BYTES)
+            return buffer
+        }
+    }
+
+    fun startWallClockMs(log: ByteBuffer): Long = log.getLong(8)
+}
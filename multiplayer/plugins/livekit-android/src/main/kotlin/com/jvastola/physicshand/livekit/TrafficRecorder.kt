@@ -0,0 +1,260 @@
+package com.jvastola.physicshand.livekit
+
+import java.io.Closeable
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Locale
+
+/**
+ * Opt-in recorder of the room traffic a [LiveKitSession] sees: remote PCM frames, data
+ * packets in both directions and the participant/track events needed to replay them with
+ * [TrafficReplayer]. See [TrafficLog] for the format.
+ *
+ * Records are appended to a memory-mapped window of the file, so the audio callback threads
+ * only pay for a copy into mapped memory. When the log would grow past [maxBytes] recording
+ * stops and later records are counted as dropped. All methods are thread-safe.
+ */
+internal class TrafficRecorder @JvmOverloads constructor(
+    file: File,
+    private val maxBytes: Long = DEFAULT_MAX_BYTES,
+    private val clock: () -> Long = System::nanoTime,
+    wallClockMs: Long = System.currentTimeMillis()
+) : Closeable {
+
+    private val raf = RandomAccessFile(file, "rw")
+    private val channel: FileChannel = raf.channel
+    private var window: MappedByteBuffer
+    private var position = 0L
+    private var scratch: ByteBuffer = ByteBuffer.allocate(16 * 1024).order(ByteOrder.LITTLE_ENDIAN)
+    private val strings = HashMap<String, Int>()
+    private val startNanos = clock()
+    private var lastMicros = 0L
+    private var closed = false
+
+    var records = 0L
+        private set
+    var droppedRecords = 0L
+        private set
+    var isFull = false
+        private set
+
+    init {
+        raf.setLength(0)
+        window = channel.map(FileChannel.MapMode.READ_WRITE, 0, WINDOW_BYTES)
+        window.order(ByteOrder.LITTLE_ENDIAN)
+        window.putInt(TrafficLog.MAGIC)
+        window.put(TrafficLog.VERSION.toByte())
+        window.put(ByteArray(3))
+        window.putLong(wallClockMs)
+        position = TrafficLog.HEADER_BYTES.toLong()
+    }
+
+    val bytesWritten: Long
+        @Synchronized get() = position
+
+    @Synchronized
+    fun participantJoined(identity: String) {
+        if (!accepting()) return
+        val id = intern(identity)
+        begin(TrafficLog.PARTICIPANT_JOINED, 8)
+        putVarint(id)
+        commit()
+    }
+
+    @Synchronized
+    fun participantLeft(identity: String) {
+        if (!accepting()) return
+        val id = intern(identity)
+        begin(TrafficLog.PARTICIPANT_LEFT, 8)
+        putVarint(id)
+        commit()
+    }
+
+    @Synchronized
+    fun metadataChanged(identity: String, metadata: String) {
+        if (!accepting()) return
+        val id = intern(identity)
+        val bytes = metadata.toByteArray(Charsets.UTF_8)
+        begin(TrafficLog.METADATA, 16 + bytes.size)
+        putVarint(id)
+        putVarint(bytes.size)
+        scratch.put(bytes)
+        commit()
+    }
+
+    @Synchronized
+    fun trackSubscribed(identity: String, trackSid: String, audio: Boolean) {
+        if (!accepting()) return
+        val id = intern(identity)
+        val sid = intern(trackSid)
+        begin(TrafficLog.TRACK_SUBSCRIBED, 16)
+        putVarint(id)
+        putVarint(sid)
+        scratch.put(if (audio) 1 else 0)
+        commit()
+    }
+
+    @Synchronized
+    fun trackUnsubscribed(identity: String, trackSid: String) {
+        if (!accepting()) return
+        val id = intern(identity)
+        val sid = intern(trackSid)
+        begin(TrafficLog.TRACK_UNSUBSCRIBED, 16)
+        putVarint(id)
+        putVarint(sid)
+        commit()
+    }
+
+    /** Copies the frame without moving [audioData]'s position. */
+    @Synchronized
+    fun pcm(
+        trackSid: String,
+        audioData: ByteBuffer,
+        bitsPerSample: Int,
+        sampleRate: Int,
+        channelCount: Int,
+        numberOfFrames: Int,
+        absoluteCaptureTimestampMs: Long
+    ) {
+        if (!accepting()) return
+        val source = audioData.duplicate()
+        val length = minOf(source.remaining(), maxOf(0, numberOfFrames * channelCount * bitsPerSample / 8))
+        source.limit(source.position() + length)
+        val sid = intern(trackSid)
+        begin(TrafficLog.PCM, 40 + length)
+        putVarint(sid)
+        scratch.put(bitsPerSample.toByte())
+        putVarint(sampleRate)
+        scratch.put(channelCount.toByte())
+        putVarint(numberOfFrames)
+        scratch.putLong(absoluteCaptureTimestampMs)
+        putVarint(length)
+        scratch.put(source)
+        commit()
+    }
+
+    @Synchronized
+    fun dataReceived(identity: String, data: ByteArray, topic: String) {
+        if (!accepting()) return
+        val id = intern(identity)
+        val topicId = intern(topic)
+        begin(TrafficLog.DATA_IN, 24 + data.size)
+        putVarint(id)
+        putVarint(topicId)
+        putVarint(data.size)
+        scratch.put(data)
+        commit()
+    }
+
+    @Synchronized
+    fun dataSent(
+        data: ByteArray,
+        topic: String,
+        reliability: LiveKitTransport.Reliability,
+        destinationIdentities: List<String>?
+    ) {
+        if (!accepting()) return
+        val topicId = intern(topic)
+        val destinations = destinationIdentities?.map { intern(it) }
+        begin(TrafficLog.DATA_OUT, 32 + data.size + 5 * (destinations?.size ?: 0))
+        putVarint(topicId)
+        scratch.put(reliability.ordinal.toByte())
+        putVarint(if (destinations == null) 0 else destinations.size + 1)
+        destinations?.forEach { putVarint(it) }
+        putVarint(data.size)
+        scratch.put(data)
+        commit()
+    }
+
+    @Synchronized
+    fun statsJson(): String {
+        val durationMs = lastMicros / 1000.0
+        return String.format(
+            Locale.US,
+            "{\"recording\":%b,\"records\":%d,\"bytes\":%d,\"dropped\":%d,\"full\":%b,\"duration_ms\":%.1f}",
+            !closed, records, position, droppedRecords, isFull, durationMs
+        )
+    }
+
+    /** Trims the file to the written records and releases it. */
+    @Synchronized
+    override fun close() {
+        if (closed) return
+        closed = true
+        window.force()
+        channel.truncate(position)
+        raf.close()
+    }
+
+    private fun accepting(): Boolean {
+        if (closed) return false
+        if (isFull) {
+            droppedRecords++
+            return false
+        }
+        scratch.clear()
+        return true
+    }
+
+    /** Id of [value], writing a [TrafficLog.STRING] record into the scratch on first use. */
+    private fun intern(value: String): Int {
+        strings[value]?.let { return it }
+        val id = strings.size
+        strings[value] = id
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        reserve(12 + bytes.size)
+        scratch.put(TrafficLog.STRING.toByte())
+        putVarint(id)
+        putVarint(bytes.size)
+        scratch.put(bytes)
+        return id
+    }
+
+    private fun begin(kind: Int, bodyBytes: Int) {
+        reserve(11 + bodyBytes)
+        val micros = (clock() - startNanos) / 1000
+        scratch.put(kind.toByte())
+        TrafficLog.putVarint(scratch, maxOf(0L, micros - lastMicros))
+        lastMicros = maxOf(lastMicros, micros)
+    }
+
+    private fun putVarint(value: Int) {
+        TrafficLog.putVarint(scratch, value.toLong())
+    }
+
+    private fun reserve(extra: Int) {
+        if (scratch.remaining() < extra) {
+            val grown = ByteBuffer.allocate(maxOf(scratch.capacity() * 2, scratch.position() + extra))
+                .order(ByteOrder.LITTLE_ENDIAN)
+            scratch.flip()
+            grown.put(scratch)
+            scratch = grown
+        }
+    }
+
+    private fun commit() {
+        scratch.flip()
+        val length = scratch.remaining()
+        if (position + length > maxBytes) {
+            // Strings interned by this record are never written, so nothing may follow it
+            isFull = true
+            droppedRecords++
+            return
+        }
+        if (window.remaining() < length) {
+            window = channel.map(FileChannel.MapMode.READ_WRITE, position, maxOf(WINDOW_BYTES, length.toLong()))
+        }
+        window.put(scratch)
+        position += length
+        records++
+    }
+
+    companion object {
+        const val DEFAULT_MAX_BYTES = 256L * 1024 * 1024
+        private const val WINDOW_BYTES = 4L * 1024 * 1024
+    }
+}
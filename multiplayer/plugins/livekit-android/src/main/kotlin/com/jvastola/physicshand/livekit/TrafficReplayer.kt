@@ -0,0 +1,192 @@
+package com.jvastola.physicshand.livekit
+
+import java.io.File
+import java.nio.BufferUnderflowException
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.concurrent.locks.LockSupport
+
+/**
+ * Plays a log written by [TrafficRecorder] back into a [LiveKitTransport.Listener] (normally a
+ * fresh [LiveKitSession]), so recorded sessions can be benchmarked and regression tested on a
+ * plain JVM. Subscribed audio tracks become [RemoteAudioSource]s whose sinks receive the
+ * recorded PCM frames in a reused direct buffer, like WebRTC's.
+ *
+ * Events are delivered on the calling thread. [speed] 1.0 keeps the recorded timing, 4.0
+ * plays four times faster, and 0 (or less) plays as fast as possible.
+ */
+internal class TrafficReplayer @JvmOverloads constructor(
+    private val log: File,
+    private val nanoTime: () -> Long = System::nanoTime,
+    private val sleepNanos: (Long) -> Unit = { LockSupport.parkNanos(it) }
+) {
+
+    data class Result(
+        val records: Long,
+        val pcmFrames: Long,
+        val dataPackets: Long,
+        val recordedMicros: Long,
+        val elapsedNanos: Long
+    )
+
+    /** Called for recorded outgoing packets; replay them through the session to exercise the send path. */
+    fun interface OutgoingHandler {
+        fun onSent(
+            data: ByteArray,
+            topic: String,
+            reliability: LiveKitTransport.Reliability,
+            destinationIdentities: List<String>?
+        )
+    }
+
+    private class ReplayAudioSource : RemoteAudioSource {
+        val sinks = mutableListOf<PcmSink>()
+        var frame: ByteBuffer = ByteBuffer.allocateDirect(0)
+
+        override fun addSink(sink: PcmSink) {
+            sinks.add(sink)
+        }
+
+        override fun removeSink(sink: PcmSink) {
+            sinks.remove(sink)
+        }
+
+        override fun setVolume(volume: Double) {}
+    }
+
+    @JvmOverloads
+    fun replay(listener: LiveKitTransport.Listener, speed: Double = 1.0, outgoing: OutgoingHandler? = null): Result {
+        val buffer = TrafficLog.open(log)
+        val strings = ArrayList<String>()
+        val sources = HashMap<String, ReplayAudioSource>()
+        var records = 0L
+        var pcmFrames = 0L
+        var dataPackets = 0L
+        var micros = 0L
+        val start = nanoTime()
+
+        try {
+            while (buffer.hasRemaining()) {
+                val kind = buffer.get().toInt() and 0xFF
+                if (kind == TrafficLog.END) {
+                    break
+                }
+                if (kind == TrafficLog.STRING) {
+                    val id = TrafficLog.getVarint(buffer).toInt()
+                    require(id == strings.size) { "String ids out of order" }
+                    strings.add(String(bytes(buffer), Charsets.UTF_8))
+                    continue
+                }
+
+                micros += TrafficLog.getVarint(buffer)
+                if (speed > 0.0) {
+                    val wait = start + (micros * 1000 / speed).toLong() - nanoTime()
+                    if (wait > 0) {
+                        sleepNanos(wait)
+                    }
+                }
+
+                when (kind) {
+                    TrafficLog.PARTICIPANT_JOINED -> listener.onParticipantConnected(string(buffer, strings))
+                    TrafficLog.PARTICIPANT_LEFT -> listener.onParticipantDisconnected(string(buffer, strings))
+                    TrafficLog.METADATA -> {
+                        val identity = string(buffer, strings)
+                        listener.onParticipantMetadataChanged(identity, String(bytes(buffer), Charsets.UTF_8))
+                    }
+                    TrafficLog.TRACK_SUBSCRIBED -> {
+                        val identity = string(buffer, strings)
+                        val trackSid = string(buffer, strings)
+                        val audio = if (buffer.get().toInt() != 0) ReplayAudioSource() else null
+                        if (audio != null) {
+                            sources[trackSid] = audio
+                        }
+                        listener.onTrackSubscribed(identity, trackSid, audio)
+                    }
+                    TrafficLog.TRACK_UNSUBSCRIBED -> {
+                        val identity = string(buffer, strings)
+                        val trackSid = string(buffer, strings)
+                        sources.remove(trackSid)
+                        listener.onTrackUnsubscribed(identity, trackSid)
+                    }
+                    TrafficLog.PCM -> {
+                        pushPcm(buffer, strings, sources)
+                        pcmFrames++
+                    }
+                    TrafficLog.DATA_IN -> {
+                        val identity = string(buffer, strings)
+                        val topic = string(buffer, strings)
+                        listener.onDataReceived(identity, bytes(buffer), topic)
+                        dataPackets++
+                    }
+                    TrafficLog.DATA_OUT -> {
+                        val topic = string(buffer, strings)
+                        val reliability = LiveKitTransport.Reliability.values()[buffer.get().toInt()]
+                        val count = TrafficLog.getVarint(buffer).toInt()
+                        val destinations = if (count == 0) null else List(count - 1) { string(buffer, strings) }
+                        val data = bytes(buffer)
+                        outgoing?.onSent(data, topic, reliability, destinations)
+                    }
+                    else -> throw IllegalArgumentException("Unknown record kind $kind")
+                }
+                records++
+            }
+        } catch (_: BufferUnderflowException) {
+            // Log cut off mid-record (crash while recording); everything before it was replayed
+        }
+
+        return Result(records, pcmFrames, dataPackets, micros, nanoTime() - start)
+    }
+
+    private fun pushPcm(buffer: ByteBuffer, strings: List<String>, sources: Map<String, ReplayAudioSource>) {
+        val trackSid = string(buffer, strings)
+        val bitsPerSample = buffer.get().toInt() and 0xFF
+        val sampleRate = TrafficLog.getVarint(buffer).toInt()
+        val channelCount = buffer.get().toInt() and 0xFF
+        val numberOfFrames = TrafficLog.getVarint(buffer).toInt()
+        val captureTimestampMs = buffer.long
+        val length = length(buffer)
+        val end = buffer.position() + length
+
+        val source = sources[trackSid]
+        if (source != null && source.sinks.isNotEmpty()) {
+            if (source.frame.capacity() < length) {
+                source.frame = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN)
+            }
+            val pcm = buffer.duplicate()
+            pcm.limit(end)
+            source.frame.clear()
+            source.frame.put(pcm)
+            source.frame.flip()
+            for (sink in source.sinks.toList()) {
+                sink.onData(source.frame.duplicate(), bitsPerSample, sampleRate, channelCount, numberOfFrames, captureTimestampMs)
+            }
+        }
+        buffer.position(end)
+    }
+
+    private fun string(buffer: ByteBuffer, strings: List<String>): String {
+        val id = TrafficLog.getVarint(buffer).toInt()
+        require(id < strings.size) { "Unknown string id $id" }
+        return strings[id]
+    }
+
+    private fun bytes(buffer: ByteBuffer): ByteArray {
+        val out = ByteArray(length(buffer))
+        buffer.get(out)
+        return out
+    }
+
+    /**
+     * A field length, checked before anything is allocated for it. One running past the end of
+     * the log is a cut-off record, which ends the replay; one no log could hold is corruption.
+     */
+    private fun length(buffer: ByteBuffer): Int {
+        val position = buffer.position()
+        val length = TrafficLog.getVarint(buffer)
+        require(length in 0..Int.MAX_VALUE) { "Corrupt traffic log: field length $length at offset $position" }
+        if (length > buffer.remaining()) {
+            throw BufferUnderflowException()
+        }
+        return length.toInt()
+    }
+}
@@ -0,0 +1,272 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.asCoroutineDispatcher
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.Executor
+import kotlin.coroutines.EmptyCoroutineContext
+import kotlin.random.Random
+
+class BulkChannelTest {
+
+    /** Scene-state-like JSON: many objects sharing the same keys. */
+    private fun sceneJson(objects: Int): ByteArray {
+        val random = Random(7)
+        val builder = StringBuilder("{\"type\":\"scene_state\",\"objects\":[")
+        repeat(objects) { i ->
+            if (i > 0) {
+                builder.append(',')
+            }
+            builder.append("{\"object_id\":\"grabbable_cube_").append(i)
+                .append("\",\"owner\":\"player_").append(random.nextInt(8))
+                .append("\",\"position\":[").append(random.nextDouble()).append(',').append(random.nextDouble())
+                .append(',').append(random.nextDouble()).append("],\"rotation\":[0.0,0.0,0.0,1.0],\"sleeping\":")
+                .append(random.nextBoolean()).append('}')
+        }
+        return builder.append("]}").toString().toByteArray(Charsets.UTF_8)
+    }
+
+    private fun newSession(room: FakeRoomTransport, signals: SignalEmitter, scope: CoroutineScope = CoroutineScope(Dispatchers.Unconfined)) =
+        LiveKitSession(room, signals, scope, { it.run() }).apply { bulkEncodeContext = EmptyCoroutineContext }
+
+    @Test
+    fun largeReliablePayloadRoundTripsCompressedAndChunked() {
+        val room = FakeRoomTransport()
+        val sender = newSession(room, RecordingSignalEmitter())
+        sender.bulkChannel.enabled = true
+        val payload = sceneJson(800)
+
+        sender.sendData(payload, "scene", LiveKitTransport.Reliability.RELIABLE)
+
+        assertTrue(room.published.size > 1)
+        assertTrue(room.published.all { it.topic == BulkChannel.TOPIC && it.data.size <= BulkChannel.DEFAULT_CHUNK_BYTES })
+        assertTrue(room.published.sumOf { it.data.size } < payload.size / 2)
+
+        val signals = RecordingSignalEmitter()
+        val receiver = newSession(FakeRoomTransport(), signals)
+        room.published.forEach { receiver.onDataReceived("peer", it.data, it.topic) }
+        val received = signals.named("data_received").single()
+        assertArrayEquals(payload, received.args[1] as ByteArray)
+        assertEquals("scene", received.args[2])
+    }
+
+    @Test
+    fun smallAndUnreliablePayloadsAreSentAsIs() {
+        val room = FakeRoomTransport()
+        val session = newSession(room, RecordingSignalEmitter())
+        session.bulkChannel.enabled = true
+
+        session.sendData(ByteArray(100), "small", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(ByteArray(50_000), "lossy", LiveKitTransport.Reliability.LOSSY)
+
+        assertEquals(listOf("small", "lossy"), room.published.map { it.topic })
+    }
+
+    @Test
+    fun chunksInterleaveWithSmallPacketsAndOtherMessages() {
+        val queued = ArrayDeque<Runnable>()
+        val room = FakeRoomTransport()
+        room.addParticipant("peer", channelCount = 0)
+        val scope = CoroutineScope(Executor { queued.addLast(it) }.asCoroutineDispatcher())
+        val session = newSession(room, RecordingSignalEmitter(), scope)
+        session.bulkChannel.enabled = true
+        session.bulkChannel.chunkBytes = 1024
+        val random = Random(3)
+        val first = random.nextBytes(8_000)
+        val second = random.nextBytes(4_000)
+
+        session.sendData(first, "asset", LiveKitTransport.Reliability.RELIABLE)
+        session.sendDataTo(second, "peer", "manifest", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(1, 2, 3), "voice_meta", LiveKitTransport.Reliability.RELIABLE)
+        while (queued.isNotEmpty()) {
+            queued.removeFirst().run()
+        }
+
+        val topics = room.published.map { it.topic }
+        val lastChunk = topics.lastIndexOf(BulkChannel.TOPIC)
+        assertTrue(topics.indexOf("voice_meta") < lastChunk)
+        assertTrue(room.published.all { it.data.size <= 1024 })
+
+        // Chunks of both messages are mixed on the wire and still reassemble
+        val signals = RecordingSignalEmitter()
+        val receiver = newSession(FakeRoomTransport(), signals)
+        room.published.forEach { receiver.onDataReceived("peer", it.data, it.topic) }
+        val messages = signals.named("data_received").associate { it.args[2] as String to it.args[1] as ByteArray }
+        assertArrayEquals(first, messages["asset"])
+        assertArrayEquals(second, messages["manifest"])
+    }
+
+    @Test
+    fun reliableMessagesOnATopicKeepTheirOrderBehindABulkMessage() {
+        val queued = ArrayDeque<Runnable>()
+        val room = FakeRoomTransport()
+        val scope = CoroutineScope(Executor { queued.addLast(it) }.asCoroutineDispatcher())
+        val session = newSession(room, RecordingSignalEmitter(), scope)
+        session.bulkChannel.enabled = true
+        session.bulkChannel.chunkBytes = 1024
+        val random = Random(9)
+        val large = random.nextBytes(8_000)
+        val larger = random.nextBytes(12_000)
+        val small = random.nextBytes(4_000)
+
+        session.sendData(large, "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(1), "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(larger, "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(small, "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(2), "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(3), "other", LiveKitTransport.Reliability.RELIABLE)
+        while (queued.isNotEmpty()) {
+            queued.removeFirst().run()
+        }
+
+        // Other topics are not held up
+        assertTrue(room.published.indexOfFirst { it.topic == "other" } < room.published.size / 2)
+
+        val signals = RecordingSignalEmitter()
+        val receiver = newSession(FakeRoomTransport(), signals)
+        room.published.forEach { receiver.onDataReceived("peer", it.data, it.topic) }
+        val scene = signals.named("data_received").filter { it.args[2] == "scene" }.map { it.args[1] as ByteArray }
+        assertEquals(5, scene.size)
+        assertArrayEquals(large, scene[0])
+        assertArrayEquals(byteArrayOf(1), scene[1])
+        assertArrayEquals(larger, scene[2])
+        assertArrayEquals(small, scene[3])
+        assertArrayEquals(byteArrayOf(2), scene[4])
+    }
+
+    @Test
+    fun sharedDictionaryHelpsAndMustMatch() {
+        val dictionary = sceneJson(4)
+        val payload = sceneJson(12)
+
+        val plain = BulkChannel()
+        val withDictionary = BulkChannel().apply { setDictionary(dictionary) }
+        val plainBytes = plain.encode(payload, "scene").sumOf { it.size }
+        val chunks = withDictionary.encode(payload, "scene")
+        assertTrue(chunks.sumOf { it.size } < plainBytes)
+
+        val receiver = BulkChannel().apply { setDictionary(dictionary) }
+        assertArrayEquals(payload, receiver.receive("peer", chunks.single())!!.data)
+
+        val stranger = BulkChannel()
+        assertNull(stranger.receive("peer", chunks.single()))
+        assertTrue(stranger.statsJson().contains("\"missing_dictionary\":1"))
+    }
+
+    @Test
+    fun reassemblyIsBoundedAndTimesOut() {
+        var now = 0L
+        val receiver = BulkChannel({ now }, maxMessageBytes = 64 * 1024, maxPendingBytes = 20_000, timeoutNanos = 1_000_000_000L)
+        val sender = BulkChannel().apply { chunkBytes = 1024 }
+        val random = Random(11)
+
+        // Incomplete message times out
+        val stalled = sender.encode(random.nextBytes(5_000), "a")
+        stalled.dropLast(1).forEach { receiver.receive("peer", it) }
+        now += 2_000_000_000L
+        assertNull(receiver.receive("peer", stalled.last()))
+        assertTrue(receiver.statsJson().contains("\"timed_out\":1"))
+        receiver.forgetSender("peer")
+        assertTrue(receiver.statsJson().contains("\"pending_bytes\":0"))
+
+        // Two incomplete 12 KB messages do not fit in 20 KB: the older is evicted
+        val older = sender.encode(random.nextBytes(12_000), "b")
+        val newer = sender.encode(random.nextBytes(12_000), "c")
+        receiver.receive("peer", older.first())
+        receiver.receive("peer", newer.first())
+        newer.drop(1).forEach { receiver.receive("peer", it) }
+        older.drop(1).forEach { receiver.receive("peer", it) }
+        assertTrue(receiver.statsJson().contains("\"evicted\":1"))
+
+        // Larger than the per-message cap
+        val huge = sender.encode(random.nextBytes(100_000), "d")
+        assertNull(receiver.receive("peer", huge.first()))
+        assertTrue(receiver.statsJson().contains("\"rejected\":1"))
+
+        val ok = sender.encode(random.nextBytes(3_000), "e")
+        val message = ok.map { receiver.receive("peer", it) }.last()
+        assertNotNull(message)
+    }
+
+    @Test
+    fun chunkCountTheMessageCannotNeedIsMalformed() {
+        // Version, flags, id 0, index 0, count Int.MAX_VALUE, offset 0, encoded/original 4, topic "a"
+        val header = ByteArrayOutputStream()
+        header.write(1)
+        header.write(0)
+        header.write(0)
+        header.write(0)
+        header.write(byteArrayOf(0xFF.toByte(), 0xFF.toByte(), 0xFF.toByte(), 0xFF.toByte(), 0x07))
+        header.write(0)
+        header.write(4)
+        header.write(4)
+        header.write(1)
+        header.write('a'.code)
+        header.write(byteArrayOf(1, 2, 3, 4))
+        val receiver = BulkChannel()
+
+        assertNull(receiver.receive("peer", header.toByteArray()))
+        val stats = receiver.statsJson()
+        assertTrue(stats, stats.contains("\"malformed\":1"))
+        assertTrue(stats, stats.contains("\"pending_bytes\":0"))
+    }
+
+    @Test
+    fun payloadsAboveTheMessageLimitAreRefusedBeforeSending() {
+        val room = FakeRoomTransport()
+        val warnings = mutableListOf<String>()
+        val session = LiveKitSession(room, RecordingSignalEmitter(), CoroutineScope(Dispatchers.Unconfined), { it.run() },
+            { message, _ -> warnings.add(message) }).apply { bulkEncodeContext = EmptyCoroutineContext }
+        session.bulkChannel.enabled = true
+
+        session.sendData(ByteArray(BulkChannel.MAX_MESSAGE_BYTES + 1), "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(1), "scene", LiveKitTransport.Reliability.RELIABLE)
+
+        assertEquals(listOf("scene"), room.published.map { it.topic })
+        assertEquals(1, warnings.size)
+        assertTrue(session.bulkChannelStatsJson().contains("\"refused\":1"))
+    }
+
+    @Test
+    fun aFailedPublishDropsOnlyThatMessage() {
+        val room = FakeRoomTransport()
+        val warnings = mutableListOf<String>()
+        val session = LiveKitSession(room, RecordingSignalEmitter(), CoroutineScope(Dispatchers.Unconfined), { it.run() },
+            { message, _ -> warnings.add(message) }).apply { bulkEncodeContext = EmptyCoroutineContext }
+        session.bulkChannel.enabled = true
+        session.bulkChannel.chunkBytes = 1024
+        val random = Random(13)
+        room.failingPublishes = 1
+
+        session.sendData(random.nextBytes(4_000), "scene", LiveKitTransport.Reliability.RELIABLE)
+        assertEquals(1, warnings.size)
+        assertTrue(room.published.isEmpty())
+
+        // Neither the topic nor the pump is left stuck behind it
+        val next = random.nextBytes(4_000)
+        session.sendData(next, "scene", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(7), "scene", LiveKitTransport.Reliability.RELIABLE)
+        val signals = RecordingSignalEmitter()
+        val receiver = newSession(FakeRoomTransport(), signals)
+        room.published.forEach { receiver.onDataReceived("peer", it.data, it.topic) }
+        val scene = signals.named("data_received").map { it.args[1] as ByteArray }
+        assertEquals(2, scene.size)
+        assertArrayEquals(next, scene[0])
+        assertArrayEquals(byteArrayOf(7), scene[1])
+    }
+
+    @Test
+    fun truncatedChunkIsIgnored() {
+        val chunks = BulkChannel().encode(sceneJson(50), "scene")
+        val receiver = BulkChannel()
+        assertNull(receiver.receive("peer", chunks.first().copyOf(5)))
+        assertTrue(receiver.statsJson().contains("\"malformed\":1"))
+    }
+}
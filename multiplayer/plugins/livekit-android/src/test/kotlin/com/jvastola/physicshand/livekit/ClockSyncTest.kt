@@ -0,0 +1,175 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.nio.ByteBuffer
+import kotlin.math.abs
+import kotlin.random.Random
+
+class ClockSyncTest {
+
+    /** Virtual network: one true time, and each participant's clock is it plus a fixed skew. */
+    private class Net {
+        var nowNanos = 0L
+        val skews = HashMap<String, Long>()
+        val peers = HashMap<String, ClockSync>()
+
+        fun add(identity: String, skewNanos: Long): ClockSync {
+            skews[identity] = skewNanos
+            return ClockSync({ nowNanos + skews.getValue(identity) }).also { peers[identity] = it }
+        }
+
+        fun clockOf(identity: String): Long = nowNanos + skews.getValue(identity)
+
+        /** One ping from [from] to [to] and its pong, with the given one-way delays in ms. */
+        fun exchange(from: String, to: String, upMs: Double, downMs: Double) {
+            val ping = peers.getValue(from).pingPacket()
+            nowNanos += (upMs * 1_000_000).toLong()
+            val pong = peers.getValue(to).receive(from, ping)!!
+            nowNanos += (downMs * 1_000_000).toLong()
+            peers.getValue(from).receive(to, pong)
+        }
+    }
+
+    private val random = Random(42)
+
+    private fun jittered(baseMs: Double, jitterMs: Double, spikeChance: Double = 0.0, spikeMs: Double = 0.0): Double {
+        var delay = baseMs + random.nextDouble() * jitterMs
+        if (random.nextDouble() < spikeChance) {
+            delay += spikeMs
+        }
+        return delay
+    }
+
+    private fun offsetErrorMs(net: Net, from: String, to: String): Double {
+        val truth = (net.skews.getValue(to) - net.skews.getValue(from)) / 1_000_000.0
+        return abs(net.peers.getValue(from).offsetMs(to)!! - truth)
+    }
+
+    @Test
+    fun offsetAndRttConvergeUnderJitter() {
+        val net = Net()
+        val a = net.add("a", 1_000_000_000_000L)
+        net.add("b", 7_345_678_901L)
+
+        repeat(32) {
+            net.exchange("a", "b", jittered(20.0, 10.0), jittered(20.0, 10.0))
+            net.nowNanos += 250_000_000
+        }
+
+        assertTrue(offsetErrorMs(net, "a", "b") < 3.0)
+        val rtt = a.rttMs("b")
+        assertTrue("rtt $rtt", rtt in 45.0..55.0)
+        assertEquals(ClockSync.INTERVAL_MS, a.pingIntervalMs())
+    }
+
+    @Test
+    fun delaySpikesDoNotMoveTheEstimates() {
+        val net = Net()
+        val a = net.add("a", 0L)
+        net.add("b", -2_500_000_000L)
+
+        // About a quarter of the round trips hit a 150 ms spike in one direction
+        repeat(48) {
+            net.exchange("a", "b", jittered(15.0, 5.0, 0.15, 150.0), jittered(15.0, 5.0, 0.15, 150.0))
+            net.nowNanos += 250_000_000
+        }
+
+        assertTrue(offsetErrorMs(net, "a", "b") < 3.0)
+        assertTrue("rtt ${a.rttMs("b")}", a.rttMs("b") < 80.0)
+    }
+
+    @Test
+    fun everyoneAgreesOnTheSessionClock() {
+        val net = Net()
+        val identities = listOf("carol", "alice", "bob")
+        identities.forEachIndexed { i, identity -> net.add(identity, (i + 1) * 3_000_000_017L) }
+
+        repeat(20) {
+            for (from in identities) {
+                for (to in identities) {
+                    if (from != to) {
+                        net.exchange(from, to, jittered(10.0, 8.0), jittered(25.0, 8.0))
+                    }
+                }
+            }
+            net.nowNanos += 250_000_000
+        }
+
+        val reference = net.clockOf("alice") / 1_000_000.0
+        for (identity in identities) {
+            val session = net.peers.getValue(identity).sessionTimeMs(identity)
+            // Asymmetric base delays (10 vs 25 ms) bias the offset by up to half the difference
+            assertTrue("$identity ${session - reference}", abs(session - reference) < 10.0)
+        }
+        assertTrue(net.peers.getValue("bob").statsJson().contains("\"reference\":\"alice\""))
+    }
+
+    @Test
+    fun smallCorrectionsAreSlewedWithoutRunningBackwards() {
+        val net = Net()
+        val a = net.add("a", 0L)
+        net.add("0-ref", 40_000_000_000L)
+
+        repeat(16) {
+            net.exchange("a", "0-ref", 20.0, 20.0)
+            net.nowNanos += 250_000_000
+        }
+        var last = a.sessionTimeNanos("a")
+        assertEquals(net.clockOf("0-ref").toDouble(), last.toDouble(), 1_000_000.0)
+
+        // The reference's clock jumps back 10 ms; the session clock must ease onto it
+        net.skews["0-ref"] = net.skews.getValue("0-ref") - 10_000_000L
+        repeat(600) { step ->
+            if (step % 25 == 0) {
+                net.exchange("a", "0-ref", 20.0 - (step % 3), 20.0)
+            }
+            net.nowNanos += 10_000_000
+            val now = a.sessionTimeNanos("a")
+            assertTrue(now > last)
+            last = now
+        }
+        assertEquals(net.clockOf("0-ref").toDouble(), last.toDouble(), 1_500_000.0)
+    }
+
+    @Test
+    fun impossibleSamplesAreRejected() {
+        val now = 10_000_000_000L
+        val sync = ClockSync({ now })
+        val fromTheFuture = ByteBuffer.allocate(25).put(2).putLong(now + 1_000_000_000).putLong(0).putLong(0).array()
+        val tooOld = ByteBuffer.allocate(25).put(2).putLong(now - 6_000_000_000).putLong(0).putLong(0).array()
+
+        sync.receive("peer", fromTheFuture)
+        sync.receive("peer", tooOld)
+        sync.receive("peer", byteArrayOf(2, 0, 0))
+
+        assertEquals(-1.0, sync.rttMs("peer"), 0.0)
+        assertTrue(sync.statsJson().contains("\"rejected\":2"))
+    }
+
+    @Test
+    fun sessionAnswersPingsWithoutSurfacingThem() {
+        val room = FakeRoomTransport()
+        val signals = RecordingSignalEmitter()
+        val session = LiveKitSession(room, signals, CoroutineScope(Dispatchers.Unconfined), { it.run() })
+        room.addParticipant("peer", channelCount = 0)
+
+        assertEquals(ClockSync.WARMUP_INTERVAL_MS, session.sendTimeSyncPing())
+        val ping = room.published.single()
+        assertEquals(ClockSync.TOPIC, ping.topic)
+        assertEquals(LiveKitTransport.Reliability.LOSSY, ping.reliability)
+
+        session.onDataReceived("peer", ping.data, ClockSync.TOPIC)
+        val pong = room.published[1]
+        assertEquals(listOf("peer"), pong.destinationIdentities)
+
+        session.onDataReceived("peer", pong.data, ClockSync.TOPIC)
+        assertEquals(0, signals.count("data_received"))
+        assertNotNull(session.clockSync.offsetMs("peer"))
+        assertTrue(session.clockSync.rttMs("peer") >= 0.0)
+    }
+}
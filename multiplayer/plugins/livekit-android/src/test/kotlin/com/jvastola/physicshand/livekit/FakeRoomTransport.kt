@@ -0,0 +1,191 @@
+package com.jvastola.physicshand.livekit
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import kotlin.math.PI
+import kotlin.math.sin
+
+/**
+ * In-memory [LiveKitTransport] for JVM tests and load scenarios.
+ *
+ * Time is virtual: nothing happens until [advance] is called, which steps the room in
+ * 10 ms ticks. Every tick each simulated participant pushes one PCM16 frame
+ * (`sampleRate / 100` samples per channel, like WebRTC) into its audio sinks and delivers
+ * however many data packets its configured rate owes. Outgoing packets are captured in
+ * [published].
+ */
+class FakeRoomTransport(
+    override val localIdentity: String = "local"
+) : LiveKitTransport {
+
+    data class PublishedPacket(
+        val data: ByteArray,
+        val reliability: LiveKitTransport.Reliability,
+        val topic: String,
+        val destinationIdentities: List<String>?
+    )
+
+    class FakeAudioSource(val sampleRate: Int, val channelCount: Int) : RemoteAudioSource {
+        val framesPerTick: Int = sampleRate / 100
+        val sinks = mutableListOf<PcmSink>()
+        var volume: Double = 1.0
+            private set
+
+        // WebRTC hands sinks the same direct buffer every callback; mimic that.
+        private val frame: ByteBuffer = ByteBuffer
+            .allocateDirect(framesPerTick * channelCount * 2)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .also { buffer ->
+                for (i in 0 until framesPerTick) {
+                    val sample = (sin(2.0 * PI * 440.0 * i / sampleRate) * 12_000).toInt().toShort()
+                    repeat(channelCount) { buffer.putShort(sample) }
+                }
+                buffer.flip()
+            }
+
+        override fun addSink(sink: PcmSink) {
+            sinks.add(sink)
+        }
+
+        override fun removeSink(sink: PcmSink) {
+            sinks.remove(sink)
+        }
+
+        override fun setVolume(volume: Double) {
+            this.volume = volume
+        }
+
+        fun pushFrame(timestampMs: Long) {
+            for (sink in sinks.toList()) {
+                sink.onData(frame.duplicate(), 16, sampleRate, channelCount, framesPerTick, timestampMs)
+            }
+        }
+    }
+
+    class FakeParticipant(
+        val identity: String,
+        val trackSid: String,
+        val audio: FakeAudioSource?,
+        val dataRateHz: Double,
+        val payload: ByteArray,
+        val topic: String
+    ) {
+        internal var owedPackets = 0.0
+        var packetsSent = 0
+            internal set
+    }
+
+    private var listener: LiveKitTransport.Listener? = null
+    private val participants = LinkedHashMap<String, FakeParticipant>()
+    private var connected = false
+
+    val published = mutableListOf<PublishedPacket>()
+
+    /** The next this many publishData calls throw, like a room dropping mid-transfer. */
+    var failingPublishes = 0
+    var nowMs: Long = 0
+        private set
+
+    override val isConnected: Boolean
+        get() = connected
+
+    override val remoteIdentities: Collection<String>
+        get() = participants.keys
+
+    override fun hasRemoteParticipant(identity: String): Boolean = participants.containsKey(identity)
+
+    override fun setListener(listener: LiveKitTransport.Listener?) {
+        this.listener = listener
+    }
+
+    override suspend fun connect(url: String, token: String) {
+        connected = true
+    }
+
+    override suspend fun disconnect() {
+        connected = false
+    }
+
+    override suspend fun setMicrophoneEnabled(enabled: Boolean) {}
+
+    override suspend fun updateMetadata(metadata: String) {}
+
+    override suspend fun publishData(
+        data: ByteArray,
+        reliability: LiveKitTransport.Reliability,
+        topic: String,
+        destinationIdentities: List<String>?
+    ) {
+        if (failingPublishes > 0) {
+            failingPublishes--
+            throw IllegalStateException("Room disconnected")
+        }
+        published.add(PublishedPacket(data, reliability, topic, destinationIdentities))
+    }
+
+    override suspend fun setParticipantVolume(identity: String, volume: Double) {
+        participants[identity]?.audio?.setVolume(volume)
+    }
+
+    /**
+     * Add a remote participant. It publishes a PCM track when [channelCount] > 0 and
+     * sends [payloadBytes]-sized packets on [topic] at [dataRateHz].
+     */
+    fun addParticipant(
+        identity: String,
+        channelCount: Int = 1,
+        sampleRate: Int = 48_000,
+        dataRateHz: Double = 0.0,
+        payloadBytes: Int = 64,
+        topic: String = ""
+    ): FakeParticipant {
+        val audio = if (channelCount > 0) FakeAudioSource(sampleRate, channelCount) else null
+        val participant = FakeParticipant(
+            identity,
+            "TR_$identity",
+            audio,
+            dataRateHz,
+            ByteArray(payloadBytes) { it.toByte() },
+            topic
+        )
+        participants[identity] = participant
+        listener?.onParticipantConnected(identity)
+        if (audio != null) {
+            listener?.onTrackSubscribed(identity, participant.trackSid, audio)
+        }
+        return participant
+    }
+
+    fun removeParticipant(identity: String) {
+        val participant = participants.remove(identity) ?: return
+        if (participant.audio != null) {
+            listener?.onTrackUnsubscribed(identity, participant.trackSid)
+        }
+        listener?.onParticipantDisconnected(identity)
+    }
+
+    fun participant(identity: String): FakeParticipant? = participants[identity]
+
+    /** Step the room forward by [millis] of virtual time in 10 ms ticks. */
+    fun advance(millis: Long) {
+        val ticks = millis / TICK_MS
+        repeat(ticks.toInt()) {
+            nowMs += TICK_MS
+            for (participant in participants.values.toList()) {
+                participant.audio?.pushFrame(nowMs)
+                if (participant.dataRateHz > 0.0) {
+                    participant.owedPackets += participant.dataRateHz * TICK_MS / 1000.0
+                    while (participant.owedPackets >= 1.0) {
+                        participant.owedPackets -= 1.0
+                        participant.packetsSent++
+                        listener?.onDataReceived(participant.identity, participant.payload, participant.topic)
+                    }
+                }
+            }
+        }
+    }
+
+    companion object {
+        const val TICK_MS = 10L
+    }
+}
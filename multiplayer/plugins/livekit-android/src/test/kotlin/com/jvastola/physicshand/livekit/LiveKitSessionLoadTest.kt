@@ -0,0 +1,81 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+
+class LiveKitSessionLoadTest {
+
+    private lateinit var room: FakeRoomTransport
+    private lateinit var signals: RecordingSignalEmitter
+    private lateinit var session: LiveKitSession
+
+    @Before
+    fun setUp() {
+        room = FakeRoomTransport()
+        signals = RecordingSignalEmitter()
+        // Unconfined + inline posting keeps everything on the test thread and deterministic.
+        session = LiveKitSession(room, signals, CoroutineScope(Dispatchers.Unconfined), { it.run() })
+    }
+
+    @Test
+    fun fiftySpeakersProduceOneStereoFramePerTick() {
+        repeat(50) { room.addParticipant("speaker_$it") }
+        assertEquals(50, session.remoteAudioSinkCount)
+
+        room.advance(1_000)
+
+        val frames = signals.named("audio_frame")
+        assertEquals(50 * 100, frames.size)
+        frames.forEach { assertEquals(480 * 2, (it.args[1] as FloatArray).size) }
+    }
+
+    @Test
+    fun attachedSinksMuteTheAndroidMixer() {
+        val participant = room.addParticipant("speaker")
+        assertEquals(0.0, participant.audio!!.volume, 0.0)
+    }
+
+    @Test
+    fun twoKilohertzDataIsDeliveredInFull() {
+        room.addParticipant("sender", channelCount = 0, dataRateHz = 2_000.0, payloadBytes = 48, topic = "xform")
+
+        room.advance(1_000)
+
+        val packets = signals.named("data_received")
+        assertEquals(2_000, packets.size)
+        assertTrue(packets.all { it.args[0] == "sender" && it.args[2] == "xform" })
+    }
+
+    @Test
+    fun leavingParticipantDetachesItsSinks() {
+        room.addParticipant("stays")
+        val leaving = room.addParticipant("leaves")
+        room.removeParticipant("leaves")
+
+        assertEquals(1, session.remoteAudioSinkCount)
+        assertTrue(leaving.audio!!.sinks.isEmpty())
+        assertEquals(1, signals.count("participant_left"))
+
+        signals.clear()
+        room.advance(100)
+        assertTrue(signals.named("audio_frame").all { it.args[0] == "stays" })
+    }
+
+    @Test
+    fun targetedSendOnlyReachesKnownIdentities() {
+        room.addParticipant("known", channelCount = 0)
+
+        session.sendDataTo(byteArrayOf(1), "known", "t", LiveKitTransport.Reliability.RELIABLE)
+        session.sendDataTo(byteArrayOf(2), "unknown", "t", LiveKitTransport.Reliability.RELIABLE)
+        session.sendData(byteArrayOf(3), "t", LiveKitTransport.Reliability.LOSSY)
+
+        assertEquals(2, room.published.size)
+        assertEquals(listOf("known"), room.published[0].destinationIdentities)
+        assertEquals(null, room.published[1].destinationIdentities)
+        assertEquals(LiveKitTransport.Reliability.LOSSY, room.published[1].reliability)
+    }
+}
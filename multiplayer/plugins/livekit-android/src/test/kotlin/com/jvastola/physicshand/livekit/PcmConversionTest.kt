@@ -0,0 +1,34 @@
+package com.jvastola.physicshand.livekit
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class PcmConversionTest {
+
+    private fun pcm(vararg samples: Int): ByteBuffer {
+        val buffer = ByteBuffer.allocate(samples.size * 2).order(ByteOrder.LITTLE_ENDIAN)
+        samples.forEach { buffer.putShort(it.toShort()) }
+        buffer.flip()
+        return buffer
+    }
+
+    @Test
+    fun monoIsDuplicatedToBothChannels() {
+        val out = PcmConversion.pcm16ToStereoFloat(pcm(16384, -32768), 1, 2)
+        assertArrayEquals(floatArrayOf(0.5f, 0.5f, -1.0f, -1.0f), out, 0.0f)
+    }
+
+    @Test
+    fun channelsBeyondStereoAreDropped() {
+        val out = PcmConversion.pcm16ToStereoFloat(pcm(16384, -16384, 1, 2, 3, 4), 6, 1)
+        assertArrayEquals(floatArrayOf(0.5f, -0.5f), out, 0.0f)
+    }
+
+    @Test
+    fun shortBufferYieldsEmptyFrame() {
+        assertEquals(0, PcmConversion.pcm16ToStereoFloat(pcm(1, 2), 2, 2).size)
+    }
+}
@@ -0,0 +1,21 @@
+package com.jvastola.physicshand.livekit
+
+/** [SignalEmitter] that records every emitted signal for assertions. */
+class RecordingSignalEmitter : SignalEmitter {
+
+    data class Emitted(val name: String, val args: List<Any>)
+
+    val emitted = mutableListOf<Emitted>()
+
+    override fun emit(signalName: String, vararg args: Any) {
+        emitted.add(Emitted(signalName, args.toList()))
+    }
+
+    fun count(signalName: String): Int = emitted.count { it.name == signalName }
+
+    fun named(signalName: String): List<Emitted> = emitted.filter { it.name == signalName }
+
+    fun clear() {
+        emitted.clear()
+    }
+}
@@ -0,0 +1,142 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.asCoroutineDispatcher
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.util.concurrent.Executor
+
+class StateChannelTest {
+
+    private lateinit var room: FakeRoomTransport
+    private lateinit var signals: RecordingSignalEmitter
+    private lateinit var session: LiveKitSession
+    private val queued = ArrayDeque<Runnable>()
+
+    @Before
+    fun setUp() {
+        room = FakeRoomTransport()
+        signals = RecordingSignalEmitter()
+        // Coroutines wait in a queue until runQueued(), like posts to a busy main thread
+        val dispatcher = Executor { queued.addLast(it) }.asCoroutineDispatcher()
+        session = LiveKitSession(room, signals, CoroutineScope(dispatcher), { it.run() })
+    }
+
+    private fun runQueued() {
+        while (queued.isNotEmpty()) {
+            queued.removeFirst().run()
+        }
+    }
+
+    @Test
+    fun pendingUpdatesCoalescePerKey() {
+        repeat(5) { session.publishState("transform", byteArrayOf(it.toByte()), "rep/transform") }
+        repeat(3) { session.publishState("obj/cube", byteArrayOf((10 + it).toByte()), "rep/object") }
+        runQueued()
+
+        assertEquals(1, room.published.size)
+        val packet = room.published[0]
+        assertEquals(StateChannel.TOPIC, packet.topic)
+        assertEquals(LiveKitTransport.Reliability.LOSSY, packet.reliability)
+
+        val updates = StateChannel().receive("peer", packet.data)
+        assertEquals(listOf("transform", "obj/cube"), updates.map { it.key })
+        assertEquals(listOf("rep/transform", "rep/object"), updates.map { it.topic })
+        assertArrayEquals(byteArrayOf(4), updates[0].data)
+        assertArrayEquals(byteArrayOf(12), updates[1].data)
+    }
+
+    @Test
+    fun updatesAfterAFlushGoOutInTheNextOne() {
+        session.publishState("transform", byteArrayOf(1), "t")
+        runQueued()
+        session.publishState("transform", byteArrayOf(2), "t")
+        runQueued()
+        assertEquals(2, room.published.size)
+    }
+
+    @Test
+    fun receiverDropsStaleAndReorderedUpdates() {
+        val sender = StateChannel(epoch = 7)
+        sender.offer("transform", "t", byteArrayOf(1))
+        val first = sender.drainPackets().single()
+        sender.offer("transform", "t", byteArrayOf(2))
+        val second = sender.drainPackets().single()
+
+        val receiver = StateChannel()
+        assertEquals(1, receiver.receive("peer", second).size)
+        assertTrue(receiver.receive("peer", first).isEmpty())
+        assertTrue(receiver.receive("peer", second).isEmpty())
+        assertTrue(receiver.statsJson().contains("\"stale_dropped\":2"))
+    }
+
+    @Test
+    fun keysAndSendersAreIndependent() {
+        val sender = StateChannel(epoch = 1)
+        sender.offer("a", "t", byteArrayOf(1))
+        sender.offer("a", "t", byteArrayOf(2))
+        val a = sender.drainPackets().single()
+        sender.offer("b", "t", byteArrayOf(3))
+        val b = sender.drainPackets().single()
+
+        val receiver = StateChannel()
+        assertEquals(1, receiver.receive("peer", b).size)
+        assertEquals(1, receiver.receive("peer", a).size)
+        assertEquals(1, receiver.receive("other", a).size)
+    }
+
+    @Test
+    fun rejoinedSenderWithNewEpochIsAccepted() {
+        val receiver = StateChannel()
+        val before = StateChannel(epoch = 1)
+        repeat(5) {
+            before.offer("transform", "t", byteArrayOf(it.toByte()))
+            receiver.receive("peer", before.drainPackets().single())
+        }
+
+        val after = StateChannel(epoch = 2)
+        after.offer("transform", "t", byteArrayOf(42))
+        val updates = receiver.receive("peer", after.drainPackets().single())
+        assertArrayEquals(byteArrayOf(42), updates.single().data)
+    }
+
+    @Test
+    fun manyKeysAreSplitAtThePacketLimit() {
+        val sender = StateChannel(maxPacketBytes = 300)
+        repeat(20) { sender.offer("obj/$it", "rep/object", ByteArray(60)) }
+        val packets = sender.drainPackets()
+
+        assertTrue(packets.size > 1)
+        assertTrue(packets.all { it.size <= 300 })
+        val receiver = StateChannel()
+        assertEquals(20, packets.sumOf { receiver.receive("peer", it).size })
+    }
+
+    @Test
+    fun sessionDeliversStateAsItsOwnSignal() {
+        val sender = StateChannel()
+        sender.offer("transform", "rep/transform", byteArrayOf(9))
+        val packet = sender.drainPackets().single()
+
+        session.onDataReceived("peer", packet, StateChannel.TOPIC)
+        session.onDataReceived("peer", packet, StateChannel.TOPIC)
+
+        assertEquals(0, signals.count("data_received"))
+        val received = signals.named("state_received").single()
+        assertEquals("peer", received.args[0])
+        assertEquals("transform", received.args[1])
+        assertArrayEquals(byteArrayOf(9), received.args[2] as ByteArray)
+        assertEquals("rep/transform", received.args[3])
+    }
+
+    @Test
+    fun truncatedPacketIsIgnored() {
+        val sender = StateChannel()
+        sender.offer("transform", "t", ByteArray(32))
+        val packet = sender.drainPackets().single()
+        assertTrue(StateChannel().receive("peer", packet.copyOf(packet.size - 4)).isEmpty())
+    }
+}
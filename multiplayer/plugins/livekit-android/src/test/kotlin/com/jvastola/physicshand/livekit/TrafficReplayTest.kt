@@ -0,0 +1,140 @@
+package com.jvastola.physicshand.livekit
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+
+class TrafficReplayTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    private fun newSession(room: LiveKitTransport, signals: SignalEmitter) =
+        LiveKitSession(room, signals, CoroutineScope(Dispatchers.Unconfined), { it.run() })
+
+    /** Records a small session into [file] and returns what the live session emitted. */
+    private fun recordSession(file: File, maxBytes: Long = TrafficRecorder.DEFAULT_MAX_BYTES): Pair<RecordingSignalEmitter, TrafficRecorder> {
+        val room = FakeRoomTransport()
+        val signals = RecordingSignalEmitter()
+        val session = newSession(room, signals)
+        val recorder = TrafficRecorder(file, maxBytes, { room.nowMs * 1_000_000 })
+        session.recorder = recorder
+
+        room.addParticipant("mono")
+        room.addParticipant("stereo", channelCount = 2, sampleRate = 44_100)
+        room.addParticipant("sender", channelCount = 0, dataRateHz = 200.0, payloadBytes = 40, topic = "xform")
+        room.advance(300)
+        session.onParticipantMetadataChanged("mono", "{\"name\":\"Ann\"}")
+        session.sendData(byteArrayOf(1, 2, 3), "chat", LiveKitTransport.Reliability.RELIABLE)
+        room.advance(200)
+        room.removeParticipant("stereo")
+        room.advance(100)
+
+        recorder.close()
+        return signals to recorder
+    }
+
+    private fun describe(emitted: RecordingSignalEmitter.Emitted): String =
+        emitted.name + emitted.args.joinToString(prefix = "(", postfix = ")") { arg ->
+            when (arg) {
+                is FloatArray -> arg.contentToString()
+                is ByteArray -> arg.contentToString()
+                else -> arg.toString()
+            }
+        }
+
+    @Test
+    fun replayReproducesTheRecordedSignals() {
+        val file = folder.newFile("session.lktr")
+        val (live, _) = recordSession(file)
+
+        val replayed = RecordingSignalEmitter()
+        val sent = mutableListOf<String>()
+        val result = TrafficReplayer(file).replay(newSession(FakeRoomTransport(), replayed), 0.0) { data, topic, reliability, destinations ->
+            sent.add("$topic ${data.contentToString()} $reliability $destinations")
+        }
+
+        assertEquals(live.emitted.map(::describe), replayed.emitted.map(::describe))
+        assertEquals(listOf("chat [1, 2, 3] RELIABLE null"), sent)
+        assertEquals(live.count("audio_frame").toLong(), result.pcmFrames)
+        assertEquals(120L, result.dataPackets)
+        assertEquals(600_000L, result.recordedMicros)
+    }
+
+    @Test
+    fun replayKeepsRecordedTimingScaledBySpeed() {
+        val file = folder.newFile("timed.lktr")
+        recordSession(file)
+
+        var now = 0L
+        val result = TrafficReplayer(file, { now }, { now += it })
+            .replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 4.0)
+
+        assertEquals(600_000L * 1000 / 4, result.elapsedNanos)
+    }
+
+    @Test
+    fun recordingStopsAtTheSizeLimit() {
+        val file = folder.newFile("capped.lktr")
+        val (_, recorder) = recordSession(file, maxBytes = 32 * 1024)
+
+        assertTrue(recorder.isFull)
+        assertTrue(recorder.droppedRecords > 0)
+        assertTrue(file.length() <= 32 * 1024)
+
+        val result = TrafficReplayer(file).replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 0.0)
+        assertEquals(recorder.records, result.records)
+    }
+
+    @Test
+    fun truncatedLogReplaysUpToTheLastCompleteRecord() {
+        val file = folder.newFile("full.lktr")
+        recordSession(file)
+        val cut = folder.newFile("cut.lktr")
+        cut.writeBytes(file.readBytes().copyOf((file.length() * 2 / 3).toInt()))
+
+        val full = TrafficReplayer(file).replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 0.0)
+        val partial = TrafficReplayer(cut).replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 0.0)
+
+        assertTrue(partial.pcmFrames > 0)
+        assertTrue(partial.records < full.records)
+    }
+
+    /** A log holding one STRING record whose length field is [length]. */
+    private fun stringRecordWithLength(name: String, length: Long): File {
+        val buffer = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN)
+        buffer.putInt(TrafficLog.MAGIC)
+        buffer.put(TrafficLog.VERSION.toByte())
+        buffer.put(ByteArray(3))
+        buffer.putLong(0L)
+        buffer.put(TrafficLog.STRING.toByte())
+        TrafficLog.putVarint(buffer, 0L)
+        TrafficLog.putVarint(buffer, length)
+        buffer.put("abc".toByteArray())
+        val file = folder.newFile(name)
+        file.writeBytes(buffer.array().copyOf(buffer.position()))
+        return file
+    }
+
+    @Test
+    fun lengthsAreCheckedBeforeAllocating() {
+        // Longer than the rest of the log: read as a cut-off record, not a 2 GB allocation
+        val cut = TrafficReplayer(stringRecordWithLength("long.lktr", 2_000_000_000L))
+            .replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 0.0)
+        assertEquals(0L, cut.records)
+
+        val corrupt = TrafficReplayer(stringRecordWithLength("corrupt.lktr", 1L shl 40))
+        val error = assertThrows(IllegalArgumentException::class.java) {
+            corrupt.replay(newSession(FakeRoomTransport(), RecordingSignalEmitter()), 0.0)
+        }
+        assertTrue(error.message!!.startsWith("Corrupt traffic log"))
+    }
+}
@@ -130,6 +130,10 @@ func _connect_android_signals() -> void:
 	_android_plugin.connect("audio_track_published", _on_audio_track_published)
 	_android_plugin.connect("audio_track_unpublished", _on_audio_track_unpublished)
 	_android_plugin.connect("audio_frame", _on_audio_frame_android)
+	if _android_plugin.has_signal("join_timing"):
+		_android_plugin.connect("join_timing", _on_join_timing_android)
+	if _android_plugin.has_signal("state_received"):
+		_android_plugin.connect("state_received", _on_state_received_android)
 
 
 func _connect_rust_signals() -> void:
@@ -174,6 +178,29 @@ func connect_to_room(url: String, token: String) -> void:
 			push_error("[LiveKitWrapper] Cannot connect: Rust manager not initialized")
 
 
+## Warm up the room, audio stack and DNS ahead of connect_to_room (Android only).
+## Call from a loading screen once the server URL is known; joining then only needs the token.
+func prepare_connection(url: String) -> void:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("prepare"):
+		_android_plugin.call("prepare", url)
+
+
+## Record incoming voice/data traffic to a log for offline replay and profiling (Android only).
+## A relative path lands in the app's external files dir. max_megabytes <= 0 uses the plugin default.
+func start_traffic_recording(path: String = "livekit_traffic.lktr", max_megabytes: int = 0) -> bool:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("startTrafficRecording"):
+		return bool(_android_plugin.call("startTrafficRecording", path, max_megabytes))
+	return false
+
+
+## Stop the traffic recording; returns its stats (records, bytes, dropped, duration_ms).
+func stop_traffic_recording() -> Dictionary:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("stopTrafficRecording"):
+		var stats = JSON.parse_string(str(_android_plugin.call("stopTrafficRecording")))
+		return stats if stats is Dictionary else {}
+	return {}
+
+
 ## Disconnect from the current room
 func disconnect_from_room() -> void:
 	_log_info("Disconnecting from room")
@@ -253,6 +280,61 @@ func send_packet_to(payload: PackedByteArray, identity: String, topic: String =
 func send_json_packet(payload: Dictionary, topic: String = "", reliable: bool = true) -> void:
 	send_packet(JSON.stringify(payload).to_utf8_buffer(), topic, reliable)
 
+
+## Latest-value-wins lossy update keyed by `key` (e.g. "transform", "obj/<id>").
+## On Android only the newest pending value per key is sent and receivers drop stale or
+## reordered ones; it arrives through data_packet_received on `topic` like any unreliable
+## packet. Other backends send it as a plain unreliable packet.
+func publish_state(key: String, payload: PackedByteArray, topic: String) -> void:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("publishState"):
+		_android_plugin.call("publishState", key, payload, topic)
+		return
+	send_packet(payload, topic, false)
+
+
+func publish_json_state(key: String, payload: Dictionary, topic: String) -> void:
+	publish_state(key, JSON.stringify(payload).to_utf8_buffer(), topic)
+
+
+## Opt in to compressing and chunking reliable packets of at least threshold_bytes (Android).
+## Chunks are at most chunk_bytes and are interleaved with other topics' traffic, paced to
+## max_kbps when above zero. Later reliable packets on the same topic wait behind a large one,
+## so each topic keeps its order. Receivers reassemble them whether or not they opted in.
+func configure_large_payloads(enabled: bool, threshold_bytes: int = 1024, chunk_bytes: int = 8192, max_kbps: int = 0) -> void:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("configureLargePayloads"):
+		_android_plugin.call("configureLargePayloads", enabled, threshold_bytes, chunk_bytes, max_kbps)
+
+
+## Shared zlib dictionary for large payloads, e.g. sample JSON of our packet schemas with the
+## most common strings last. Every participant must set the same bytes; empty clears it.
+func set_compression_dictionary(dictionary: PackedByteArray) -> void:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("setCompressionDictionary"):
+		_android_plugin.call("setCompressionDictionary", dictionary)
+
+
+## Room-wide clock in milliseconds. On Android every client converges on the same value
+## through data channel pings, so remote snapshots stamped with it can be interpolated
+## against it directly. Other backends return the local monotonic clock.
+func get_session_time_msec() -> float:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("getSessionTimeMs"):
+		return float(_android_plugin.call("getSessionTimeMs"))
+	return Time.get_ticks_usec() / 1000.0
+
+
+## Median round-trip time to a participant in milliseconds, or -1.0 if not measured yet.
+func get_peer_rtt_msec(identity: String) -> float:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("getPeerRttMs"):
+		return float(_android_plugin.call("getPeerRttMs", identity))
+	return -1.0
+
+
+## Time sync reference identity and per-peer rtt_ms, min_rtt_ms, jitter_ms and offset_ms.
+func get_time_sync_stats() -> Dictionary:
+	if current_platform == Platform.ANDROID and _android_plugin and _android_plugin.has_method("getTimeSyncStats"):
+		var stats = JSON.parse_string(str(_android_plugin.call("getTimeSyncStats")))
+		return stats if stats is Dictionary else {}
+	return {}
+
 # Internal: route data send to Android plugin with best-effort reliability handling.
 func _send_bytes_android(bytes: PackedByteArray, topic: String, reliable: bool, identity: String = "") -> void:
 	if not _android_plugin:
@@ -511,6 +593,16 @@ func _on_connection_error(message: String) -> void:
 	connection_error.emit(message)
 
 
+func _on_join_timing_android(timing_json: String) -> void:
+	var timing = JSON.parse_string(timing_json)
+	if not timing is Dictionary:
+		return
+	var stage := str(timing.get("stage", "join"))
+	_metrics["last_%s_timing" % stage] = timing
+	_emit_metrics()
+	_log_debug("Join timing", timing)
+
+
 func _on_participant_joined(identity: String, participant_name: String) -> void:
 	_log_info("Participant joined", [identity, participant_name])
 	participant_joined.emit(identity, participant_name)
@@ -552,6 +644,10 @@ func _on_data_received(sender_identity: String, data, topic: String = "") -> voi
 	data_received.emit(sender_identity, data_str)
 
 
+func _on_state_received_android(sender_identity: String, _key: String, data, topic: String) -> void:
+	data_packet_received.emit(sender_identity, _coerce_payload_bytes(data), topic, false)
+
+
 func _on_track_subscribed(participant_identity: String, track_sid: String) -> void:
 	_log_debug("Track subscribed", [track_sid, participant_identity])
 	track_subscribed.emit(participant_identity, track_sid)
@@ -395,6 +395,10 @@ func _auto_connect_livekit(room_name: String) -> void:
 		clean_room_name = clean_room_name.substr(0, clean_room_name.length() - 1)
 		print("UnifiedRoomUI: Sanitized room name from '", room_name, "' to '", clean_room_name, "'")
 	
+	# Warm up the Android room/audio stack while the token RPC is in flight
+	if livekit_manager.has_method("prepare_connection") and nakama_manager.has_method("get_livekit_ws_url"):
+		livekit_manager.prepare_connection(nakama_manager.get_livekit_ws_url())
+	
 	# Generate LiveKit token through Nakama RPC
 	print("UnifiedRoomUI: Requesting LiveKit token from Nakama RPC...")
 	var token_result: Dictionary = await nakama_manager.request_livekit_token(clean_room_name, nakama_id)
@@ -42,6 +42,27 @@ func initialize(settings: Dictionary) -> bool:
 	# Store the texture rect reference
 	_texture_rect = settings.get("texture_rect", null)
 	
+	# Optional disk cache for our own dashboard origins (must be set up before pages load)
+	var cache_origins: String = settings.get("resource_cache_origins", "")
+	if not cache_origins.is_empty():
+		if _plugin.enableResourceCache(cache_origins, int(settings.get("resource_cache_mb", 64))):
+			var seed_dir: String = settings.get("resource_cache_seed_dir", "")
+			if not seed_dir.is_empty():
+				_plugin.seedResourceCache(seed_dir)
+	
+	# Capture without damage at least this often (plugin default: 100 ms; 0 = damage only)
+	if settings.has("capture_fallback_ms"):
+		_plugin.setCaptureFallbackInterval(int(settings.get("capture_fallback_ms")))
+	
+	# Optional region-of-interest capture for large panels (focus follows the pointer)
+	if settings.get("roi_capture", false):
+		_plugin.setRoiCapture(true, float(settings.get("roi_region_fraction", 0.35)), int(settings.get("roi_periphery_ms", 250)))
+	
+	# Last frame per URL, shown at once on back/forward (off unless snapshot_cache_mb is set)
+	var snapshot_mb := int(settings.get("snapshot_cache_mb", 0))
+	if snapshot_mb > 0:
+		_plugin.configureFrameSnapshots(snapshot_mb, int(settings.get("snapshot_downscale", 1)))
+	
 	# Initialize the plugin - call directly without has_method check
 	# (has_method doesn't work reliably with Android plugins)
 	var result = _plugin.initialize(_width, _height, initial_url)
@@ -73,6 +94,8 @@ func initialize(settings: Dictionary) -> bool:
 		_plugin.texture_updated.connect(_on_texture_updated)
 	if _plugin.has_signal("scroll_info_received"):
 		_plugin.scroll_info_received.connect(_on_scroll_info_received)
+	if _plugin.has_signal("scroll_state_changed"):
+		_plugin.scroll_state_changed.connect(_on_scroll_state_changed)
 	
 	_current_url = initial_url
 	_is_initialized = true
@@ -146,13 +169,8 @@ func resize(width: int, height: int) -> void:
 	
 	_width = width
 	_height = height
+	# The texture is resized in place once the plugin delivers a frame of the new size
 	_plugin.resize(width, height)
-	
-	# Recreate texture
-	_texture = ImageTexture.new()
-	var img := Image.create(_width, _height, false, Image.FORMAT_RGBA8)
-	img.fill(Color.WHITE)
-	_texture.set_image(img)
 
 
 func send_mouse_move(x: int, y: int) -> void:
@@ -205,16 +223,111 @@ func request_scroll_info() -> void:
 		_plugin.getScrollInfo()
 
 
+## Newer plugins push scroll/layout changes from the page, so polling is unnecessary
+func pushes_scroll_info() -> bool:
+	return _plugin != null and _plugin.has_signal("scroll_state_changed")
+
+
+## Godot keys that edit or navigate text, and their Android key codes. Printable
+## characters arrive through send_text() instead.
+const _ANDROID_KEYCODES := {
+	KEY_ENTER: 66,
+	KEY_KP_ENTER: 66,
+	KEY_TAB: 61,
+	KEY_ESCAPE: 111,
+	KEY_LEFT: 21,
+	KEY_RIGHT: 22,
+	KEY_UP: 19,
+	KEY_DOWN: 20,
+	KEY_HOME: 122,
+	KEY_END: 123,
+}
+const _ANDROID_META_SHIFT := 1
+const _ANDROID_META_ALT := 2
+const _ANDROID_META_CTRL := 4096
+const _ANDROID_KEYCODE_A := 29
+
+
 func send_key(keycode: int, pressed: bool, shift: bool = false, alt: bool = false, ctrl: bool = false) -> void:
-	# Android WebView handles keys through touch/text input
-	pass
+	# Text goes through send_text(); only editing keys and shortcuts are forwarded, on press
+	if not _plugin or not pressed:
+		return
+	if keycode == KEY_BACKSPACE and not ctrl and not alt:
+		_plugin.deleteSurroundingText(1, 0)
+		return
+	if keycode == KEY_DELETE and not ctrl and not alt:
+		_plugin.deleteSurroundingText(0, 1)
+		return
+	var android_code := -1
+	if _ANDROID_KEYCODES.has(keycode):
+		android_code = _ANDROID_KEYCODES[keycode]
+	elif ctrl and keycode >= KEY_A and keycode <= KEY_Z:
+		android_code = _ANDROID_KEYCODE_A + (keycode - KEY_A)
+	if android_code < 0:
+		return
+	var meta := 0
+	if shift:
+		meta |= _ANDROID_META_SHIFT
+	if alt:
+		meta |= _ANDROID_META_ALT
+	if ctrl:
+		meta |= _ANDROID_META_CTRL
+	_plugin.sendKey(android_code, meta)
 
 
+## Keystrokes sent in the same frame reach the page as one edit
 func send_text(text: String) -> void:
 	if _plugin:
 		_plugin.inputText(text)
 
 
+## Show text as the pending IME composition; replaced by the next call, kept by finish_composing_text()
+func set_composing_text(text: String) -> void:
+	if _plugin:
+		_plugin.setComposingText(text)
+
+
+func finish_composing_text() -> void:
+	if _plugin:
+		_plugin.finishComposingText()
+
+
+## Select [start, end) of the focused field; equal values move the cursor
+func set_text_selection(start: int, end: int) -> void:
+	if _plugin:
+		_plugin.setTextSelection(start, end)
+
+
+## Keystroke counts and queue-to-InputConnection latency percentiles (latency_p50_ms, latency_p95_ms, ...)
+func get_text_input_stats() -> Dictionary:
+	if not _plugin:
+		return {}
+	var stats = JSON.parse_string(_plugin.getTextInputStats())
+	return stats if stats is Dictionary else {}
+
+
+## Centre of the region-of-interest capture, in backend pixels
+func set_focus_point(x: int, y: int) -> void:
+	if _plugin and _width > 0 and _height > 0:
+		_plugin.setFocusPoint(float(x) / _width, float(y) / _height)
+
+
+## Per-region draw/copy timings of the region-of-interest capture
+func get_roi_capture_stats() -> Dictionary:
+	if not _plugin:
+		return {}
+	var stats = JSON.parse_string(_plugin.getRoiCaptureStats())
+	return stats if stats is Dictionary else {}
+
+
+## Resource cache statistics (hit ratio, bytes saved, ...); empty when the cache is off
+func get_resource_cache_stats() -> Dictionary:
+	if not _plugin:
+		return {}
+	var stats = JSON.parse_string(_plugin.getResourceCacheStats())
+	return stats if stats is Dictionary else {}
+
+
 func get_texture() -> Texture2D:
 	return _texture
 
@@ -246,19 +359,33 @@ func update(delta: float) -> void:
 
 
 func _update_texture_from_data(data: PackedByteArray) -> void:
-	var expected_size := _width * _height * 4
+	# The plugin debounces resizes, so frames keep their old size for a moment; use the
+	# size of the frame that was actually delivered
+	var frame_width: int = _plugin.getWidth()
+	var frame_height: int = _plugin.getHeight()
+	var expected_size := frame_width * frame_height * 4
 	if data.size() != expected_size:
 		print("AndroidWebViewBackend: Unexpected data size: ", data.size(), " expected: ", expected_size)
 		return
 	
-	var img := Image.create_from_data(_width, _height, false, Image.FORMAT_RGBA8, data)
+	var img := Image.create_from_data(frame_width, frame_height, false, Image.FORMAT_RGBA8, data)
 	if img:
-		_texture.update(img)
+		if _texture.get_width() != frame_width or _texture.get_height() != frame_height:
+			_texture.set_image(img)
+		else:
+			_texture.update(img)
 		if _texture_rect:
 			_texture_rect.texture = _texture
 		texture_updated.emit()
 
 
+## Pre-create WebView instances during a loading screen so opening a panel is instant.
+static func warm_up(count: int = 1, width: int = 1280, height: int = 720) -> void:
+	if not is_available():
+		return
+	Engine.get_singleton("GodotAndroidWebView").warmUp(count, width, height)
+
+
 static func is_available() -> bool:
 	if OS.get_name() != "Android":
 		return false
@@ -330,3 +457,7 @@ func _on_scroll_info_received(json_str: String) -> void:
 	var scroll_height: int = int(data.get("scrollHeight", 0))
 	var client_height: int = int(data.get("clientHeight", 0))
 	scroll_info_received.emit(scroll_y, scroll_height, client_height)
+
+
+func _on_scroll_state_changed(scroll_y: int, scroll_height: int, client_height: int) -> void:
+	scroll_info_received.emit(scroll_y, scroll_height, client_height)
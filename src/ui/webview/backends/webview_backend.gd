@@ -90,6 +90,10 @@ func scroll_to_position(scroll_y: int) -> void:
 func request_scroll_info() -> void:
 	pass
 
+## True if the backend emits scroll_info_received by itself whenever the page scrolls or resizes
+func pushes_scroll_info() -> bool:
+	return false
+
 ## Send key event
 func send_key(keycode: int, pressed: bool, shift: bool = false, alt: bool = false, ctrl: bool = false) -> void:
 	pass
@@ -339,7 +339,8 @@ func _process(delta: float) -> void:
 		_backend.update(delta)
 	
 	# Periodically request scroll info to keep scrollbar in sync
-	if _backend_available and _backend and _backend.has_method("request_scroll_info"):
+	if _backend_available and _backend and _backend.has_method("request_scroll_info") \
+			and not (_backend.has_method("pushes_scroll_info") and _backend.pushes_scroll_info()):
 		_scroll_info_timer += delta
 		if _scroll_info_timer >= SCROLL_INFO_INTERVAL:
 			_scroll_info_timer = 0.0
@@ -440,6 +441,11 @@ func handle_pointer_event(event: Dictionary) -> void:
 	var is_on_url_bar: bool = viewport_pos.y < URL_BAR_HEIGHT
 	var corner := _get_resize_corner(uv)
 	
+	# Keep the backend's region-of-interest capture on what the pointer is looking at
+	if not is_on_url_bar and _backend_available and _backend and _backend.has_method("set_focus_point"):
+		var focus_pos := _viewport_to_backend_pos(viewport_pos)
+		_backend.set_focus_point(int(focus_pos.x), int(focus_pos.y))
+	
 	# Update border highlight
 	if enable_resize and corner != _hovering_corner:
 		_hovering_corner = corner
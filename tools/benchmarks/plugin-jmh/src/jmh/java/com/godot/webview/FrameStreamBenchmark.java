@@ -0,0 +1,116 @@
+package com.godot.webview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-frame encode and decode cost of the co-browsing frame stream on synthetic page
+ * sequences at 30 FPS. The achieved bitrate (bytes per frame and kbit/s) of each sequence is
+ * printed at the end of a trial, since JMH only reports times.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FrameStreamBenchmark {
+
+    private static final int FRAMES = 60;
+    private static final int FRAME_MS = 33;
+
+    /** text-scroll: text page scrolled 8 px/frame; mixed-scroll: with image blocks; static: unchanged page. */
+    @Param({"text-scroll", "mixed-scroll", "static"})
+    public String sequence;
+
+    @Param({"1280x720"})
+    public String size;
+
+    @Param({"1000", "8000"})
+    public int targetKbps;
+
+    private byte[][] frames;
+    private List<List<byte[]>> encoded;
+    private FrameStreamEncoder encoder;
+    private FrameStreamDecoder decoder;
+    private byte[] decodedImage;
+    private int encodeIndex;
+    private int decodeIndex;
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        String[] parts = size.split("x");
+        int width = Integer.parseInt(parts[0]);
+        int height = Integer.parseInt(parts[1]);
+        SyntheticPages page = new SyntheticPages(width, height, height * 6, sequence.startsWith("mixed"), 42);
+
+        // Scroll down and back up so the sequence loops without a jump
+        frames = new byte[FRAMES][];
+        for (int i = 0; i < FRAMES; i++) {
+            int position = i < FRAMES / 2 ? i : FRAMES - i;
+            frames[i] = page.frame(sequence.equals("static") ? 0 : position * 8, null);
+        }
+
+        // The decode benchmark replays one pass with a keyframe at the start of the loop
+        FrameStreamEncoder reference = newEncoder(width, height);
+        reference.setKeyframeInterval(0);
+        encoded = new ArrayList<>(FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            if (i == 0) {
+                reference.requestKeyframe();
+            }
+            encoded.add(reference.encode(frames[i], i * FRAME_MS));
+        }
+        long bytes = reference.bytesSent();
+        System.out.println(String.format(Locale.US,
+            "%n[FrameStream] %s %s @%d kbps: %.0f bytes/frame, %.0f kbit/s at 30 FPS",
+            sequence, size, targetKbps, bytes / (double) FRAMES, bytes * 8.0 / (FRAMES * FRAME_MS)));
+
+        encoder = newEncoder(width, height);
+        decoder = new FrameStreamDecoder();
+        encodeIndex = 0;
+        decodeIndex = 0;
+        timestamp = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println(String.format(Locale.US, "%n[FrameStream] encoder %s", encoder.statsJson()));
+    }
+
+    @Benchmark
+    public List<byte[]> encode() {
+        List<byte[]> packets = encoder.encode(frames[encodeIndex], timestamp);
+        encodeIndex = (encodeIndex + 1) % FRAMES;
+        timestamp += FRAME_MS;
+        return packets;
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        for (byte[] packet : encoded.get(decodeIndex)) {
+            decoder.receive(packet);
+        }
+        decodeIndex = (decodeIndex + 1) % FRAMES;
+        decodedImage = decoder.toRgba(decodedImage);
+        return decodedImage;
+    }
+
+    private FrameStreamEncoder newEncoder(int width, int height) {
+        FrameStreamEncoder result = new FrameStreamEncoder(width, height,
+            FrameStreamEncoder.DEFAULT_TILE_SIZE, FrameStreamEncoder.DEFAULT_MTU);
+        result.setTargetBitrate(targetKbps * 1000);
+        return result;
+    }
+}
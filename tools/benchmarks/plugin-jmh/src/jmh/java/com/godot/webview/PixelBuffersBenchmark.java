@@ -0,0 +1,64 @@
+package com.godot.webview;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a captured frame into the byte[] handed to Godot
+ * (GodotAndroidWebView.getPixelData) at common panel sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PixelBuffersBenchmark {
+
+    @Param({"1280x720", "1920x1080", "2560x1440"})
+    public String size;
+
+    private ByteBuffer pixelBuffer;
+    private byte[] reused;
+    private int[] argb;
+    private byte[] rgba;
+    private int pixelCount;
+
+    @Setup
+    public void setUp() {
+        String[] parts = size.split("x");
+        pixelCount = Integer.parseInt(parts[0]) * Integer.parseInt(parts[1]);
+        pixelBuffer = ByteBuffer.allocateDirect(pixelCount * 4);
+        Random random = new Random(42);
+        argb = new int[pixelCount];
+        for (int i = 0; i < pixelCount; i++) {
+            argb[i] = random.nextInt();
+            pixelBuffer.putInt(argb[i]);
+        }
+        reused = new byte[pixelCount * 4];
+        rgba = new byte[pixelCount * 4];
+    }
+
+    @Benchmark
+    public byte[] copyToNewArray() {
+        return PixelBuffers.copyToArray(pixelBuffer, null);
+    }
+
+    @Benchmark
+    public byte[] copyToReusedArray() {
+        return PixelBuffers.copyToArray(pixelBuffer, reused);
+    }
+
+    @Benchmark
+    public byte[] convertArgbToRgba() {
+        PixelBuffers.argbToRgba(argb, pixelCount, rgba, 0);
+        return rgba;
+    }
+}
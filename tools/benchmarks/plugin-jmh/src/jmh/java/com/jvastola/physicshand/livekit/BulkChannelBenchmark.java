@@ -0,0 +1,93 @@
+package com.jvastola.physicshand.livekit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compressing and chunking a scene-state JSON payload for the reliable channel, and the full
+ * round trip through reassembly and inflate, with and without a shared dictionary. The wire
+ * size printed at the end is what the payload costs compared to sending it raw.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BulkChannelBenchmark {
+
+    @Param({"20", "500"})
+    public int objects;
+
+    @Param({"false", "true"})
+    public boolean dictionary;
+
+    private BulkChannel sender;
+    private BulkChannel receiver;
+    private byte[] payload;
+    private List<byte[]> chunks;
+
+    @Setup
+    public void setUp() {
+        sender = new BulkChannel();
+        receiver = new BulkChannel();
+        payload = sceneJson(objects, 1);
+        if (dictionary) {
+            byte[] shared = sceneJson(4, 2);
+            sender.setDictionary(shared);
+            receiver.setDictionary(shared);
+        }
+        chunks = sender.encode(payload, "scene");
+    }
+
+    @TearDown
+    public void tearDown() {
+        int wire = 0;
+        for (byte[] chunk : chunks) {
+            wire += chunk.length;
+        }
+        System.out.println();
+        System.out.println("[BulkChannel] " + payload.length + " bytes -> " + wire + " on the wire in "
+            + chunks.size() + " chunks");
+    }
+
+    @Benchmark
+    public List<byte[]> encode() {
+        return sender.encode(payload, "scene");
+    }
+
+    @Benchmark
+    public BulkChannel.Message roundTrip() {
+        BulkChannel.Message message = null;
+        for (byte[] chunk : sender.encode(payload, "scene")) {
+            message = receiver.receive("peer", chunk);
+        }
+        return message;
+    }
+
+    /** Objects sharing the keys of our replication JSON, with random poses. */
+    private static byte[] sceneJson(int objects, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder("{\"type\":\"scene_state\",\"objects\":[");
+        for (int i = 0; i < objects; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"object_id\":\"grabbable_cube_").append(i)
+                .append("\",\"owner\":\"player_").append(random.nextInt(8))
+                .append("\",\"position\":[").append(random.nextDouble()).append(',').append(random.nextDouble())
+                .append(',').append(random.nextDouble()).append("],\"rotation\":[0.0,0.0,0.0,1.0],\"sleeping\":")
+                .append(random.nextBoolean()).append('}');
+        }
+        return builder.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.jvastola.physicshand.livekit;
+
+import kotlin.Unit;
+import kotlinx.coroutines.CoroutineScopeKt;
+import kotlinx.coroutines.Dispatchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Data send/receive through LiveKitSession against the in-memory fake room, plus the
+ * identity lookup behind sendDataTo at different room sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DataPathBenchmark {
+
+    @Param({"4", "16", "64", "256"})
+    public int roomSize;
+
+    private FakeRoomTransport room;
+    private LiveKitSession session;
+    private List<String> identityList;
+    private String lastIdentity;
+    private byte[] payload;
+    private Blackhole sink;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        sink = blackhole;
+        room = new FakeRoomTransport("local");
+        session = new LiveKitSession(
+            room,
+            (name, args) -> sink.consume(args),
+            CoroutineScopeKt.CoroutineScope(Dispatchers.getUnconfined()),
+            runnable -> {
+                runnable.run();
+                return Unit.INSTANCE;
+            },
+            (message, error) -> Unit.INSTANCE
+        );
+        identityList = new ArrayList<>();
+        for (int i = 0; i < roomSize; i++) {
+            String identity = "player_" + i;
+            room.addParticipant(identity, 0, 48_000, 0.0, 0, "");
+            identityList.add(identity);
+        }
+        lastIdentity = identityList.get(roomSize - 1);
+        payload = new byte[64];
+    }
+
+    @Benchmark
+    public void receivePacket() {
+        session.onDataReceived(lastIdentity, payload, "xform");
+    }
+
+    @Benchmark
+    public int sendTargetedPacket() {
+        session.sendDataTo(payload, lastIdentity, "xform", LiveKitTransport.Reliability.LOSSY);
+        int sent = room.getPublished().size();
+        room.getPublished().clear();
+        return sent;
+    }
+
+    /** Keyed lookup used by LiveKitSession.sendDataTo. */
+    @Benchmark
+    public boolean identityLookupKeyed() {
+        return room.hasRemoteParticipant(lastIdentity);
+    }
+
+    /** The linear scan the plugin used before the transport split, for comparison. */
+    @Benchmark
+    public boolean identityLookupLinear() {
+        for (String identity : identityList) {
+            if (identity.equals(lastIdentity)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
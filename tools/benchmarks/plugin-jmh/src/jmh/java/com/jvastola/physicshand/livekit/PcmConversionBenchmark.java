@@ -0,0 +1,47 @@
+package com.jvastola.physicshand.livekit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/** One 10 ms WebRTC callback's worth of PCM16 converted for Godot's audio_frame signal. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PcmConversionBenchmark {
+
+    @Param({"1", "2", "6"})
+    public int channelCount;
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    private ByteBuffer frame;
+    private int numberOfFrames;
+
+    @Setup
+    public void setUp() {
+        numberOfFrames = sampleRate / 100;
+        frame = ByteBuffer.allocateDirect(numberOfFrames * channelCount * 2).order(ByteOrder.LITTLE_ENDIAN);
+        Random random = new Random(7);
+        while (frame.hasRemaining()) {
+            frame.putShort((short) random.nextInt());
+        }
+        frame.flip();
+    }
+
+    @Benchmark
+    public float[] pcm16ToStereoFloat() {
+        return PcmConversion.INSTANCE.pcm16ToStereoFloat(frame, channelCount, numberOfFrames);
+    }
+}
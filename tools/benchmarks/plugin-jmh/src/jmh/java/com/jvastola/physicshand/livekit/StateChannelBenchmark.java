@@ -0,0 +1,78 @@
+package com.jvastola.physicshand.livekit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One flush of the keyed state channel: {@code updatesPerFlush} transform-sized updates
+ * spread over {@code keys} keys are coalesced, encoded and (in roundTrip) applied by a
+ * receiver. The sender stats printed at the end show how many updates never hit the wire.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class StateChannelBenchmark {
+
+    @Param({"1", "16"})
+    public int keys;
+
+    @Param({"1", "8"})
+    public int updatesPerFlush;
+
+    private StateChannel sender;
+    private StateChannel receiver;
+    private String[] keyNames;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        sender = new StateChannel(1, StateChannel.MAX_PACKET_BYTES);
+        receiver = new StateChannel(2, StateChannel.MAX_PACKET_BYTES);
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "obj/" + i;
+        }
+        // About the size of the JSON player transform packet
+        payload = new byte[380];
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println();
+        System.out.println("[StateChannel] sender " + sender.statsJson());
+    }
+
+    @Benchmark
+    public List<byte[]> coalesceAndEncode() {
+        offerBurst();
+        return sender.drainPackets();
+    }
+
+    @Benchmark
+    public int roundTrip() {
+        offerBurst();
+        int applied = 0;
+        for (byte[] packet : sender.drainPackets()) {
+            applied += receiver.receive("peer", packet).size();
+        }
+        return applied;
+    }
+
+    private void offerBurst() {
+        for (int i = 0; i < updatesPerFlush; i++) {
+            for (String key : keyNames) {
+                sender.offer(key, "rep/object", payload);
+            }
+        }
+    }
+}
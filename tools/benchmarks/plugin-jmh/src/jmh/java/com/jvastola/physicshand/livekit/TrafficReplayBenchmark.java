@@ -0,0 +1,137 @@
+package com.jvastola.physicshand.livekit;
+
+import kotlin.Unit;
+import kotlinx.coroutines.CoroutineScopeKt;
+import kotlinx.coroutines.Dispatchers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One second of room traffic (speakers at 48 kHz mono plus a 500 Hz data sender):
+ * replaying a recorded log through LiveKitSession as fast as possible, and the cost the
+ * recorder adds to the live PCM/data paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrafficReplayBenchmark {
+
+    @Param({"4", "16"})
+    public int speakers;
+
+    private File log;
+    private LiveKitSession replaySession;
+    private Blackhole sink;
+
+    /** A live room with the same traffic, with and without a recorder attached. */
+    @State(Scope.Thread)
+    public static class LiveRoom {
+        @Param({"false", "true"})
+        public boolean recording;
+
+        private File scratchLog;
+        private FakeRoomTransport room;
+        private LiveKitSession session;
+        private TrafficRecorder recorder;
+
+        @Setup
+        public void setUp(TrafficReplayBenchmark benchmark) throws IOException {
+            scratchLog = Files.createTempFile("traffic-live", ".lktr").toFile();
+            room = benchmark.newRoom();
+            session = benchmark.newSession(room);
+            benchmark.populate(room);
+        }
+
+        @Setup(Level.Invocation)
+        public void startRecorder() {
+            if (recording) {
+                recorder = new TrafficRecorder(scratchLog);
+                session.setRecorder(recorder);
+            }
+        }
+
+        @TearDown(Level.Invocation)
+        public void stopRecorder() {
+            if (recorder != null) {
+                session.setRecorder(null);
+                recorder.close();
+                recorder = null;
+            }
+        }
+
+        @TearDown
+        public void tearDown() {
+            scratchLog.delete();
+        }
+    }
+
+    @Setup
+    public void setUp(Blackhole blackhole) throws IOException {
+        sink = blackhole;
+        log = Files.createTempFile("traffic", ".lktr").toFile();
+
+        FakeRoomTransport room = newRoom();
+        LiveKitSession session = newSession(room);
+        TrafficRecorder recorder = new TrafficRecorder(log);
+        session.setRecorder(recorder);
+        populate(room);
+        room.advance(1_000);
+        recorder.close();
+
+        replaySession = newSession(new FakeRoomTransport("local"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        log.delete();
+    }
+
+    @Benchmark
+    public TrafficReplayer.Result replayOneSecond() {
+        return new TrafficReplayer(log).replay(replaySession, 0.0);
+    }
+
+    @Benchmark
+    public long liveOneSecond(LiveRoom live) {
+        live.room.advance(1_000);
+        return live.room.getNowMs();
+    }
+
+    private FakeRoomTransport newRoom() {
+        return new FakeRoomTransport("local");
+    }
+
+    private void populate(FakeRoomTransport room) {
+        for (int i = 0; i < speakers; i++) {
+            room.addParticipant("speaker_" + i, 1, 48_000, 0.0, 0, "");
+        }
+        room.addParticipant("sender", 0, 48_000, 500.0, 48, "xform");
+    }
+
+    private LiveKitSession newSession(FakeRoomTransport room) {
+        return new LiveKitSession(
+            room,
+            (name, args) -> sink.consume(args),
+            CoroutineScopeKt.CoroutineScope(Dispatchers.getUnconfined()),
+            runnable -> {
+                runnable.run();
+                return Unit.INSTANCE;
+            },
+            (message, error) -> Unit.INSTANCE
+        );
+    }
+}